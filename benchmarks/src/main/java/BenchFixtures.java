@@ -0,0 +1,206 @@
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BiPredicate;
+import java.util.function.DoubleSupplier;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntSupplier;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+// ==========================================
+// BENCHMARK FIXTURES
+// ==========================================
+// The application lives in the default package, which JMH benchmarks (and any
+// named package) cannot import. These builders sit in the default package of
+// the benchmark module and hand the code under test back as java.util.function
+// values; cinema.bench.Fixtures looks them up once per trial, so the measured
+// calls are plain interface calls. Every JMH fork is a fresh JVM, which gives
+// each trial its own CinemaData singleton.
+public final class BenchFixtures {
+    static { System.setProperty("cinema.persistence", "false"); }
+
+    public static final int LOGIN_ACCOUNTS = 64;
+
+    private BenchFixtures() {}
+
+    // users customers at hash cost 1, plus "bench0".."bench63" (password "secret")
+    // at the given cost; the predicate is CinemaData.login succeeding
+    public static BiPredicate<String, String> login(int users, int iterations) {
+        CinemaData db = CinemaData.getInstance();
+        PasswordHasher.setIterations(1);
+        IntStream.range(0, users).parallel().forEach(i -> db.register(new Customer("user" + i, "pw" + i)));
+        PasswordHasher.setIterations(iterations);
+        for (int i = 0; i < LOGIN_ACCOUNTS; i++) db.register(new Customer("bench" + i, "secret"));
+        return (u, p) -> db.login(u, p) != null;
+    }
+
+    // The customer "Filter" box over a catalogue of the given size
+    public static Function<String, List<?>> customerFilter(int movies) {
+        CinemaData db = CinemaData.getInstance();
+        Hall hall = new Hall("Bench Hall", 100);
+        db.addHall(hall);
+        String[] genres = {"Action", "Comedy", "Drama", "Horror", "Sci-Fi", "Thriller"};
+        String[] languages = {"English", "Arabic", "French", "Korean"};
+        String[] words = {"Dark", "Night", "Star", "Lost", "City", "River", "Ghost", "Last", "Iron", "Summer"};
+        Random rnd = new Random(7);
+        for (int i = 0; i < movies; i++) {
+            String title = words[rnd.nextInt(words.length)] + " " + words[rnd.nextInt(words.length)] + " " + i;
+            db.addMovie(new Movie.MovieBuilder(title).setGenre(genres[rnd.nextInt(genres.length)])
+                    .setLanguage(languages[rnd.nextInt(languages.length)]).setPrice(10).setShowtime("20:00").setHall(hall).build());
+        }
+        BookingService service = new BookingService(db);
+        return service::search;
+    }
+
+    // Customers paging through a catalogue of the given size: each call takes
+    // the current snapshot and reads one 50-row page of it (the argument picks
+    // the page); returns how many of the rows are active
+    public static IntUnaryOperator catalogueBrowse(int movies) {
+        CinemaData db = CinemaData.getInstance();
+        Hall hall = new Hall("Browse Hall", 100);
+        db.addHall(hall);
+        List<Movie> batch = new ArrayList<>(movies);
+        for (int i = 0; i < movies; i++) batch.add(new Movie.MovieBuilder("Browse " + i).setPrice(10).setShowtime("20:00").setHall(hall).build());
+        db.addMovies(batch);
+        return page -> {
+            List<Movie> view = db.getMovies();
+            int from = (int) ((long) page * 50 % Math.max(1, view.size() - 50)), active = 0;
+            for (int i = from; i < from + 50 && i < view.size(); i++) if (view.get(i).isActive()) active++;
+            return active;
+        };
+    }
+
+    // An admin editing the catalogue of catalogueBrowse: each call adds a movie,
+    // toggles one by id and removes the one added 100 calls earlier (single thread)
+    public static Runnable catalogueEdit() {
+        CinemaData db = CinemaData.getInstance();
+        Hall hall = db.getHalls().get(0);
+        ArrayDeque<String> added = new ArrayDeque<>();
+        int[] n = {0};
+        return () -> {
+            Movie m = new Movie.MovieBuilder("Edit " + n[0]++).setPrice(10).setShowtime("20:00").setHall(hall).build();
+            db.addMovie(m);
+            added.add(m.getId());
+            db.setMovieActive(m.getId(), false);
+            if (added.size() > 100) db.removeMovie(added.poll());
+        };
+    }
+
+    // A facet index over the given number of movies (8 genres, 4 languages,
+    // 200 halls, prices $5-$19, one in ten inactive); the function runs a
+    // query with its counts: 0 = nothing ticked, 1 = one genre, 2 = two genres
+    // AND a language AND now showing. Returns the number of matches.
+    public static IntUnaryOperator facetQuery(int movies) {
+        FacetIndex index = new FacetIndex();
+        String[] genres = {"Action", "Comedy", "Drama", "Horror", "Sci-Fi", "Thriller", "Animation", "Documentary"};
+        String[] languages = {"English", "Arabic", "French", "Korean"};
+        Hall[] halls = new Hall[200];
+        for (int h = 0; h < halls.length; h++) halls[h] = new Hall("Hall " + h, 100);
+        Random rnd = new Random(13);
+        for (int i = 0; i < movies; i++) {
+            Movie m = new Movie.MovieBuilder("Facet " + i).setGenre(genres[rnd.nextInt(genres.length)])
+                    .setLanguage(languages[rnd.nextInt(languages.length)]).setHall(halls[rnd.nextInt(halls.length)])
+                    .setPrice(5 + rnd.nextInt(15)).build();
+            if (rnd.nextInt(10) == 0) m.setActive(false);
+            index.add(m);
+        }
+        FacetSelection[] selections = {
+                FacetSelection.NONE,
+                FacetSelection.NONE.with(Facet.GENRE, "Drama", true),
+                FacetSelection.NONE.with(Facet.GENRE, "Drama", true).with(Facet.GENRE, "Comedy", true)
+                        .with(Facet.LANGUAGE, "French", true).with(Facet.STATUS, Facet.ACTIVE, true)};
+        return which -> index.query(selections[which]).size();
+    }
+
+    // Claims seats i and i+1 (wrapping) and releases them again on success;
+    // false means another thread held one of them
+    public static IntPredicate seatClaim(int capacity) {
+        SeatReservationEngine engine = new SeatReservationEngine(capacity);
+        return i -> {
+            int a = i % capacity, b = (i + 1) % capacity;
+            if (!engine.claim(a, b).isSuccess()) return false;
+            engine.release(a, b);
+            return true;
+        };
+    }
+
+    public static DoubleSupplier averageRating(int reviews) {
+        Movie m = new Movie.MovieBuilder("Rated").setPrice(10).build();
+        Random rnd = new Random(11);
+        for (int i = 0; i < reviews; i++) m.addReview(new Review("u" + i, "ok", 1 + rnd.nextInt(5)));
+        return m::getAverageRating;
+    }
+
+    // A ticket wrapped in depth alternating Popcorn/Soda decorators
+    private static Ticket decorated(int depth) {
+        Ticket t = new MovieTicket(new Movie.MovieBuilder("Deep").setPrice(12).build());
+        for (int i = 0; i < depth; i++) t = i % 2 == 0 ? new Popcorn(t) : new Soda(t);
+        return t;
+    }
+
+    // A week-style grid: screenings back to back (150 min apart) across 20 halls,
+    // every 500th one shifted into its neighbour so there is something to report
+    private static List<Screening> screeningGrid(int count) {
+        Hall[] halls = new Hall[20];
+        for (int h = 0; h < halls.length; h++) halls[h] = new Hall("Bench Hall " + h, 100);
+        Movie m = new Movie.MovieBuilder("Scheduled").setPrice(10).build();
+        LocalDateTime base = LocalDateTime.of(2030, 1, 1, 9, 0);
+        List<Screening> out = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime start = base.plusMinutes(150L * (i / halls.length) + (i % 500 == 0 ? 60 : 0));
+            out.add(new Screening(m, halls[i % halls.length], start, start.plus(Screening.DEFAULT_LENGTH)));
+        }
+        return out;
+    }
+
+    // Bulk validation of a batch of the given size against an empty schedule;
+    // the supplier returns the number of clashes found
+    public static IntSupplier scheduleValidation(int screenings) {
+        ScreeningSchedule schedule = new ScreeningSchedule();
+        List<Screening> batch = screeningGrid(screenings);
+        return () -> schedule.validate(batch).size();
+    }
+
+    // Single clash lookups in a schedule already holding the given number of
+    // screenings; the argument picks one of them to probe next to
+    public static IntFunction<List<?>> hallConflicts(int screenings) {
+        ScreeningSchedule schedule = new ScreeningSchedule();
+        List<Screening> grid = screeningGrid(screenings);
+        for (Screening sc : grid) schedule.add(sc);
+        return i -> {
+            Screening near = grid.get(i % grid.size());
+            LocalDateTime start = near.getEnd().plusMinutes(5);
+            return schedule.conflicts(near.getHall(), start, start.plus(Screening.DEFAULT_LENGTH));
+        };
+    }
+
+    public static DoubleSupplier ticketCost(int depth) { return decorated(depth)::getCost; }
+    public static Supplier<String> ticketDescription(int depth) { return decorated(depth)::getDescription; }
+
+    // PricingEngine: the cached plan for a movie with both add-ons, and a quote
+    // for the first seats of a 200-seat hall (premium rows and the group
+    // discount kick in as the party grows)
+    public static Supplier<Object> pricePlan() {
+        PricingEngine engine = new PricingEngine();
+        Movie m = new Movie.MovieBuilder("Priced").setPrice(12.5).build();
+        List<String> addOns = List.of(PriceTable.POPCORN, PriceTable.SODA);
+        return () -> engine.plan(m, addOns);
+    }
+
+    public static LongSupplier priceQuote(int seats) {
+        PricingEngine engine = new PricingEngine();
+        Movie m = new Movie.MovieBuilder("Priced").setPrice(12.5).build();
+        Hall hall = new Hall("Priced Hall", 200, 20);
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < seats; i++) names.add(SeatReservationEngine.seatName(200 - seats + i));
+        List<String> addOns = List.of(PriceTable.POPCORN, PriceTable.SODA);
+        return () -> engine.plan(m, addOns).quote(hall, names).getTotalCents();
+    }
+}
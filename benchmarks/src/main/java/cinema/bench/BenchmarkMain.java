@@ -0,0 +1,20 @@
+package cinema.bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Entry point of benchmarks.jar: JMH's own Main, but results default to JSON
+// in jmh-results-<version>.json so runs of different releases can be diffed.
+// Any JMH option still works, e.g. "LoginBench -p users=1000" or "-rf csv".
+//   java -jar benchmarks/target/benchmarks.jar [JMH options] [benchmark regex]
+public final class BenchmarkMain {
+    public static void main(String[] args) throws Exception {
+        List<String> jmh = new ArrayList<>(Arrays.asList(args));
+        if (!jmh.contains("-rf")) {
+            String version = BenchmarkMain.class.getPackage().getImplementationVersion();
+            jmh.addAll(List.of("-rf", "json", "-rff", "jmh-results-" + (version == null ? "dev" : version) + ".json"));
+        }
+        org.openjdk.jmh.Main.main(jmh.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,45 @@
+package cinema.bench;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntUnaryOperator;
+import org.openjdk.jmh.annotations.*;
+
+// Browsing the versioned catalogue (CatalogueList snapshots): page reads from
+// three threads alone, and the same reads while a fourth thread edits the
+// catalogue nonstop. Readers never lock, so their time should not move with
+// the editor; scale the readers with "-tg 7,1" and so on.
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CatalogueBrowseBench {
+    @Param({"10000", "100000"})
+    int movies;
+
+    IntUnaryOperator browse;
+    Runnable edit;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        browse = Fixtures.get("catalogueBrowse", movies);
+        edit = Fixtures.get("catalogueEdit");
+    }
+
+    @Benchmark
+    @Group("browseAlone")
+    @GroupThreads(3)
+    public int browseAlone() { return browse.applyAsInt(ThreadLocalRandom.current().nextInt(movies)); }
+
+    @Benchmark
+    @Group("browseWhileEditing")
+    @GroupThreads(3)
+    public int browse() { return browse.applyAsInt(ThreadLocalRandom.current().nextInt(movies)); }
+
+    @Benchmark
+    @Group("browseWhileEditing")
+    @GroupThreads(1)
+    public void edit() { edit.run(); }
+}
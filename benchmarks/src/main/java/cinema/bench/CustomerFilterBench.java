@@ -0,0 +1,33 @@
+package cinema.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.openjdk.jmh.annotations.*;
+
+// The customer "Filter" box (BookingService.search) over large catalogues,
+// from a one-letter prefix that matches nearly everything to a rare title.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CustomerFilterBench {
+    @Param({"1000", "10000", "50000"})
+    int movies;
+
+    @Param({"d", "nig", "star city", "ghost 4711", "korean"})
+    String query;
+
+    Function<String, List<?>> filter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        filter = Fixtures.get("customerFilter", movies);
+        filter.apply(""); // builds the search index outside the measurement
+    }
+
+    @Benchmark
+    public List<?> filter() { return filter.apply(query); }
+}
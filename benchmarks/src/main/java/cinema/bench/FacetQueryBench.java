@@ -0,0 +1,30 @@
+package cinema.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntUnaryOperator;
+import org.openjdk.jmh.annotations.*;
+
+// Facet checkbox queries (FacetIndex bitmaps): the matching set plus the
+// count of every genre, language, hall, price band and status, with nothing,
+// one value, or four values across three facets ticked.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class FacetQueryBench {
+    @Param({"100000", "1000000"})
+    int movies;
+
+    @Param({"0", "1", "2"})
+    int selection;
+
+    IntUnaryOperator query;
+
+    @Setup(Level.Trial)
+    public void setUp() { query = Fixtures.get("facetQuery", movies); }
+
+    @Benchmark
+    public int query() { return query.applyAsInt(selection); }
+}
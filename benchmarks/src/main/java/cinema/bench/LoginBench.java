@@ -0,0 +1,36 @@
+package cinema.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+import org.openjdk.jmh.annotations.*;
+
+// CinemaData.login with the user map at different sizes; iterations is the
+// PBKDF2 cost of the accounts logging in (1 isolates the lookup itself).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoginBench {
+    @Param({"1000", "100000", "1000000"})
+    int users;
+
+    @Param({"1", "120000"})
+    int iterations;
+
+    BiPredicate<String, String> login;
+    int next;
+
+    @Setup(Level.Trial)
+    public void setUp() { login = Fixtures.get("login", users, iterations); }
+
+    @Benchmark
+    public boolean login() {
+        next = (next + 1) & 63; // BenchFixtures.LOGIN_ACCOUNTS
+        return login.test("bench" + next, "secret");
+    }
+
+    @Benchmark
+    public boolean unknownUser() { return login.test("nobody", "secret"); }
+}
@@ -0,0 +1,34 @@
+package cinema.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import org.openjdk.jmh.annotations.*;
+
+// PricingEngine: fetching a compiled plan, and quoting a party of seats with
+// seat classes and the group discount. Compare with TicketPricingBench.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PricePlanBench {
+    @Param({"1", "4", "20"})
+    int seats;
+
+    Supplier<Object> plan;
+    LongSupplier quote;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        plan = Fixtures.get("pricePlan");
+        quote = Fixtures.get("priceQuote", seats);
+    }
+
+    @Benchmark
+    public Object plan() { return plan.get(); }
+
+    @Benchmark
+    public long quote() { return quote.getAsLong(); }
+}
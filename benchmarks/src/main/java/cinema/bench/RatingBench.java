@@ -0,0 +1,25 @@
+package cinema.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+import org.openjdk.jmh.annotations.*;
+
+// Movie.getAverageRating with few and with very many reviews
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RatingBench {
+    @Param({"10", "10000", "1000000"})
+    int reviews;
+
+    DoubleSupplier average;
+
+    @Setup(Level.Trial)
+    public void setUp() { average = Fixtures.get("averageRating", reviews); }
+
+    @Benchmark
+    public double averageRating() { return average.getAsDouble(); }
+}
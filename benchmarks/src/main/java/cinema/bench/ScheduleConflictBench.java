@@ -0,0 +1,38 @@
+package cinema.bench;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
+import org.openjdk.jmh.annotations.*;
+
+// Hall conflict detection (ScreeningSchedule's per-hall interval trees): one
+// clash lookup in a full schedule, and bulk validation of a whole imported
+// batch against itself.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScheduleConflictBench {
+    @Param({"10000", "100000"})
+    int screenings;
+
+    IntFunction<List<?>> conflicts;
+    IntSupplier validate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        conflicts = Fixtures.get("hallConflicts", screenings);
+        validate = Fixtures.get("scheduleValidation", screenings);
+    }
+
+    @Benchmark
+    public List<?> conflictCheck() { return conflicts.apply(ThreadLocalRandom.current().nextInt(screenings)); }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int validateBatch() { return validate.getAsInt(); }
+}
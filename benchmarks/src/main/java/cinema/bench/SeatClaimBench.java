@@ -0,0 +1,29 @@
+package cinema.bench;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+import org.openjdk.jmh.annotations.*;
+
+// Claim + release of a seat pair in one SeatReservationEngine shared by
+// several threads. hotSeats is how many seats they fight over: 16 makes most
+// claims collide, 4096 spreads them out.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class SeatClaimBench {
+    @Param({"16", "4096"})
+    int hotSeats;
+
+    IntPredicate claim;
+
+    @Setup(Level.Trial)
+    public void setUp() { claim = Fixtures.get("seatClaim", 4096); }
+
+    @Benchmark
+    public boolean claimAndRelease() { return claim.test(ThreadLocalRandom.current().nextInt(hotSeats)); }
+}
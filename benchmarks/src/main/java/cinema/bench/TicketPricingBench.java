@@ -0,0 +1,33 @@
+package cinema.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+import org.openjdk.jmh.annotations.*;
+
+// Ticket.getCost / getDescription through TicketDecorator chains of growing depth
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TicketPricingBench {
+    @Param({"1", "10", "100", "1000"})
+    int depth;
+
+    DoubleSupplier cost;
+    Supplier<String> description;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cost = Fixtures.get("ticketCost", depth);
+        description = Fixtures.get("ticketDescription", depth);
+    }
+
+    @Benchmark
+    public double cost() { return cost.getAsDouble(); }
+
+    @Benchmark
+    public String description() { return description.get(); }
+}
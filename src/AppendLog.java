@@ -0,0 +1,69 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+// ==========================================
+// APPEND LOG (chunked, append-only)
+// ==========================================
+// Items in arrival order (a movie's reviews, a customer's bookings), stored in
+// fixed-size chunks so growing never copies an item: only the small chunk
+// directory is reallocated. Appends are serialized; readers take no lock. Each
+// append fills its slot before publishing the new size through a volatile
+// write, so any index below size() is safe to read. Pages are served newest
+// first, so a reader never has to touch more items than it shows.
+class AppendLog<T> {
+    static final int CHUNK = 256;
+
+    private volatile Object[][] chunks = new Object[4][];
+    private volatile int size;
+
+    // Returns the item's index (0 = oldest)
+    public synchronized int append(T item) {
+        int i = size;
+        Object[][] dir = chunks;
+        int c = i / CHUNK;
+        if (c == dir.length) dir = Arrays.copyOf(dir, dir.length * 2);
+        if (dir[c] == null) dir[c] = new Object[CHUNK];
+        dir[c][i % CHUNK] = item;
+        chunks = dir;
+        size = i + 1;
+        return i;
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Item " + index + " of " + size);
+        return (T) chunks[index / CHUNK][index % CHUNK];
+    }
+
+    // Oldest-first items [from, to)
+    @SuppressWarnings("unchecked")
+    public List<T> range(int from, int to) {
+        to = Math.min(to, size);
+        List<T> out = new ArrayList<>(Math.max(0, to - from));
+        Object[][] dir = chunks;
+        for (int i = Math.max(0, from); i < to; i++) out.add((T) dir[i / CHUNK][i % CHUNK]);
+        return out;
+    }
+
+    // Up to limit items, newest first, skipping the newest offset
+    public List<T> newestFirst(int offset, int limit) {
+        int top = size - offset;
+        List<T> out = range(Math.max(0, top - limit), top);
+        Collections.reverse(out);
+        return out;
+    }
+
+    // Oldest first, up to the size when the call started
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super T> action) {
+        int n = size;
+        Object[][] dir = chunks;
+        for (int i = 0; i < n; i++) action.accept((T) dir[i / CHUNK][i % CHUNK]);
+    }
+}
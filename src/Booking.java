@@ -0,0 +1,100 @@
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// ==========================================
+// BOOKINGS (typed records)
+// ==========================================
+// One completed checkout. The screening's movie title, hall and start are
+// copied in, so a booking still reads correctly after its screening or movie
+// is gone. Immutable.
+final class Booking {
+    // LEGACY: text-only history from before typed records; it has no seats or
+    // price, and a screening only if the text was recorded against one
+    enum Status { CONFIRMED, LEGACY }
+
+    private final String id, username, screeningId, movieTitle, hallName;
+    private final LocalDateTime start;
+    private final List<String> seats;
+    private final String item; // e.g. "Ticket: Inception, Popcorn"; the whole text for LEGACY
+    private final List<String> addOns; // PriceTable names, in menu order; empty for LEGACY
+    private final long centsPaid, bookedAt; // bookedAt: epoch millis
+    private final Status status;
+
+    Booking(String id, String username, String screeningId, String movieTitle, String hallName, LocalDateTime start,
+            List<String> seats, String item, List<String> addOns, long centsPaid, long bookedAt, Status status) {
+        this.id = id; this.username = username; this.screeningId = screeningId;
+        this.movieTitle = movieTitle; this.hallName = hallName; this.start = start;
+        this.seats = List.copyOf(seats); this.item = item; this.addOns = List.copyOf(addOns);
+        this.centsPaid = centsPaid; this.bookedAt = bookedAt; this.status = status;
+    }
+
+    static Booking confirmed(User u, Screening sc, List<String> seats, String item, List<String> addOns, long centsPaid) {
+        return new Booking(UUID.randomUUID().toString(), u.username, sc.getId(), sc.getMovie().getTitle(), sc.getHall().getName(),
+                sc.getStart(), seats, item, addOns, centsPaid, System.currentTimeMillis(), Status.CONFIRMED);
+    }
+
+    static Booking legacy(String username, Screening sc, String text) {
+        return new Booking(UUID.randomUUID().toString(), username, sc == null ? null : sc.getId(),
+                sc == null ? null : sc.getMovie().getTitle(), sc == null ? null : sc.getHall().getName(),
+                sc == null ? null : sc.getStart(), List.of(), text, List.of(), 0, 0, Status.LEGACY);
+    }
+
+    public String getId() { return id; }
+    public String getUsername() { return username; }
+    public String getScreeningId() { return screeningId; }
+    public String getMovieTitle() { return movieTitle; }
+    public String getHallName() { return hallName; }
+    public LocalDateTime getStart() { return start; }
+    public List<String> getSeats() { return seats; }
+    public String getItem() { return item; }
+    public List<String> getAddOns() { return addOns; }
+    public long getCentsPaid() { return centsPaid; }
+    public long getBookedAt() { return bookedAt; }
+    public Status getStatus() { return status; }
+
+    // "Inception · Sat 18 Oct 18:00 · Hall A"
+    public String getHeadline() {
+        if (movieTitle == null) return "Booking";
+        return movieTitle + "  ·  " + start.format(Screening.DAY_TIME) + "  ·  " + hallName;
+    }
+
+    // "2x Ticket: Inception, Popcorn  ·  Seats S7 S8"
+    public String getDescription() {
+        if (status == Status.LEGACY) return item;
+        return seats.size() + "x " + item + "  ·  Seats " + String.join(" ", seats);
+    }
+
+    // The one-line form bookings had as text
+    @Override public String toString() {
+        if (status == Status.LEGACY) return item;
+        return seats.size() + "x [" + item + "] " + start.format(Screening.DAY_TIME) + ", " + hallName + ": " + String.join(" ", seats);
+    }
+}
+
+// Every booking by id and per screening; per customer they live in
+// Customer.bookings, newest last. Adds are O(1) and nothing is ever scanned.
+class BookingIndex {
+    private final Map<String, Booking> byId = new ConcurrentHashMap<>();
+    private final Map<String, AppendLog<Booking>> byScreening = new ConcurrentHashMap<>();
+
+    void add(User u, Booking b) {
+        if (byId.putIfAbsent(b.getId(), b) != null) return;
+        if (u instanceof Customer) ((Customer) u).bookings.append(b);
+        if (b.getScreeningId() != null) byScreening.computeIfAbsent(b.getScreeningId(), id -> new AppendLog<>()).append(b);
+    }
+
+    public Booking get(String id) { return byId.get(id); }
+    public int size() { return byId.size(); }
+    // Every booking, in no particular order and without copying (reports);
+    // bookings made meanwhile may or may not be seen
+    public void forEach(Consumer<? super Booking> action) { byId.values().forEach(action); }
+
+    public AppendLog<Booking> forScreening(String screeningId) {
+        AppendLog<Booking> log = byScreening.get(screeningId);
+        return log != null ? log : new AppendLog<>();
+    }
+}
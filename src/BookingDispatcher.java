@@ -0,0 +1,165 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// ==========================================
+// ASYNC OBSERVER DISPATCH
+// ==========================================
+// CinemaData.notifyObservers only enqueues. Every observer has its own bounded
+// queue and worker, so a slow EmailService delays nobody but itself. Workers
+// deliver whatever has queued up (up to batchSize) as one onBookingBatch call.
+// When a queue is full the observer's BackPressure decides: BLOCK the booking
+// thread, DROP the event (counted), or SPILL it to an unbounded overflow queue
+// that is drained once the bounded one has room.
+class BookingDispatcher {
+    enum BackPressure { BLOCK, DROP, SPILL }
+
+    static final int DEFAULT_CAPACITY = 1024;
+    static final int DEFAULT_BATCH = 64;
+
+    private final List<Channel> channels = new CopyOnWriteArrayList<>();
+    private final ExecutorService workers = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "booking-observer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public void register(BookingObserver o) { register(o, BackPressure.BLOCK, DEFAULT_CAPACITY, DEFAULT_BATCH); }
+
+    public void register(BookingObserver o, BackPressure policy, int capacity, int batchSize) {
+        Channel c = new Channel(o, policy, capacity, batchSize);
+        channels.add(c);
+        workers.execute(c::run);
+    }
+
+    public void publish(BookingEvent e) {
+        for (Channel c : channels) c.offer(e);
+    }
+
+    public List<Metrics> metrics() {
+        List<Metrics> out = new ArrayList<>();
+        for (Channel c : channels) out.add(c.metrics());
+        return out;
+    }
+
+    // Waits until every queue is empty and no batch is in flight; false on timeout.
+    public boolean awaitDrained(long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        for (Channel c : channels) {
+            while (c.backlog() > 0) {
+                if (System.nanoTime() > deadline) return false;
+                Thread.sleep(1);
+            }
+        }
+        return true;
+    }
+
+    static final class Metrics {
+        final String observer;
+        final int queueDepth;
+        final long delivered, dropped, spilled, batches, lastLagMillis, maxLagMillis;
+
+        Metrics(String observer, int queueDepth, long delivered, long dropped, long spilled, long batches, long lastLagMillis, long maxLagMillis) {
+            this.observer = observer; this.queueDepth = queueDepth; this.delivered = delivered; this.dropped = dropped;
+            this.spilled = spilled; this.batches = batches; this.lastLagMillis = lastLagMillis; this.maxLagMillis = maxLagMillis;
+        }
+
+        @Override public String toString() {
+            return observer + " depth=" + queueDepth + " delivered=" + delivered + " dropped=" + dropped
+                    + " spilled=" + spilled + " batches=" + batches + " lag=" + lastLagMillis + "ms (max " + maxLagMillis + "ms)";
+        }
+    }
+
+    private static final class Channel {
+        final BookingObserver observer;
+        final BackPressure policy;
+        final BlockingQueue<BookingEvent> queue;
+        final Queue<BookingEvent> overflow = new ConcurrentLinkedQueue<>();
+        final AtomicInteger overflowSize = new AtomicInteger();
+        final AtomicLong pending = new AtomicLong(); // accepted but not yet delivered
+        final int batchSize;
+        final LongAdder delivered = new LongAdder(), dropped = new LongAdder(), spilled = new LongAdder(), batches = new LongAdder();
+        final AtomicLong lastLag = new AtomicLong(), maxLag = new AtomicLong();
+
+        Channel(BookingObserver observer, BackPressure policy, int capacity, int batchSize) {
+            this.observer = observer;
+            this.policy = policy;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.batchSize = batchSize;
+        }
+
+        void offer(BookingEvent e) {
+            pending.incrementAndGet();
+            // Keep order: once spilling, new events go behind the overflow until it drains
+            if (policy == BackPressure.SPILL && overflowSize.get() > 0) { spill(e); return; }
+            if (queue.offer(e)) return;
+            switch (policy) {
+                case BLOCK:
+                    try { queue.put(e); }
+                    catch (InterruptedException ie) { Thread.currentThread().interrupt(); pending.decrementAndGet(); dropped.increment(); }
+                    break;
+                case DROP: pending.decrementAndGet(); dropped.increment(); break;
+                case SPILL: spill(e); break;
+            }
+        }
+
+        private void spill(BookingEvent e) {
+            overflow.add(e);
+            overflowSize.incrementAndGet();
+            spilled.increment();
+        }
+
+        long backlog() { return pending.get(); }
+
+        void run() {
+            List<BookingEvent> batch = new ArrayList<>(batchSize);
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    BookingEvent first = overflowSize.get() > 0 ? queue.poll() : queue.poll(50, TimeUnit.MILLISECONDS);
+                    if (first != null) {
+                        batch.add(first);
+                        queue.drainTo(batch, batchSize - 1);
+                    }
+                    for (BookingEvent e; batch.size() < batchSize && (e = overflow.poll()) != null; ) {
+                        overflowSize.decrementAndGet();
+                        batch.add(e);
+                    }
+                    if (!batch.isEmpty()) deliver(batch);
+                } catch (InterruptedException ie) {
+                    return;
+                } finally {
+                    pending.addAndGet(-batch.size());
+                    batch.clear();
+                }
+            }
+        }
+
+        private void deliver(List<BookingEvent> batch) {
+            try {
+                observer.onBookingBatch(new ArrayList<>(batch));
+            } catch (RuntimeException ex) {
+                ex.printStackTrace(); // a failing observer must not kill its worker
+            }
+            long lag = System.currentTimeMillis() - batch.get(0).timestamp;
+            lastLag.set(lag);
+            maxLag.accumulateAndGet(lag, Math::max);
+            delivered.add(batch.size());
+            batches.increment();
+        }
+
+        Metrics metrics() {
+            return new Metrics(observer.getClass().getSimpleName(), queue.size() + overflowSize.get(), delivered.sum(),
+                    dropped.sum(), spilled.sum(), batches.sum(), lastLag.get(), maxLag.get());
+        }
+    }
+}
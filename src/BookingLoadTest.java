@@ -0,0 +1,232 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// ==========================================
+// BOOKING LOAD TEST
+// ==========================================
+// Runs N simulated customers at once against one CinemaData, all through
+// BookingService: each logs in, then repeatedly searches, picks one of the
+// movie's upcoming screenings, holds 1-4 seats
+// (half best-block picks, half random seats, so customers collide), and pays
+// (odd customers by card through the stub gateway, even ones in cash).
+// Customers stop when every screening is sold out or their attempt budget is spent.
+// Reports throughput, p50/p99 per step and the conflict rate, then checks the
+// invariants: no seat sold twice, and the seat engines, customer bookings and
+// revenue totals all agree on what was sold, and every card authorization was
+// captured or voided. Exits with 1 if one fails.
+// Persistence is off unless -Dcinema.persistence is given. Slow or flaky
+// payments: -Dcinema.payment.latency.ms, .jitter.ms, .decline.rate, .failure.rate
+//   java BookingLoadTest [customers] [attemptsPerCustomer] [shows] [seatsPerShow]
+public class BookingLoadTest {
+    public static void main(String[] args) throws Exception {
+        int customers = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int attempts = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int showCount = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        int seatsPerShow = args.length > 3 ? Integer.parseInt(args[3]) : 600;
+        if (System.getProperty("cinema.persistence") == null) System.setProperty("cinema.persistence", "false");
+
+        CinemaData db = CinemaData.getInstance();
+        BookingService service = new BookingService(db);
+        PasswordHasher.setIterations(1); // logins are timed, but the hash cost is not what is being measured
+        String run = Long.toString(System.currentTimeMillis(), 36);
+        for (int i = 0; i < customers; i++) db.register(new Customer("load-" + run + "-" + i, "pw"));
+        Hall hall = new Hall("Load Hall " + run, seatsPerShow, 20);
+        db.addHall(hall);
+        // Two movies alternate in the load hall, one show every three hours
+        List<Screening> shows = new ArrayList<>();
+        Map<Screening, AtomicIntegerArray> soldBy = new ConcurrentHashMap<>();
+        Movie[] movies = new Movie[Math.min(2, showCount)];
+        for (int i = 0; i < movies.length; i++) {
+            movies[i] = new Movie.MovieBuilder("Load Show " + run + " " + i).setGenre("Load").setLanguage("English")
+                    .setPrice(10).setShowtime("20:00").setHall(hall).build();
+            db.addMovie(movies[i]);
+        }
+        LocalDateTime first = LocalDate.now().plusDays(1).atTime(10, 0);
+        for (int i = 0; i < showCount; i++) {
+            LocalDateTime start = first.plusHours(3L * i);
+            Screening sc = new Screening(movies[i % movies.length], hall, start, start.plus(Screening.DEFAULT_LENGTH));
+            if (!db.addScreening(sc).isEmpty()) throw new IllegalStateException("load hall double-booked at " + start);
+            shows.add(sc);
+            soldBy.put(sc, new AtomicIntegerArray(seatsPerShow));
+        }
+        long revenueTicketsBefore = db.getRevenue().snapshot().tickets;
+
+        Stats stats = new Stats();
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // observers print per booking
+        // Java 17 has no virtual threads: one platform thread per simulated customer
+        ExecutorService pool = Executors.newFixedThreadPool(customers);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<Worker>> futures = new ArrayList<>();
+        for (int i = 0; i < customers; i++) {
+            Worker w = new Worker(service, "load-" + run + "-" + i, i % 2 == 1, attempts, "load show " + run, shows, soldBy, stats);
+            futures.add(pool.submit(() -> { go.await(); w.run(); return w; }));
+        }
+        long t0 = System.nanoTime();
+        go.countDown();
+        List<Worker> workers = new ArrayList<>();
+        for (Future<Worker> f : futures) workers.add(f.get());
+        long wallNanos = System.nanoTime() - t0;
+        pool.shutdown();
+        boolean drained = db.getDispatcher().awaitDrained(30_000);
+        StubPaymentGateway cards = PaymentGateways.CARDS;
+        // Authorizations that timed out are voided when the gateway finally answers
+        for (long until = System.currentTimeMillis() + 30_000; cards.getOutstanding() > 0 && System.currentTimeMillis() < until; ) Thread.sleep(10);
+        System.setOut(console);
+
+        // --- Report ---
+        double secs = wallNanos / 1e9;
+        long bookings = stats.bookings.sum(), holds = stats.holds.sum(), conflicts = stats.conflicts.sum();
+        System.out.printf("%d customers, %d shows x %d seats, %.2f s%n", customers, showCount, seatsPerShow, secs);
+        System.out.printf("bookings %,d (%,d seats)  %.0f bookings/s  %.0f hold attempts/s%n",
+                bookings, stats.seats.sum(), bookings / secs, holds / secs);
+        System.out.printf("card payments: %,d approved, %,d declined, %,d failed; %,d captured, %,d voided%n",
+                cards.getApproved(), cards.getDeclined(), cards.getFailed(), cards.getCaptured(), cards.getVoided());
+        System.out.printf("conflict rate %.1f%% (%,d of %,d holds), %,d sold-out misses%n",
+                holds == 0 ? 0 : 100.0 * conflicts / holds, conflicts, holds, stats.soldOut.sum());
+        report("login", workers, w -> w.login);
+        report("search", workers, w -> w.search);
+        report("hold", workers, w -> w.hold);
+        report("book", workers, w -> w.book);
+        report("hold + book", workers, w -> w.checkout);
+
+        // --- Invariants ---
+        boolean ok = true;
+        ok &= check("no seat sold twice", stats.doubleSold.sum() == 0, stats.doubleSold.sum() + " seats sold more than once");
+        long engineSeats = 0, recordedSeats = 0;
+        for (Screening sc : shows) {
+            engineSeats += sc.getSeats().bookedCount();
+            AtomicIntegerArray sold = soldBy.get(sc);
+            for (int s = 0; s < sold.length(); s++) if (sold.get(s) > 0) recordedSeats++;
+        }
+        ok &= check("seat engines match successful bookings", engineSeats == recordedSeats && engineSeats == stats.seats.sum(),
+                "engines " + engineSeats + ", bookings " + stats.seats.sum());
+        long customerBookings = 0;
+        for (int i = 0; i < customers; i++) customerBookings += ((Customer) db.findUser("load-" + run + "-" + i)).bookings.size();
+        ok &= check("customer booking lists match", customerBookings == bookings, customerBookings + " vs " + bookings);
+        long showBookings = 0;
+        for (Screening sc : shows) showBookings += db.getBookings().forScreening(sc.getId()).size();
+        ok &= check("screening booking index matches", showBookings == bookings, showBookings + " vs " + bookings);
+        ok &= check("no holds left open", db.getHolds().getOpenHolds() == 0, db.getHolds().getOpenHolds() + " open");
+        ok &= check("no card authorization left open", cards.getOutstanding() == 0, cards.getOutstanding() + " neither captured nor voided");
+        long revenueTickets = db.getRevenue().snapshot().tickets - revenueTicketsBefore;
+        ok &= check("revenue counted every ticket", drained && revenueTickets == stats.seats.sum(),
+                revenueTickets + " tickets vs " + stats.seats.sum() + (drained ? "" : " (observers not drained)"));
+        System.exit(ok ? 0 : 1);
+    }
+
+    private static boolean check(String what, boolean passed, String detail) {
+        System.out.println((passed ? "OK    " : "FAIL  ") + what + (passed ? "" : ": " + detail));
+        return passed;
+    }
+
+    private static void report(String what, List<Worker> workers, java.util.function.Function<Worker, Samples> pick) {
+        Samples all = new Samples();
+        for (Worker w : workers) all.addAll(pick.apply(w));
+        long[] sorted = Arrays.copyOf(all.nanos, all.size);
+        if (sorted.length == 0) return;
+        Arrays.sort(sorted);
+        System.out.printf("%-12s n=%,-8d p50=%,8d us  p99=%,8d us  max=%,8d us%n", what, sorted.length,
+                sorted[sorted.length / 2] / 1000, sorted[(int) (sorted.length * 0.99)] / 1000, sorted[sorted.length - 1] / 1000);
+    }
+
+    // Shared counters; LongAdder so the bookkeeping does not become the bottleneck
+    private static final class Stats {
+        final LongAdder holds = new LongAdder(), conflicts = new LongAdder(), bookings = new LongAdder();
+        final LongAdder seats = new LongAdder(), soldOut = new LongAdder(), doubleSold = new LongAdder();
+    }
+
+    // Growable per-thread latency buffer, merged after the run
+    private static final class Samples {
+        long[] nanos = new long[256];
+        int size;
+        void add(long n) {
+            if (size == nanos.length) nanos = Arrays.copyOf(nanos, size * 2);
+            nanos[size++] = n;
+        }
+        void addAll(Samples o) { for (int i = 0; i < o.size; i++) add(o.nanos[i]); }
+    }
+
+    private static final class Worker {
+        final BookingService service;
+        final String username, query;
+        final boolean card;
+        final int attempts;
+        final List<Screening> shows;
+        final Map<Screening, AtomicIntegerArray> soldBy;
+        final Stats stats;
+        final Samples login = new Samples(), search = new Samples(), hold = new Samples(), book = new Samples(), checkout = new Samples();
+
+        Worker(BookingService service, String username, boolean card, int attempts, String query, List<Screening> shows,
+               Map<Screening, AtomicIntegerArray> soldBy, Stats stats) {
+            this.service = service; this.username = username; this.card = card; this.attempts = attempts; this.query = query;
+            this.shows = shows; this.soldBy = soldBy; this.stats = stats;
+        }
+
+        void run() {
+            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            long t = System.nanoTime();
+            User me = service.login(username, "pw");
+            login.add(System.nanoTime() - t);
+            if (me == null) throw new IllegalStateException("login failed for " + username);
+
+            for (int a = 0; a < attempts; a++) {
+                t = System.nanoTime();
+                List<Movie> found = service.search(query);
+                if (found.isEmpty()) throw new IllegalStateException("search found no shows");
+
+                List<Screening> showings = service.nextShowings(found.get(rnd.nextInt(found.size())), shows.size());
+                search.add(System.nanoTime() - t);
+                if (showings.isEmpty()) throw new IllegalStateException("no screenings scheduled");
+
+                Screening sc = showings.get(rnd.nextInt(showings.size()));
+                int party = 1 + rnd.nextInt(4);
+                List<String> seats = rnd.nextBoolean() ? sc.findBestSeats(party) : randomSeats(sc, party, rnd);
+                if (seats.isEmpty()) {
+                    stats.soldOut.increment();
+                    if (allSoldOut()) return;
+                    continue;
+                }
+
+                long h0 = System.nanoTime();
+                ReservationResult r = service.hold(sc, seats);
+                long h1 = System.nanoTime();
+                hold.add(h1 - h0);
+                stats.holds.increment();
+                if (!r.isSuccess()) { stats.conflicts.increment(); continue; }
+
+                List<String> addOns = rnd.nextInt(3) == 0 ? List.of(PriceTable.POPCORN) : List.of();
+                PaymentStrategy pay = card ? new CreditCardStrategy("4111111111111111") : new CashStrategy();
+                BookingResult b = service.book(me, r.getHold(), addOns, pay);
+                long b1 = System.nanoTime();
+                book.add(b1 - h1);
+                checkout.add(b1 - h0);
+                if (!b.isBooked()) continue;
+                stats.bookings.increment();
+                stats.seats.add(seats.size());
+                AtomicIntegerArray sold = soldBy.get(sc);
+                for (String s : seats) if (sold.incrementAndGet(SeatReservationEngine.seatIndex(s)) > 1) stats.doubleSold.increment();
+            }
+        }
+
+        // Seats picked without looking at the map, like two people clicking the same seat
+        private static List<String> randomSeats(Screening sc, int party, ThreadLocalRandom rnd) {
+            int capacity = sc.getSeats().getCapacity();
+            if (sc.getSeats().bookedCount() + party > capacity) return List.of();
+            Set<String> out = new LinkedHashSet<>();
+            while (out.size() < party) out.add(SeatReservationEngine.seatName(rnd.nextInt(capacity)));
+            return new ArrayList<>(out);
+        }
+
+        private boolean allSoldOut() {
+            for (Screening sc : shows) if (!sc.findBestSeats(1).isEmpty()) return false;
+            return true;
+        }
+    }
+}
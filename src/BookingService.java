@@ -0,0 +1,139 @@
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// ==========================================
+// BOOKING SERVICE (headless facade over CinemaData)
+// ==========================================
+// Everything a customer can do, without Swing: the GUI's handlers only collect
+// input and show the outcome, and BookingLoadTest drives the same calls from
+// many threads. Every step delegates to the thread-safe pieces underneath
+// (seat engine, hold manager, journal, dispatcher), so one instance can be
+// shared by all callers.
+class BookingService {
+    private final CinemaData db;
+    private final PricingEngine pricing = new PricingEngine();
+
+    BookingService(CinemaData db) { this.db = db; }
+
+    public User login(String username, String password) { return db.login(username, password); }
+
+    // Active movies matching the query, best match first (empty query = all)
+    public List<Movie> search(String query) {
+        List<Movie> out = new ArrayList<>();
+        for (Movie m : db.searchMovies(query)) if (m.isActive()) out.add(m);
+        return out;
+    }
+
+    // --- What's on (ScreeningSchedule, O(log n + k)) ---
+    public List<Screening> showingsOn(LocalDate day) { return active(db.getSchedule().onDay(day)); }
+    public List<Screening> showingsBetween(LocalDateTime from, LocalDateTime to) { return active(db.getSchedule().between(from, to)); }
+    public List<Screening> nextShowings(Movie m, int n) { return db.getSchedule().forMovie(m, LocalDateTime.now(), n); }
+
+    private static List<Screening> active(List<Screening> screenings) {
+        screenings.removeIf(s -> !s.getMovie().isActive());
+        return screenings;
+    }
+
+    // Claims the seats for SeatHoldManager's TTL; a conflict lists the seats already taken
+    public ReservationResult hold(Screening s, List<String> seats) {
+        if (!s.getMovie().isActive()) throw new IllegalArgumentException(s.getMovie().getTitle() + " is not showing");
+        return db.getHolds().hold(s, seats);
+    }
+
+    // Abandons a checkout: the held seats are free again at once
+    public void cancel(SeatHold hold) { hold.release(); }
+
+    // Unit ticket with the chosen add-ons (names from PriceTable, e.g. PriceTable.POPCORN)
+    public PricePlan ticket(Movie m, Collection<String> addOns) { return pricing.plan(m, addOns); }
+
+    // What the held seats cost with these add-ons: seat classes and group discount included
+    public PriceQuote quote(SeatHold hold, Collection<String> addOns) {
+        Screening s = hold.getScreening();
+        return ticket(s.getMovie(), addOns).quote(s.getHall(), hold.getSeats());
+    }
+
+    // Blocking form of bookAsync
+    public BookingResult book(User customer, SeatHold hold, Collection<String> addOns, PaymentStrategy payment) {
+        return bookAsync(customer, hold, addOns, payment).join();
+    }
+
+    // Two-phase checkout; the seats are already reserved by the hold.
+    //  1. authorize the quoted total under the hold's idempotency key
+    //  2. commit: sell the seats, record the booking durably, capture the money
+    //     or roll back: release the seats (declined / failed / timed out), void
+    //     the authorization when the hold expired and the seats are gone, or
+    //     void it and free the sold seats when the booking cannot be saved
+    // A capture that fails once the booking is saved does not undo it: the
+    // money is authorized, and CaptureRetrier keeps capturing it (journaled, so
+    // a restart carries on). No thread waits for the gateway; the result
+    // completes on whichever thread finishes the last step. Observers hear only
+    // about completed bookings.
+    public CompletableFuture<BookingResult> bookAsync(User customer, SeatHold hold, Collection<String> addOns, PaymentStrategy payment) {
+        Screening screening = hold.getScreening();
+        List<String> seats = hold.getSeats();
+        PriceQuote quote = quote(hold, addOns);
+        long total = quote.getTotalCents();
+        return payment.authorize(hold.getCheckoutKey(), total).handle((auth, err) -> {
+            if (err != null || !auth.isApproved()) {
+                hold.release();
+                BookingResult.Status status = err != null ? BookingResult.Status.PAYMENT_FAILED : BookingResult.Status.PAYMENT_DECLINED;
+                return CompletableFuture.completedFuture(new BookingResult(status, null, seats, total));
+            }
+            if (!hold.confirm()) {
+                // A second checkout of the same hold got the first one's authorization
+                // (same key); the checkout that confirmed the hold settles it
+                if (hold.isConfirmed()) return CompletableFuture.completedFuture(new BookingResult(BookingResult.Status.DUPLICATE, null, seats, total));
+                payment.release(auth);
+                return CompletableFuture.completedFuture(new BookingResult(BookingResult.Status.HOLD_EXPIRED, null, seats, total));
+            }
+            Booking booking = Booking.confirmed(customer, screening, seats, quote.getPlan().getDescription(), quote.getPlan().getAddOns(), total);
+            return db.recordBookingAsync(customer, booking).handle((v, e) -> {
+                if (e != null) {
+                    payment.release(auth);
+                    screening.getSeats().release(seats);
+                    return CompletableFuture.completedFuture(new BookingResult(BookingResult.Status.NOT_SAVED, null, seats, total));
+                }
+                return payment.capture(auth)
+                        .exceptionally(ce -> { db.getCaptures().defer(auth, payment::capture); return null; })
+                        .thenApply(c -> {
+                            db.notifyObservers(new BookingEvent(customer.username, screening.getMovie().getTitle(), screening.getHall().getName(),
+                                    payment.toString(), seats.size(), total, quote.getPlan().getAddOns()));
+                            return new BookingResult(BookingResult.Status.BOOKED, booking, seats, total);
+                        });
+            }).thenCompose(f -> f);
+        }).thenCompose(f -> f);
+    }
+
+    public void review(User author, Movie m, String comment, double rating) {
+        if (rating < 1 || rating > 5) throw new IllegalArgumentException("Rating must be between 1 and 5");
+        m.addReview(new Review(author.username, comment, rating));
+    }
+}
+
+// Outcome of BookingService.book
+class BookingResult {
+    // PAYMENT_FAILED: gateway error or timeout; NOT_SAVED: storage failed, the authorization was voided;
+    // DUPLICATE: another checkout of the same hold confirmed it, nothing was recorded for this one
+    enum Status { BOOKED, PAYMENT_DECLINED, PAYMENT_FAILED, HOLD_EXPIRED, NOT_SAVED, DUPLICATE }
+
+    private final Status status;
+    private final Booking booking; // null unless BOOKED
+    private final List<String> seats;
+    private final long totalCents;
+
+    BookingResult(Status status, Booking booking, List<String> seats, long totalCents) {
+        this.status = status; this.booking = booking; this.seats = seats; this.totalCents = totalCents;
+    }
+
+    public boolean isBooked() { return status == Status.BOOKED; }
+    public Status getStatus() { return status; }
+    public Booking getBooking() { return booking; }
+    public String getDetails() { return booking == null ? null : booking.toString(); }
+    public List<String> getSeats() { return seats; }
+    public long getTotalCents() { return totalCents; }
+    public double getTotal() { return totalCents / 100.0; }
+}
@@ -0,0 +1,454 @@
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.DateTimeException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// ==========================================
+// BULK IMPORT (streaming CSV / JSON lines)
+// ==========================================
+// Loads halls, movies or a schedule from a file of any size. The import thread
+// reads CHUNK_ROWS lines at a time and hands each chunk to a pool that parses
+// and validates it into Halls, Movies (through Movie.MovieBuilder) or
+// Screenings. Finished chunks are committed to CinemaData in file order, one
+// batch each, and a batch waits until the previous one is in the journal on
+// disk. Only a few chunks are ever in memory, however big the file is.
+//
+// A row that fails is skipped and reported with its line number, both in the
+// panel and in "<file>.errors.txt"; the other rows still go in. Cancelling
+// stops before the next batch, and batches already committed stay.
+//
+// CSV files have a header row naming the columns in any order; other columns
+// are ignored. A quoted field may contain commas but not line breaks. JSON
+// lines files (.jsonl / .ndjson) hold one flat object per line.
+//   Halls:      name, capacity[, seats_per_row]
+//   Movies:     title, price, hall (name or id)[, genre, language, showtime (HH:mm)]
+//   Screenings: movie (id or title), start (yyyy-MM-dd HH:mm)[, hall (name or id;
+//               default the movie's), minutes or end]
+class BulkImport {
+    enum Kind {
+        HALLS("Halls", 2, "name", "capacity", "seats_per_row"),
+        MOVIES("Movies", 3, "title", "price", "hall", "genre", "language", "showtime"),
+        SCREENINGS("Screenings", 2, "movie", "start", "hall", "minutes", "end");
+
+        final String label;
+        final int required;          // the first `required` columns must be present
+        final List<String> columns;
+
+        Kind(String label, int required, String... columns) {
+            this.label = label; this.required = required; this.columns = List.of(columns);
+        }
+
+        @Override public String toString() { return label; }
+    }
+
+    enum Status { RUNNING, DONE, CANCELLED, FAILED }
+
+    static final int CHUNK_ROWS = 4096;
+    static final int MAX_SHOWN_ERRORS = 1000; // the errors file has all of them
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+
+    private final CinemaData db;
+    private final Kind kind;
+    private final Path file, errorFile;
+    private final boolean json;
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private final CompletableFuture<BulkImport> done = new CompletableFuture<>();
+    private final List<String> shownErrors = Collections.synchronizedList(new ArrayList<>());
+
+    // Progress, written by the import thread and polled by the panel
+    private volatile long totalBytes, bytesRead, rowsRead, imported, rejected;
+    private volatile Status status = Status.RUNNING;
+    private volatile String failure;
+
+    // Name or title -> entity for references that are not ids; a name shared by
+    // two entities maps to AMBIGUOUS_* and such rows must use the id
+    private static final Hall AMBIGUOUS_HALL = new Hall("", 0);
+    private static final Movie AMBIGUOUS_MOVIE = new Movie.MovieBuilder("").build();
+    private final Map<String, Hall> hallsByName = new ConcurrentHashMap<>();
+    private volatile Map<String, Movie> moviesByTitle; // built on first use by title
+
+    private Writer errors; // import thread only
+
+    BulkImport(CinemaData db, Kind kind, Path file) {
+        this.db = db;
+        this.kind = kind;
+        this.file = file;
+        this.errorFile = file.resolveSibling(file.getFileName() + ".errors.txt");
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        this.json = name.endsWith(".jsonl") || name.endsWith(".ndjson");
+    }
+
+    // Runs the import on its own thread; the future completes when it stops for any reason
+    CompletableFuture<BulkImport> start() {
+        Thread t = new Thread(this::run, "cinema-import");
+        t.setDaemon(true);
+        t.start();
+        return done;
+    }
+
+    void cancel() { cancelled.set(true); }
+
+    public Kind getKind() { return kind; }
+    public Path getFile() { return file; }
+    public Path getErrorFile() { return errorFile; }
+    public Status getStatus() { return status; }
+    public String getFailure() { return failure; }
+    public long getRowsRead() { return rowsRead; }
+    public long getImported() { return imported; }
+    public long getRejected() { return rejected; }
+    // 0..1, by bytes read
+    public double getProgress() { return totalBytes == 0 ? 0 : Math.min(1.0, (double) bytesRead / totalBytes); }
+    // The first MAX_SHOWN_ERRORS errors, "line N: why"
+    public List<String> getShownErrors() { synchronized (shownErrors) { return new ArrayList<>(shownErrors); } }
+
+    @Override public String toString() {
+        String s = kind.label + " from " + file.getFileName() + ": " + String.format("%,d", imported) + " imported, "
+                + String.format("%,d", rejected) + " rejected";
+        switch (status) {
+            case RUNNING: return s + " (" + Math.round(getProgress() * 100) + "%)";
+            case CANCELLED: return s + " - cancelled";
+            case FAILED: return s + " - failed: " + failure;
+            default: return s;
+        }
+    }
+
+    // The whole import on the calling thread (start() runs it in the background)
+    void run() {
+        ExecutorService workers = Executors.newFixedThreadPool(THREADS, r -> {
+            Thread t = new Thread(r, "cinema-import-parse");
+            t.setDaemon(true);
+            return t;
+        });
+        db.holdSnapshots();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             BufferedReader in = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8), 1 << 16);
+             Writer err = Files.newBufferedWriter(errorFile, StandardCharsets.UTF_8)) {
+            errors = err;
+            totalBytes = channel.size();
+            for (Hall h : db.getHalls()) remember(hallsByName, h.getName(), h, AMBIGUOUS_HALL);
+            int[] layout = json ? null : header(in.readLine());
+            long line = json ? 0 : 1;
+            Deque<Future<Parsed>> inFlight = new ArrayDeque<>();
+            CompletableFuture<Void> durable = CompletableFuture.completedFuture(null);
+            List<String> lines = new ArrayList<>(CHUNK_ROWS);
+            for (String s; !cancelled.get() && (s = in.readLine()) != null; ) {
+                lines.add(s);
+                if (lines.size() < CHUNK_ROWS) continue;
+                List<String> chunk = lines;
+                long first = line + 1;
+                inFlight.add(workers.submit(() -> parse(chunk, first, layout)));
+                line += chunk.size();
+                lines = new ArrayList<>(CHUNK_ROWS);
+                bytesRead = channel.position();
+                // Keep the pool busy but never more than a few chunks ahead
+                if (inFlight.size() > 2 * THREADS) durable = commit(inFlight.poll().get(), durable);
+            }
+            if (!lines.isEmpty() && !cancelled.get()) {
+                List<String> chunk = lines;
+                long first = line + 1;
+                inFlight.add(workers.submit(() -> parse(chunk, first, layout)));
+            }
+            while (!inFlight.isEmpty() && !cancelled.get()) durable = commit(inFlight.poll().get(), durable);
+            durable.join();
+            if (cancelled.get()) status = Status.CANCELLED;
+            else { bytesRead = totalBytes; status = Status.DONE; }
+        } catch (ExecutionException e) {
+            fail(e.getCause());
+        } catch (Exception e) {
+            fail(e);
+        } finally {
+            db.releaseSnapshots();
+            workers.shutdownNow();
+            done.complete(this);
+        }
+    }
+
+    private void fail(Throwable e) {
+        failure = e.getMessage() != null ? e.getMessage() : e.toString();
+        status = Status.FAILED;
+    }
+
+    // --- Parsing (pool threads) ---
+    // A chunk's valid rows with their line numbers, and its errors
+    private static final class Parsed {
+        final List<Object> rows = new ArrayList<>();
+        final List<Long> lines = new ArrayList<>();
+        final List<String> errors = new ArrayList<>();
+        int read;
+    }
+
+    // Maps the CSV header onto kind.columns: layout[i] is the CSV field holding column i, or -1
+    private int[] header(String line) throws IOException {
+        if (line == null) throw new IOException("The file is empty");
+        if (line.startsWith("\uFEFF")) line = line.substring(1); // byte order mark
+        String[] names = splitCsv(line);
+        int[] layout = new int[kind.columns.size()];
+        Arrays.fill(layout, -1);
+        for (int f = 0; f < names.length; f++) {
+            int c = kind.columns.indexOf(names[f].trim().toLowerCase(Locale.ROOT).replace(' ', '_'));
+            if (c >= 0 && layout[c] < 0) layout[c] = f;
+        }
+        for (int c = 0; c < kind.required; c++) {
+            if (layout[c] < 0) throw new IOException("The header has no '" + kind.columns.get(c) + "' column (needs " + String.join(", ", kind.columns.subList(0, kind.required)) + ")");
+        }
+        return layout;
+    }
+
+    private Parsed parse(List<String> lines, long firstLine, int[] layout) {
+        Parsed out = new Parsed();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (line.isBlank()) continue;
+            out.read++;
+            long n = firstLine + i;
+            try {
+                String[] v = layout == null ? fromJson(parseJson(line)) : fromCsv(splitCsv(line), layout);
+                for (int c = 0; c < kind.required; c++) {
+                    if (v[c] == null) throw new IllegalArgumentException("'" + kind.columns.get(c) + "' is missing");
+                }
+                out.rows.add(kind == Kind.HALLS ? hall(v) : kind == Kind.MOVIES ? movie(v) : screening(v));
+                out.lines.add(n);
+            } catch (IllegalArgumentException | DateTimeException e) {
+                out.errors.add("line " + n + ": " + e.getMessage());
+            }
+        }
+        return out;
+    }
+
+    private Hall hall(String[] v) {
+        int capacity = integer(v, 1);
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be at least 1");
+        return v[2] == null ? new Hall(v[0], capacity) : new Hall(v[0], capacity, integer(v, 2));
+    }
+
+    private Movie movie(String[] v) {
+        double price;
+        try { price = Double.parseDouble(v[1]); }
+        catch (NumberFormatException e) { throw new IllegalArgumentException("price '" + v[1] + "' is not a number"); }
+        if (!(price >= 0) || Double.isInfinite(price)) throw new IllegalArgumentException("price must be 0 or more");
+        if (v[5] != null) LocalTime.parse(v[5]); // must be HH:mm like the add-movie dialog's
+        return new Movie.MovieBuilder(v[0]).setPrice(price).setHall(findHall(v[2]))
+                .setGenre(v[3]).setLanguage(v[4]).setShowtime(v[5]).build();
+    }
+
+    private Screening screening(String[] v) {
+        Movie m = findMovie(v[0]);
+        Hall h = v[2] != null ? findHall(v[2]) : m.getHall();
+        if (h == null) throw new IllegalArgumentException("'" + m.getTitle() + "' has no hall; give one");
+        LocalDateTime start = dateTime(v[1]);
+        LocalDateTime end = v[3] != null ? start.plusMinutes(integer(v, 3)) : v[4] != null ? dateTime(v[4]) : start.plus(Screening.DEFAULT_LENGTH);
+        return new Screening(m, h, start, end);
+    }
+
+    private Hall findHall(String ref) {
+        Hall h = db.getHall(ref);
+        if (h == null) h = hallsByName.get(key(ref));
+        if (h == null) throw new IllegalArgumentException("no hall '" + ref + "'");
+        if (h == AMBIGUOUS_HALL) throw new IllegalArgumentException("more than one hall is named '" + ref + "'; use its id");
+        return h;
+    }
+
+    private Movie findMovie(String ref) {
+        Movie m = db.getMovie(ref);
+        if (m == null) m = titles().get(key(ref));
+        if (m == null) throw new IllegalArgumentException("no movie '" + ref + "'");
+        if (m == AMBIGUOUS_MOVIE) throw new IllegalArgumentException("more than one movie is titled '" + ref + "'; use its id");
+        return m;
+    }
+
+    // Only walks the catalogue if some row names a movie by title
+    private Map<String, Movie> titles() {
+        Map<String, Movie> t = moviesByTitle;
+        if (t != null) return t;
+        synchronized (this) {
+            if (moviesByTitle == null) {
+                Map<String, Movie> map = new HashMap<>();
+                for (Movie m : db.getMovies()) remember(map, m.getTitle(), m, AMBIGUOUS_MOVIE);
+                moviesByTitle = map;
+            }
+            return moviesByTitle;
+        }
+    }
+
+    private static <T> void remember(Map<String, T> map, String name, T value, T ambiguous) {
+        if (name != null) map.merge(key(name), value, (a, b) -> ambiguous);
+    }
+
+    private static String key(String name) { return name.trim().toLowerCase(Locale.ROOT); }
+
+    private int integer(String[] v, int c) {
+        try { return Integer.parseInt(v[c]); }
+        catch (NumberFormatException e) { throw new IllegalArgumentException(kind.columns.get(c) + " '" + v[c] + "' is not a whole number"); }
+    }
+
+    // "2026-10-20 18:00[:00]" or ISO "2026-10-20T18:00[:00]". The usual shapes
+    // are read digit by digit: a formatter parse costs more than the rest of a row.
+    static LocalDateTime dateTime(String s) {
+        int n = s.length();
+        if ((n == 16 || n == 19) && s.charAt(4) == '-' && s.charAt(7) == '-' && (s.charAt(10) == ' ' || s.charAt(10) == 'T')
+                && s.charAt(13) == ':' && (n == 16 || s.charAt(16) == ':')) {
+            int y = digits(s, 0, 4), mo = digits(s, 5, 2), d = digits(s, 8, 2), h = digits(s, 11, 2), mi = digits(s, 14, 2);
+            int sec = n == 19 ? digits(s, 17, 2) : 0;
+            if (y >= 0 && mo >= 0 && d >= 0 && h >= 0 && mi >= 0 && sec >= 0) return LocalDateTime.of(y, mo, d, h, mi, sec);
+        }
+        return LocalDateTime.parse(s.replace(' ', 'T'));
+    }
+
+    // The decimal number in s[from, from + len), or -1 if it is not all digits
+    private static int digits(String s, int from, int len) {
+        int v = 0;
+        for (int i = from; i < from + len; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            v = v * 10 + (c - '0');
+        }
+        return v;
+    }
+
+    private String[] fromCsv(String[] fields, int[] layout) {
+        String[] v = new String[layout.length];
+        for (int c = 0; c < layout.length; c++) if (layout[c] >= 0 && layout[c] < fields.length) v[c] = blankToNull(fields[layout[c]]);
+        return v;
+    }
+
+    private String[] fromJson(Map<String, String> fields) {
+        String[] v = new String[kind.columns.size()];
+        for (int c = 0; c < v.length; c++) v[c] = blankToNull(fields.get(kind.columns.get(c)));
+        return v;
+    }
+
+    private static String blankToNull(String s) { return s == null || s.isBlank() ? null : s.trim(); }
+
+    // RFC 4180 fields on one line: quotes around a field, "" for a quote inside one
+    static String[] splitCsv(String line) {
+        List<String> out = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') field.append(c);
+                else if (i + 1 < line.length() && line.charAt(i + 1) == '"') { field.append('"'); i++; }
+                else quoted = false;
+            } else if (c == '"') quoted = true;
+            else if (c == ',') { out.add(field.toString()); field.setLength(0); }
+            else field.append(c);
+        }
+        if (quoted) throw new IllegalArgumentException("unterminated quote");
+        out.add(field.toString());
+        return out.toArray(new String[0]);
+    }
+
+    // One flat JSON object; numbers, true/false and null come back as their text ("null" as null)
+    static Map<String, String> parseJson(String line) {
+        Map<String, String> out = new HashMap<>();
+        int[] at = {skip(line, 0)};
+        expect(line, at, '{');
+        if (peek(line, at) == '}') { at[0]++; return out; }
+        while (true) {
+            if (peek(line, at) != '"') throw new IllegalArgumentException("expected a quoted key at column " + (at[0] + 1));
+            String key = jsonString(line, at);
+            expect(line, at, ':');
+            char c = peek(line, at);
+            String value;
+            if (c == '"') value = jsonString(line, at);
+            else if (c == '{' || c == '[') throw new IllegalArgumentException("'" + key + "' is nested; only flat objects are read");
+            else {
+                int from = at[0];
+                while (at[0] < line.length() && ",} \t".indexOf(line.charAt(at[0])) < 0) at[0]++;
+                value = line.substring(from, at[0]);
+                if (value.isEmpty()) throw new IllegalArgumentException("'" + key + "' has no value");
+                if (value.equals("null")) value = null;
+            }
+            out.put(key.toLowerCase(Locale.ROOT), value);
+            char next = peek(line, at);
+            at[0]++;
+            if (next == '}') break;
+            if (next != ',') throw new IllegalArgumentException("expected , or } at column " + at[0]);
+        }
+        if (skip(line, at[0]) != line.length()) throw new IllegalArgumentException("text after the object");
+        return out;
+    }
+
+    private static String jsonString(String s, int[] at) {
+        StringBuilder b = new StringBuilder();
+        for (int i = at[0] + 1; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"') { at[0] = i + 1; return b.toString(); }
+            if (c != '\\') { b.append(c); continue; }
+            if (++i == s.length()) break;
+            char e = s.charAt(i);
+            switch (e) {
+                case 'n': b.append('\n'); break;
+                case 't': b.append('\t'); break;
+                case 'r': b.append('\r'); break;
+                case 'b': b.append('\b'); break;
+                case 'f': b.append('\f'); break;
+                case 'u':
+                    if (i + 4 >= s.length()) throw new IllegalArgumentException("bad \\u escape");
+                    try { b.append((char) Integer.parseInt(s.substring(i + 1, i + 5), 16)); }
+                    catch (NumberFormatException ex) { throw new IllegalArgumentException("bad \\u escape"); }
+                    i += 4;
+                    break;
+                default: b.append(e); // \" \\ \/
+            }
+        }
+        throw new IllegalArgumentException("unterminated string");
+    }
+
+    private static void expect(String s, int[] at, char c) {
+        if (peek(s, at) != c) throw new IllegalArgumentException("expected " + c + " at column " + (at[0] + 1));
+        at[0]++;
+    }
+
+    // The next non-blank character (0 at the end), leaving `at` on it
+    private static char peek(String s, int[] at) {
+        at[0] = skip(s, at[0]);
+        return at[0] < s.length() ? s.charAt(at[0]) : 0;
+    }
+
+    private static int skip(String s, int i) {
+        while (i < s.length() && Character.isWhitespace(s.charAt(i))) i++;
+        return i;
+    }
+
+    // --- Committing (import thread, file order) ---
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<Void> commit(Parsed p, CompletableFuture<Void> previous) throws IOException {
+        previous.join(); // the journal never holds more than one batch not yet on disk
+        for (String e : p.errors) reject(e);
+        if (kind == Kind.HALLS) {
+            for (int i = 0; i < p.rows.size(); i++) {
+                Hall h = (Hall) p.rows.get(i);
+                if (hallsByName.putIfAbsent(key(h.getName()), h) != null) reject("line " + p.lines.get(i) + ": a hall named '" + h.getName() + "' already exists");
+                else { db.addHall(h); imported++; }
+            }
+        } else if (kind == Kind.MOVIES) {
+            db.addMovies((List<Movie>) (List<?>) p.rows);
+            imported += p.rows.size();
+        } else {
+            List<List<Screening>> clashes = db.addScreenings((List<Screening>) (List<?>) p.rows);
+            for (int i = 0; i < clashes.size(); i++) {
+                List<Screening> c = clashes.get(i);
+                if (c.isEmpty()) { imported++; continue; }
+                reject("line " + p.lines.get(i) + ": " + p.rows.get(i) + " clashes with " + c.get(0) + (c.size() > 1 ? " and " + (c.size() - 1) + " more" : ""));
+            }
+        }
+        rowsRead += p.read;
+        return db.flushJournal();
+    }
+
+    private void reject(String error) throws IOException {
+        rejected++;
+        errors.write(error);
+        errors.write(System.lineSeparator());
+        synchronized (shownErrors) { if (shownErrors.size() < MAX_SHOWN_ERRORS) shownErrors.add(error); }
+    }
+}
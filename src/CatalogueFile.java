@@ -0,0 +1,420 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+// ==========================================
+// BINARY CATALOGUE (memory-mapped, read lazily)
+// ==========================================
+// Layout, little-endian:
+//   header   magic "CCAT", version, stamp, hall/movie/string counts, section offsets
+//   halls    16-byte records: id, name, capacity, seatsPerRow
+//   movies   32-byte records: id, title, genre, language, showtime, hall index, price cents, flags
+//   id index record numbers sorted by id (halls, then movies), for binary search
+//   strings  int offsets[count + 1] followed by the UTF-8 bytes
+// String fields hold string-table numbers (-1 = null). Opening only maps the
+// file and reads the header; a record is decoded when somebody asks for it.
+class CatalogueFile {
+    static final int MAGIC = 0x54414343; // "CCAT" read little-endian
+    static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64, HALL_BYTES = 16, MOVIE_BYTES = 32;
+    private static final int FLAG_ACTIVE = 1;
+
+    private final Path path;
+    private final ByteBuffer buf;
+    private final long stamp;
+    private final int hallCount, movieCount, stringCount;
+    private final int hallsAt, moviesAt, hallIdsAt, movieIdsAt, offsetsAt, stringsAt;
+    private final AtomicReferenceArray<Hall> halls; // movies share their hall instance
+
+    private CatalogueFile(Path path, MappedByteBuffer mapped) throws IOException {
+        this.path = path;
+        this.buf = mapped.order(ByteOrder.LITTLE_ENDIAN);
+        if (buf.capacity() < HEADER_BYTES || buf.getInt(0) != MAGIC) throw new IOException(path + " is not a cinema catalogue");
+        if (buf.getInt(4) != VERSION) throw new IOException(path + ": unsupported catalogue version " + buf.getInt(4));
+        this.stamp = buf.getLong(8);
+        this.hallCount = buf.getInt(16);
+        this.movieCount = buf.getInt(20);
+        this.stringCount = buf.getInt(24);
+        this.hallsAt = buf.getInt(32);
+        this.moviesAt = buf.getInt(36);
+        this.hallIdsAt = buf.getInt(40);
+        this.movieIdsAt = buf.getInt(44);
+        this.offsetsAt = buf.getInt(48);
+        this.stringsAt = offsetsAt + 4 * (stringCount + 1);
+        this.halls = new AtomicReferenceArray<>(hallCount);
+    }
+
+    static CatalogueFile open(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return new CatalogueFile(path, ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+        }
+    }
+
+    // -Dcinema.catalogue, else catalogue.bin in the data directory; null if there is none
+    static CatalogueFile openDefault() {
+        String configured = System.getProperty("cinema.catalogue");
+        Path p = configured != null ? Paths.get(configured) : Paths.get(System.getProperty("cinema.data.dir", "cinema-data"), "catalogue.bin");
+        if (!Files.isRegularFile(p)) return null;
+        try {
+            return open(p);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open catalogue " + p, e);
+        }
+    }
+
+    public Path getPath() { return path; }
+    // Random per written file; snapshots record it to detect a swapped catalogue
+    public long getStamp() { return stamp; }
+    public int hallCount() { return hallCount; }
+    public int movieCount() { return movieCount; }
+
+    // --- Records ---
+    public Hall hall(int i) {
+        Hall h = halls.get(i);
+        if (h != null) return h;
+        int r = hallsAt + i * HALL_BYTES;
+        h = new Hall(string(buf.getInt(r)), string(buf.getInt(r + 4)), buf.getInt(r + 8), buf.getInt(r + 12));
+        return halls.compareAndSet(i, null, h) ? h : halls.get(i);
+    }
+
+    // A new Movie each call; CatalogueList keeps the one that is handed out
+    public Movie movie(int i) {
+        int r = moviesAt + i * MOVIE_BYTES;
+        int hall = buf.getInt(r + 20);
+        Movie m = new Movie.MovieBuilder(string(buf.getInt(r + 4)))
+                .setId(string(buf.getInt(r)))
+                .setGenre(string(buf.getInt(r + 8)))
+                .setLanguage(string(buf.getInt(r + 12)))
+                .setShowtime(string(buf.getInt(r + 16)))
+                .setHall(hall < 0 ? null : hall(hall))
+                .setPrice(buf.getInt(r + 24) / 100.0)
+                .build();
+        m.applyActive((buf.getInt(r + 28) & FLAG_ACTIVE) != 0);
+        return m;
+    }
+
+    public String movieId(int i) { return string(buf.getInt(moviesAt + i * MOVIE_BYTES)); }
+    public String hallId(int i) { return string(buf.getInt(hallsAt + i * HALL_BYTES)); }
+
+    // Record number for an id, or -1; binary search over the sorted id index
+    public int indexOfMovie(String id) { return search(movieIdsAt, movieCount, moviesAt, MOVIE_BYTES, id); }
+    public int indexOfHall(String id) { return search(hallIdsAt, hallCount, hallsAt, HALL_BYTES, id); }
+
+    private int search(int indexAt, int count, int recordsAt, int recordBytes, String id) {
+        int lo = 0, hi = count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int rec = buf.getInt(indexAt + mid * 4);
+            int c = string(buf.getInt(recordsAt + rec * recordBytes)).compareTo(id);
+            if (c == 0) return rec;
+            if (c < 0) lo = mid + 1; else hi = mid - 1;
+        }
+        return -1;
+    }
+
+    private String string(int ref) {
+        if (ref < 0) return null;
+        int from = buf.getInt(offsetsAt + ref * 4), to = buf.getInt(offsetsAt + ref * 4 + 4);
+        byte[] b = new byte[to - from];
+        buf.get(stringsAt + from, b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    // --- Writing ---
+    // Written beside the target and renamed over it, so a process that has the old
+    // file mapped keeps reading the old contents.
+    static void write(Path path, List<Hall> hallList, List<Movie> movieList) throws IOException {
+        Map<String, Integer> refs = new HashMap<>();
+        List<byte[]> strings = new ArrayList<>();
+        Function<String, Integer> ref = s -> s == null ? -1 : refs.computeIfAbsent(s, k -> {
+            strings.add(k.getBytes(StandardCharsets.UTF_8));
+            return strings.size() - 1;
+        });
+
+        Map<Hall, Integer> hallNo = new IdentityHashMap<>();
+        int[] hallRecs = new int[hallList.size() * 4];
+        for (int i = 0; i < hallList.size(); i++) {
+            Hall h = hallList.get(i);
+            hallNo.put(h, i);
+            hallRecs[i * 4] = ref.apply(h.getId()); hallRecs[i * 4 + 1] = ref.apply(h.getName());
+            hallRecs[i * 4 + 2] = h.getCapacity(); hallRecs[i * 4 + 3] = h.getSeatsPerRow();
+        }
+        int[] movieRecs = new int[movieList.size() * 8];
+        for (int i = 0; i < movieList.size(); i++) {
+            Movie m = movieList.get(i);
+            Integer hall = m.getHall() == null ? null : hallNo.get(m.getHall());
+            if (m.getHall() != null && hall == null) throw new IllegalArgumentException("Hall of " + m.getTitle() + " is not in the catalogue");
+            int[] f = { ref.apply(m.getId()), ref.apply(m.getTitle()), ref.apply(m.getGenre()), ref.apply(m.getLanguage()),
+                    ref.apply(m.getShowtime()), hall == null ? -1 : hall, (int) Math.round(m.getPrice() * 100), m.isActive() ? FLAG_ACTIVE : 0 };
+            System.arraycopy(f, 0, movieRecs, i * 8, 8);
+        }
+        Integer[] hallIds = sortedById(hallList.size(), i -> hallList.get(i).getId());
+        Integer[] movieIds = sortedById(movieList.size(), i -> movieList.get(i).getId());
+
+        int hallsAt = HEADER_BYTES;
+        int moviesAt = hallsAt + hallList.size() * HALL_BYTES;
+        int hallIdsAt = moviesAt + movieList.size() * MOVIE_BYTES;
+        int movieIdsAt = hallIdsAt + hallIds.length * 4;
+        int offsetsAt = movieIdsAt + movieIds.length * 4;
+        long stringBytes = 0;
+        for (byte[] b : strings) stringBytes += b.length;
+        long total = offsetsAt + 4L * (strings.size() + 1) + stringBytes;
+        if (total > Integer.MAX_VALUE) throw new IOException("Catalogue larger than 2 GB");
+
+        ByteBuffer out = ByteBuffer.allocate((int) total).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(MAGIC).putInt(VERSION).putLong(new Random().nextLong() | 1)
+           .putInt(hallList.size()).putInt(movieList.size()).putInt(strings.size()).putInt(0)
+           .putInt(hallsAt).putInt(moviesAt).putInt(hallIdsAt).putInt(movieIdsAt).putInt(offsetsAt);
+        out.position(hallsAt);
+        for (int v : hallRecs) out.putInt(v);
+        for (int v : movieRecs) out.putInt(v);
+        for (int v : hallIds) out.putInt(v);
+        for (int v : movieIds) out.putInt(v);
+        int off = 0;
+        for (byte[] b : strings) { out.putInt(off); off += b.length; }
+        out.putInt(off);
+        for (byte[] b : strings) out.put(b);
+        out.flip();
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        if (path.getParent() != null) Files.createDirectories(path.getParent());
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) ch.write(out);
+            ch.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Integer[] sortedById(int n, IntFunction<String> id) {
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparing(id::apply));
+        return order;
+    }
+
+    // Writes a synthetic catalogue and times opening it, to check that cold start
+    // does not grow with the number of movies.
+    //   java CatalogueFile <file> [movies] [halls]
+    public static void main(String[] args) throws IOException {
+        Path file = Paths.get(args.length > 0 ? args[0] : "cinema-data/catalogue.bin");
+        int movies = args.length > 1 ? Integer.parseInt(args[1]) : 50_000;
+        int hallCount = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        String[] genres = {"Action", "Comedy", "Drama", "Horror", "Sci-Fi", "Thriller", "Animation", "Documentary"};
+        String[] languages = {"English", "Arabic", "French", "Korean", "Spanish", "Japanese"};
+        List<Hall> hallList = new ArrayList<>();
+        for (int i = 0; i < hallCount; i++) hallList.add(new Hall("Hall " + (i + 1), 20 + (i % 10) * 20));
+        List<Movie> movieList = new ArrayList<>();
+        Random rnd = new Random(42);
+        for (int i = 0; i < movies; i++) {
+            movieList.add(new Movie.MovieBuilder("Movie " + i).setGenre(genres[rnd.nextInt(genres.length)])
+                    .setLanguage(languages[rnd.nextInt(languages.length)]).setPrice(6 + rnd.nextInt(12))
+                    .setShowtime(String.format("%02d:%02d", 10 + rnd.nextInt(13), 15 * rnd.nextInt(4)))
+                    .setHall(hallList.get(rnd.nextInt(hallCount))).build());
+        }
+        write(file, hallList, movieList);
+
+        long t0 = System.nanoTime();
+        CatalogueFile c = open(file);
+        long t1 = System.nanoTime();
+        Movie first = c.movie(c.indexOfMovie(movieList.get(movies / 2).getId()));
+        long t2 = System.nanoTime();
+        System.out.printf("%s: %d movies, %d halls, %d bytes%n", file, c.movieCount(), c.hallCount(), Files.size(file));
+        System.out.printf("open %.3f ms, first lookup by id %.3f ms (%s)%n", (t1 - t0) / 1e6, (t2 - t1) / 1e6, first.getTitle());
+    }
+}
+
+// ==========================================
+// CATALOGUE LIST (versioned, copy-on-write)
+// ==========================================
+// The List behind CinemaData's movies and halls. Catalogue records come first,
+// in file order, and are created by the loader the first time get() reaches
+// them; entities added at runtime follow. Removing a catalogue entity only
+// marks its record.
+// Membership lives in an immutable Version published through one volatile
+// field: readers take the current version and never lock, writers (serialized
+// among themselves) build the next version and swap it in, so a batch of
+// changes becomes visible all at once. snapshot() pins one version, which is
+// what CinemaData hands out for iteration and table rows.
+class CatalogueList<T> extends AbstractList<T> {
+    static final class Version<T> {
+        final long number;
+        final BitSet removed;     // never modified once published
+        final int[] live;         // base record per position; null while nothing is removed
+        final Object[] extras;    // slots past extrasCount belong to later versions
+        final int extrasCount;
+        final int size;
+
+        // live is the previous version's when removed did not change
+        Version(long number, int baseCount, BitSet removed, int[] live, Object[] extras, int extrasCount) {
+            this.number = number;
+            this.removed = removed;
+            this.extras = extras;
+            this.extrasCount = extrasCount;
+            int baseLive = baseCount - removed.cardinality();
+            this.size = baseLive + extrasCount;
+            if (live == null && !removed.isEmpty()) {
+                live = new int[baseLive];
+                for (int i = removed.nextClearBit(0), k = 0; i < baseCount; i = removed.nextClearBit(i + 1)) live[k++] = i;
+            }
+            this.live = live;
+        }
+
+        int baseLive() { return size - extrasCount; }
+    }
+
+    private final int baseCount;
+    private final IntFunction<T> loader;
+    private final AtomicReferenceArray<T> base;
+    private final Map<T, Integer> baseIndex = new ConcurrentHashMap<>(); // entities use identity equality
+    private volatile Version<T> current;
+
+    CatalogueList(int baseCount, IntFunction<T> loader) {
+        this.baseCount = baseCount;
+        this.loader = loader;
+        this.base = new AtomicReferenceArray<>(baseCount);
+        this.current = new Version<>(0, baseCount, new BitSet(), null, new Object[8], 0);
+    }
+
+    static <T> CatalogueList<T> empty() { return new CatalogueList<>(0, i -> null); }
+
+    // --- Readers (lock-free) ---
+    @Override public T get(int i) { return get(current, i); }
+    @Override public int size() { return current.size; }
+
+    // Every change so far published under one number; equal numbers mean equal contents
+    public long version() { return current.number; }
+
+    // The list as of now; later changes never show through it
+    public List<T> snapshot() {
+        Version<T> v = current;
+        return new AbstractList<T>() {
+            @Override public T get(int i) { return CatalogueList.this.get(v, i); }
+            @Override public int size() { return v.size; }
+            // By record number, so looking a row up never loads the records before it
+            @Override public int indexOf(Object o) { return CatalogueList.this.indexOf(v, o); }
+            @Override public boolean contains(Object o) { return indexOf(o) >= 0; }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private T get(Version<T> v, int i) {
+        int baseLive = v.baseLive();
+        if (i >= baseLive) return (T) v.extras[i - baseLive];
+        if (i < 0) throw new IndexOutOfBoundsException(i);
+        return load(v.live == null ? i : v.live[i]);
+    }
+
+    // O(log n) for a catalogue entity (binary search of the live records), a
+    // scan of the extras otherwise
+    private int indexOf(Version<T> v, Object o) {
+        Integer b = o == null ? null : baseIndex.get(o);
+        if (b == null) {
+            int at = indexOf(v.extras, v.extrasCount, o);
+            return at < 0 ? -1 : v.baseLive() + at;
+        }
+        if (v.removed.get(b)) return -1;
+        return v.live == null ? b : Arrays.binarySearch(v.live, b);
+    }
+
+    // The entity for a catalogue record, or null if it was removed
+    public T base(int record) {
+        return record < 0 || record >= baseCount || current.removed.get(record) ? null : load(record);
+    }
+
+    // The current version itself. It never changes, so a snapshot can pin it
+    // while writers are paused and read it at leisure afterwards.
+    Version<T> pin() { return current; }
+
+    // Catalogue entities created so far (the only ones that can differ from the
+    // file), minus those removed as of v. One created after v was pinned is
+    // included too, as the file has it or as changed since.
+    public List<T> loadedBase() { return loadedBase(current); }
+    List<T> loadedBase(Version<T> v) {
+        List<T> out = new ArrayList<>();
+        for (int i = 0; i < baseCount; i++) {
+            T t = base.get(i);
+            if (t != null && !v.removed.get(i)) out.add(t);
+        }
+        return out;
+    }
+
+    public BitSet removedBase() { return removedBase(current); }
+    BitSet removedBase(Version<T> v) { return (BitSet) v.removed.clone(); }
+    public List<T> extras() { return extras(current); }
+    @SuppressWarnings("unchecked")
+    List<T> extras(Version<T> v) { return (List<T>) List.of(Arrays.copyOf(v.extras, v.extrasCount)); }
+    public boolean isBase(T t) { return baseIndex.containsKey(t); }
+
+    // --- Writers (one new version per call) ---
+    @Override public boolean add(T t) { return change(Collections.singletonList(t), List.of()); }
+    @Override public boolean addAll(Collection<? extends T> ts) { return change(ts, List.of()); }
+    @Override public boolean remove(Object o) { return change(List.of(), Collections.singletonList(o)); }
+    @Override public boolean removeAll(Collection<?> os) { return change(List.of(), os); }
+
+    // Applies the removals, then the additions, and publishes the result as one
+    // version; false (and nothing published) if neither changed anything.
+    // Additions alone append into the current version's extras array, which
+    // older versions never read past their own count, so a long run of adds
+    // (journal replay, bulk import) costs amortized O(1) each, not a copy.
+    synchronized boolean change(Collection<? extends T> add, Collection<?> remove) {
+        Version<T> v = current;
+        BitSet removed = v.removed;
+        Object[] extras = v.extras;
+        int count = v.extrasCount;
+        for (Object o : remove) {
+            if (o == null) continue;
+            Integer b = baseIndex.get(o);
+            if (b == null) {
+                int at = indexOf(extras, count, o);
+                if (at >= 0) {
+                    if (extras == v.extras) extras = extras.clone(); // older versions still read this array
+                    System.arraycopy(extras, at + 1, extras, at, count - at - 1);
+                    extras[--count] = null;
+                }
+            } else if (!removed.get(b)) {
+                if (removed == v.removed) removed = (BitSet) removed.clone();
+                removed.set(b);
+            }
+        }
+        if (count + add.size() > extras.length) extras = Arrays.copyOf(extras, Math.max(extras.length * 2, count + add.size()));
+        for (T t : add) extras[count++] = t;
+        if (removed == v.removed && extras == v.extras && count == v.extrasCount) return false;
+        current = new Version<>(v.number + 1, baseCount, removed, removed == v.removed ? v.live : null, extras, count);
+        modCount++;
+        return true;
+    }
+
+    private static int indexOf(Object[] a, int count, Object o) {
+        for (int i = 0; i < count; i++) if (a[i] == o) return i;
+        return -1;
+    }
+
+    // Lock-free once loaded. A record's first load runs under the writers' lock,
+    // so the loader runs once per record and whatever it indexes is in place
+    // before any reader can see the entity.
+    private T load(int record) {
+        T t = base.get(record);
+        return t != null ? t : loadFirst(record);
+    }
+
+    private synchronized T loadFirst(int record) {
+        T t = base.get(record);
+        if (t == null) {
+            t = loader.apply(record);
+            baseIndex.put(t, record);
+            base.set(record, t);
+        }
+        return t;
+    }
+}
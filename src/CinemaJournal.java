@@ -0,0 +1,777 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+// ==========================================
+// WRITE-AHEAD JOURNAL (group commit)
+// ==========================================
+// Append-only segments "journal-<first seq>.log" of framed records:
+//   [int length][int crc32][long seq][byte type][body]
+// Callers encode their record and enqueue it; one writer thread drains
+// everything queued, writes it with a single FileChannel.write and fsyncs once
+// for the whole batch, then completes the callers' futures. A rotate marker
+// closes the current segment so a snapshot can retire everything before it.
+// After a write error the journal is failed for good: queued and later calls
+// complete exceptionally with that error, and onFailure hears of it once.
+class CinemaJournal implements Closeable {
+    interface Body { void write(DataOutputStream out) throws IOException; }
+
+    private static final int BUFFER_BYTES = 1 << 20;
+    private static final int MAX_BATCH = 8192;
+    private static final long SYNC = Long.MIN_VALUE; // rotateAfter of a sync() marker
+
+    private static final class Entry {
+        final byte[] frame;        // null for a rotate marker
+        final long rotateAfter;    // last seq kept in the old segment
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        Entry(byte[] frame, long rotateAfter) { this.frame = frame; this.rotateAfter = rotateAfter; }
+    }
+
+    private final Path dir;
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong seq;
+    private final AtomicLong sinceSnapshot = new AtomicLong();
+    private final long snapshotEvery;
+    private final Runnable onSnapshotDue;
+    private final Consumer<IOException> onFailure;
+    private final Thread writer;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile IOException failed;
+    private FileChannel channel; // writer thread only
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+
+    CinemaJournal(Path dir, long lastSeq, long snapshotEvery, Runnable onSnapshotDue, Consumer<IOException> onFailure) throws IOException {
+        this.dir = dir;
+        this.seq = new AtomicLong(lastSeq);
+        this.snapshotEvery = snapshotEvery;
+        this.onSnapshotDue = onSnapshotDue;
+        this.onFailure = onFailure;
+        this.channel = openSegment(lastSeq + 1);
+        this.writer = new Thread(this::writeLoop, "cinema-journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public long lastSeq() { return seq.get(); }
+
+    // The write error that stopped the journal, or null while it is healthy
+    public IOException getFailure() { return failed; }
+
+    // Completes once the record is fsynced. Must be called while the change is still
+    // invisible to snapshots (see CinemaData.mutate), so seq order matches snapshots.
+    public CompletableFuture<Void> append(byte type, Body body) {
+        if (closed.get()) throw new IllegalStateException("Journal closed");
+        if (failed != null) return CompletableFuture.failedFuture(failed);
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0); out.writeInt(0);          // length + crc, patched below
+            long s = seq.incrementAndGet();
+            out.writeLong(s); out.writeByte(type);
+            body.write(out);
+            byte[] frame = bytes.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(frame, 8, frame.length - 8);
+            ByteBuffer.wrap(frame).putInt(frame.length - 8).putInt((int) crc.getValue());
+            return enqueue(new Entry(frame, 0));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // Completes once every record appended before the call is on disk; a
+    // marker that rides along with the next group commit.
+    public CompletableFuture<Void> sync() {
+        if (closed.get()) throw new IllegalStateException("Journal closed");
+        return enqueue(new Entry(null, SYNC));
+    }
+
+    // Starts a new segment after every record up to and including lastSeq.
+    public CompletableFuture<Void> rotate(long lastSeq) { return enqueue(new Entry(null, lastSeq)); }
+
+    // The writer fails what is queued before it stops; an entry that slips in
+    // after that sweep is failed here, so no future is left pending
+    private CompletableFuture<Void> enqueue(Entry e) {
+        if (failed != null) return CompletableFuture.failedFuture(failed);
+        queue.add(e);
+        IOException f = failed;
+        if (f != null && queue.remove(e)) e.done.completeExceptionally(f);
+        return e.done;
+    }
+
+    // Deletes segments that only hold records at or before seq (already in a snapshot).
+    public void retireThrough(long snapshotSeq) throws IOException {
+        List<Path> segments = segments(dir);
+        for (int i = 0; i < segments.size(); i++) {
+            long nextStart = i + 1 < segments.size() ? startSeq(segments.get(i + 1)) : Long.MAX_VALUE;
+            if (nextStart <= snapshotSeq + 1) Files.deleteIfExists(segments.get(i));
+        }
+    }
+
+    @Override public void close() {
+        if (!closed.compareAndSet(false, true)) return;
+        // A failed journal's writer is gone already; nothing is left to flush
+        enqueue(new Entry(null, -1)).handle((v, e) -> null).join();
+    }
+
+    private void writeLoop() {
+        List<Entry> batch = new ArrayList<>();
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, MAX_BATCH - 1);
+                List<Entry> written = new ArrayList<>(batch.size());
+                for (Entry e : batch) {
+                    if (e.frame != null) { put(e.frame); written.add(e); continue; }
+                    if (e.rotateAfter == SYNC) { written.add(e); continue; } // done with the fsync below
+                    flush(written);
+                    if (e.rotateAfter < 0) { channel.close(); e.done.complete(null); return; }
+                    channel.close();
+                    channel = openSegment(e.rotateAfter + 1);
+                    e.done.complete(null);
+                }
+                flush(written);
+                if (sinceSnapshot.addAndGet(batch.size()) >= snapshotEvery) {
+                    sinceSnapshot.set(0);
+                    onSnapshotDue.run();
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } catch (IOException ex) {
+            failed = ex;
+            for (Entry e : batch) e.done.completeExceptionally(ex);
+            for (Entry e; (e = queue.poll()) != null; ) e.done.completeExceptionally(ex);
+            onFailure.accept(ex);
+        }
+    }
+
+    private void put(byte[] frame) throws IOException {
+        if (frame.length > buffer.remaining()) drain();
+        if (frame.length > buffer.capacity()) { write(ByteBuffer.wrap(frame)); return; }
+        buffer.put(frame);
+    }
+
+    // One write + one fsync for everything accumulated, then wake the callers
+    private void flush(List<Entry> written) throws IOException {
+        if (written.isEmpty()) return;
+        drain();
+        channel.force(false);
+        for (Entry e : written) e.done.complete(null);
+        written.clear();
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        write(buffer);
+        buffer.clear();
+    }
+
+    private void write(ByteBuffer b) throws IOException {
+        while (b.hasRemaining()) channel.write(b);
+    }
+
+    private FileChannel openSegment(long firstSeq) throws IOException {
+        Files.createDirectories(dir);
+        Path p = dir.resolve(String.format("journal-%020d.log", firstSeq));
+        return FileChannel.open(p, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    // --- Reading (startup replay) ---
+    interface RecordHandler { void apply(long seq, byte type, DataInputStream body) throws IOException; }
+
+    static List<Path> segments(Path dir) throws IOException {
+        List<Path> out = new ArrayList<>();
+        if (!Files.isDirectory(dir)) return out;
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "journal-*.log")) {
+            for (Path p : ds) out.add(p);
+        }
+        out.sort(Comparator.comparingLong(CinemaJournal::startSeq));
+        return out;
+    }
+
+    static long startSeq(Path segment) {
+        String n = segment.getFileName().toString();
+        return Long.parseLong(n.substring("journal-".length(), n.length() - ".log".length()));
+    }
+
+    // Replays every intact record; a torn or corrupt tail (crash mid-write) is cut off.
+    // Returns the highest sequence number seen.
+    static long replay(Path dir, long afterSeq, RecordHandler handler) throws IOException {
+        long maxSeq = afterSeq;
+        CRC32 crc = new CRC32();
+        for (Path segment : segments(dir)) {
+            long good = 0;
+            try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.READ);
+                 DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(ch), 1 << 16))) {
+                byte[] payload = new byte[256];
+                while (true) {
+                    int len, sum;
+                    try { len = in.readInt(); sum = in.readInt(); } catch (EOFException eof) { break; }
+                    if (len < 9 || len > (64 << 20)) break;
+                    if (payload.length < len) payload = new byte[Math.max(len, payload.length * 2)];
+                    try { in.readFully(payload, 0, len); } catch (EOFException eof) { break; }
+                    crc.reset();
+                    crc.update(payload, 0, len);
+                    if ((int) crc.getValue() != sum) break;
+                    DataInputStream body = new DataInputStream(new ByteArrayInputStream(payload, 0, len));
+                    long s = body.readLong();
+                    byte type = body.readByte();
+                    if (s > afterSeq) handler.apply(s, type, body);
+                    maxSeq = Math.max(maxSeq, s);
+                    good += 8 + len;
+                }
+            }
+            if (good < Files.size(segment)) {
+                System.err.println("Journal " + segment.getFileName() + ": discarding torn tail after byte " + good);
+                try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.WRITE)) { ch.truncate(good); }
+            }
+        }
+        return maxSeq;
+    }
+}
+
+// ==========================================
+// CINEMA STORE (snapshot + journal for CinemaData)
+// ==========================================
+// Startup loads "snapshot.bin" (full state as of some seq) and replays only the
+// journal records after it. Every snapshotEvery records a new snapshot is cut:
+// while CinemaData's mutations are paused only the seq and a few immutable
+// references are taken (see Cut) and the journal is rotated at that seq; the
+// state is then streamed to a file beside the live one with mutations running,
+// moved into place atomically, and the journal segments it covers are deleted.
+// With a catalogue file, a snapshot holds only the catalogue movies that were
+// created or removed at runtime; the rest stay in the mapped file.
+// Enabled by default; -Dcinema.persistence=false turns it off and
+// -Dcinema.data.dir picks the directory (default ./cinema-data).
+class CinemaStore {
+    static final byte REGISTER = 1, ADD_HALL = 2, ADD_MOVIE = 3, REMOVE_MOVIE = 4, MOVIE_STATE = 5, REVIEW = 6;
+    static final byte MOVIE_BOOKING = 7; // before screenings: seats belonged to the movie; replayed as booking history only
+    static final byte ADD_SCREENING = 8;
+    static final byte BOOKING = 9; // before typed bookings: seats plus text; replayed as a LEGACY booking
+    static final byte TYPED_BOOKING_V1 = 10; // before bookings kept their add-ons; replayed with none
+    static final byte CAPTURE_DEFERRED = 11, CAPTURE_SETTLED = 12;
+    static final byte TYPED_BOOKING = 13;
+    private static final int SNAPSHOT_MAGIC = 0x43534E36; // "CSN6"
+    private static final int SNAPSHOT_MAGIC_V5 = 0x43534E35; // "CSN5": bookings without add-ons
+    private static final int SNAPSHOT_MAGIC_V4 = 0x43534E34; // "CSN4": no pending captures
+    private static final int SNAPSHOT_MAGIC_V3 = 0x43534E33; // "CSN3": bookings were text
+
+    private final Path dir;
+    private final long snapshotEvery;
+    private final ExecutorService snapshotter = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "cinema-snapshot");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean snapshotPending = new AtomicBoolean();
+    private final AtomicInteger snapshotHolds = new AtomicInteger();
+    private final AtomicBoolean snapshotDeferred = new AtomicBoolean();
+    private CinemaJournal journal;
+    private CinemaData db;
+    private long recoveredSeq;
+    private long replayedRecords;
+    private Map<String, long[]> unbookedSold = Map.of();
+
+    CinemaStore(Path dir, long snapshotEvery) {
+        this.dir = dir;
+        this.snapshotEvery = snapshotEvery;
+    }
+
+    static CinemaStore openDefault() {
+        if (!Boolean.parseBoolean(System.getProperty("cinema.persistence", "true"))) return null;
+        return new CinemaStore(Paths.get(System.getProperty("cinema.data.dir", "cinema-data")), Long.getLong("cinema.snapshot.every", 100_000));
+    }
+
+    // --- Recovery ---
+    // Returns false when there is nothing on disk yet (first run: caller seeds).
+    boolean recover(CinemaData db) {
+        try {
+            Path snap = dir.resolve("snapshot.bin");
+            boolean found = false;
+            long snapSeq = 0;
+            if (Files.exists(snap)) { snapSeq = loadSnapshot(snap, db); found = true; }
+            long[] count = {0};
+            recoveredSeq = CinemaJournal.replay(dir, snapSeq, (seq, type, in) -> { apply(db, type, in); count[0]++; });
+            replayedRecords = count[0];
+            return found || recoveredSeq > 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot recover cinema data from " + dir, e);
+        }
+    }
+
+    // A seeded first run is snapshotted before any record is journaled: the seed
+    // itself is never journaled, so without it a restart would see the later
+    // records, skip seeding and lose the seed (the admin account included).
+    // Failing to write that first snapshot is therefore fatal.
+    void start(CinemaData db, boolean seeded) {
+        this.db = db;
+        unbookedSold = unbookedSold(db);
+        try {
+            journal = new CinemaJournal(dir, recoveredSeq, snapshotEvery, this::requestSnapshot,
+                    e -> db.storageFailed(new IOException("Journal write failed; changes from now on are not saved: " + e, e)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(journal::close, "cinema-journal-close"));
+        if (seeded) {
+            try {
+                writeSnapshot();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot save the initial data to " + dir, e);
+            }
+        } else if (replayedRecords >= snapshotEvery) requestSnapshot();
+    }
+
+    // --- Journal records ---
+    CompletableFuture<Void> register(User u) {
+        return journal.append(REGISTER, out -> { out.writeUTF(u.getRole()); out.writeUTF(u.username); out.writeUTF(u.passwordHash); });
+    }
+
+    CompletableFuture<Void> addHall(Hall h) {
+        return journal.append(ADD_HALL, out -> writeHall(out, h));
+    }
+
+    CompletableFuture<Void> addMovie(Movie m) {
+        return journal.append(ADD_MOVIE, out -> writeMovie(out, m));
+    }
+
+    CompletableFuture<Void> removeMovie(Movie m) {
+        return journal.append(REMOVE_MOVIE, out -> out.writeUTF(m.getId()));
+    }
+
+    CompletableFuture<Void> movieState(Movie m) {
+        return journal.append(MOVIE_STATE, out -> { out.writeUTF(m.getId()); writeStr(out, m.getTitle()); out.writeBoolean(m.isActive()); });
+    }
+
+    CompletableFuture<Void> review(Movie m, Review r) {
+        return journal.append(REVIEW, out -> { out.writeUTF(m.getId()); writeReview(out, r); });
+    }
+
+    CompletableFuture<Void> addScreening(Screening sc) {
+        return journal.append(ADD_SCREENING, out -> writeScreening(out, sc));
+    }
+
+    CompletableFuture<Void> sync() { return journal.sync(); }
+
+    CompletableFuture<Void> booking(Booking b) {
+        return journal.append(TYPED_BOOKING, out -> {
+            out.writeUTF(b.getScreeningId()); out.writeUTF(b.getUsername());
+            writeBooking(out, b);
+        });
+    }
+
+    CompletableFuture<Void> captureDeferred(PaymentAuthorization a) {
+        return journal.append(CAPTURE_DEFERRED, out -> writeAuthorization(out, a));
+    }
+
+    CompletableFuture<Void> captureSettled(String key) {
+        return journal.append(CAPTURE_SETTLED, out -> out.writeUTF(key));
+    }
+
+    private static void apply(CinemaData db, byte type, DataInputStream in) throws IOException {
+        switch (type) {
+            case REGISTER: db.register(UserFactory.restore(in.readUTF(), in.readUTF(), in.readUTF())); break;
+            case ADD_HALL: { Hall h = readHall(in); db.addHall(h); break; }
+            case ADD_MOVIE: { Movie m = readMovie(in, db); db.addMovie(m); break; }
+            case REMOVE_MOVIE: { Movie m = db.getMovie(in.readUTF()); if (m != null) db.removeMovie(m); break; }
+            case MOVIE_STATE: {
+                Movie m = db.getMovie(in.readUTF());
+                String title = readStr(in); boolean active = in.readBoolean();
+                if (m != null) { m.setTitle(title); m.setActive(active); }
+                break;
+            }
+            case REVIEW: { Movie m = db.getMovie(in.readUTF()); Review r = readReview(in); if (m != null) m.addReview(r); break; }
+            case ADD_SCREENING: { Screening sc = readScreening(in, db); if (sc != null) db.getSchedule().add(sc); break; }
+            case TYPED_BOOKING:
+            case TYPED_BOOKING_V1: {
+                Screening sc = db.getSchedule().get(in.readUTF());
+                User u = db.findUser(in.readUTF());
+                Booking b = readBooking(in, u == null ? null : u.username, type == TYPED_BOOKING);
+                if (sc != null) sell(sc, b.getSeats());
+                if (u != null) db.getBookings().add(u, b);
+                break;
+            }
+            case BOOKING: {
+                Screening sc = db.getSchedule().get(in.readUTF());
+                User u = db.findUser(in.readUTF());
+                String details = readStr(in);
+                int[] seats = new int[in.readInt()];
+                for (int i = 0; i < seats.length; i++) seats[i] = in.readInt();
+                if (sc != null) { sc.getSeats().claim(seats); sc.getSeats().commit(seats); }
+                if (u != null) db.getBookings().add(u, Booking.legacy(u.username, sc, details));
+                break;
+            }
+            case MOVIE_BOOKING: {
+                in.readUTF();
+                User u = db.findUser(in.readUTF());
+                String details = readStr(in);
+                if (u != null) db.getBookings().add(u, Booking.legacy(u.username, null, details));
+                break;
+            }
+            case CAPTURE_DEFERRED: db.captureDeferred(readAuthorization(in)); break;
+            case CAPTURE_SETTLED: db.captureSettled(in.readUTF()); break;
+            default: throw new IOException("Unknown journal record type " + type);
+        }
+    }
+
+    // --- Snapshots ---
+    void requestSnapshot() {
+        if (snapshotHolds.get() > 0) {
+            snapshotDeferred.set(true);
+            if (snapshotHolds.get() > 0 || !snapshotDeferred.getAndSet(false)) return; // released meanwhile: go on
+        }
+        if (snapshotPending.compareAndSet(false, true)) snapshotter.execute(this::snapshot);
+    }
+
+    // A bulk import puts periodic snapshots off until it is done: each would
+    // encode everything imported so far again, and the journal has it anyway.
+    // One snapshot follows the release if any came due.
+    void holdSnapshots() { snapshotHolds.incrementAndGet(); }
+    void releaseSnapshots() {
+        if (snapshotHolds.decrementAndGet() == 0 && snapshotDeferred.getAndSet(false)) requestSnapshot();
+    }
+
+    // A failed periodic snapshot loses nothing (the journal still has every
+    // record), but the journal stops being trimmed, so it is reported
+    void snapshot() {
+        try {
+            writeSnapshot();
+        } catch (IOException | RuntimeException e) {
+            db.storageFailed(new IOException("Snapshot failed, so the journal keeps growing (no change is lost): " + e, e));
+        } finally {
+            snapshotPending.set(false);
+        }
+    }
+
+    // What a snapshot pins while mutations are paused: all O(1). The rest is
+    // read afterwards from the live structures, with mutations running again.
+    private static final class Cut {
+        final long seq;
+        final CompletableFuture<Void> rotated;
+        final CatalogueList.Version<Hall> halls;
+        final CatalogueList.Version<Movie> movies;
+        final long reviewStamp;
+        Cut(long seq, CompletableFuture<Void> rotated, CatalogueList.Version<Hall> halls, CatalogueList.Version<Movie> movies, long reviewStamp) {
+            this.seq = seq; this.rotated = rotated; this.halls = halls; this.movies = movies; this.reviewStamp = reviewStamp;
+        }
+    }
+
+    // Seats recovered as sold that no booking lists: those of BOOKING records
+    // (replayed as LEGACY bookings without seats) and of snapshots carrying
+    // them. Every later sale comes with its booking, so snapshots list these
+    // and the bookings' seats as the sold ones.
+    private static Map<String, long[]> unbookedSold(CinemaData db) {
+        Map<String, long[]> out = new HashMap<>();
+        for (Screening sc : db.getSchedule().all()) {
+            SeatReservationEngine seats = sc.getSeats();
+            long[] words = bookedWords(db, sc);
+            boolean any = false;
+            for (int w = 0; w < words.length; w++) {
+                words[w] = seats.soldWord(w) & ~words[w];
+                any |= words[w] != 0;
+            }
+            if (any) out.put(sc.getId(), words);
+        }
+        return out;
+    }
+
+    private static long[] bookedWords(CinemaData db, Screening sc) {
+        long[] words = new long[sc.getSeats().wordCount()];
+        AppendLog<Booking> bookings = db.getBookings().forScreening(sc.getId());
+        int n = bookings.size(); // the log only grows; read its length once
+        for (int i = 0; i < n; i++) {
+            for (String s : bookings.get(i).getSeats()) {
+                int seat = SeatReservationEngine.seatIndex(s);
+                words[seat >>> 6] |= 1L << seat;
+            }
+        }
+        return words;
+    }
+
+    private void writeSnapshot() throws IOException {
+        Cut cut = db.exclusive(() -> {
+            long seq = journal.lastSeq();
+            return new Cut(seq, journal.rotate(seq), db.hallList().pin(), db.movieList().pin(), db.reviewStamp());
+        });
+        // Every record up to the cut is on disk, and what completing it adds (a
+        // booking) is in memory, before any state is read
+        try {
+            cut.rotated.join();
+        } catch (CompletionException e) {
+            throw new IOException("Journal failed before the snapshot: " + e.getCause(), e.getCause());
+        }
+        Path tmp = dir.resolve("snapshot.tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeState(db, cut, unbookedSold, new BufferedOutputStream(Channels.newOutputStream(ch), 1 << 16));
+            ch.force(true);
+        }
+        Files.move(tmp, dir.resolve("snapshot.bin"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        journal.retireThrough(cut.seq);
+    }
+
+    // Streams the state as of the cut. Halls, the movie list and each movie's
+    // reviews are exactly as of the cut. Users, bookings, screenings, pending
+    // captures and movie titles/states may already show changes made after it;
+    // the journal records after cut.seq replay onto those harmlessly
+    // (registering, adding a booking, screening or pending capture and selling
+    // seats skip what is there already, settling a capture that is gone does
+    // nothing, and a movie state record carries the whole state).
+    // Sold seats are not read from the seat maps, which sell a checkout's seats
+    // before its booking record is written and would keep them if that write
+    // failed: they are the seats of the bookings in memory (each on disk, see
+    // CinemaData.recordBookingAsync) plus those recovered without a booking.
+    private static void writeState(CinemaData db, Cut cut, Map<String, long[]> unbookedSold, OutputStream file) throws IOException {
+        CheckedOutputStream checked = new CheckedOutputStream(file, new CRC32());
+        DataOutputStream out = new DataOutputStream(checked);
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeLong(cut.seq);
+        CatalogueFile catalogue = db.getCatalogue();
+        out.writeLong(catalogue == null ? 0 : catalogue.getStamp());
+
+        List<User> users = new ArrayList<>(db.allUsers());
+        out.writeInt(users.size());
+        for (User u : users) {
+            out.writeUTF(u.getRole()); out.writeUTF(u.username); out.writeUTF(u.passwordHash);
+            AppendLog<Booking> bookings = u instanceof Customer ? ((Customer) u).bookings : new AppendLog<>();
+            int n = bookings.size(); // the log only grows; read its length once
+            out.writeInt(n);
+            for (int i = 0; i < n; i++) writeBooking(out, bookings.get(i));
+        }
+        // Catalogue halls never change; catalogue movies only matter once they were
+        // created (nothing can have touched the rest) or removed
+        List<Hall> halls = db.hallList().extras(cut.halls);
+        out.writeInt(halls.size());
+        for (Hall h : halls) writeHall(out, h);
+        BitSet removed = db.movieList().removedBase(cut.movies);
+        out.writeInt(removed.cardinality());
+        for (int i = removed.nextSetBit(0); i >= 0; i = removed.nextSetBit(i + 1)) out.writeUTF(catalogue.movieId(i));
+        List<Movie> movies = db.movieList().loadedBase(cut.movies);
+        int catalogueMovies = movies.size();
+        movies.addAll(db.movieList().extras(cut.movies));
+        out.writeInt(catalogueMovies);
+        out.writeInt(movies.size() - catalogueMovies);
+        for (Movie m : movies) {
+            writeMovie(out, m);
+            // Reviews posted before the cut come first in the log; stop at the first one after it
+            AppendLog<Review> reviews = m.getReviewLog();
+            int n = reviews.size();
+            while (n > 0 && reviews.get(n - 1).stamp > cut.reviewStamp) n--;
+            out.writeInt(n);
+            for (int i = 0; i < n; i++) writeReview(out, reviews.get(i));
+        }
+        List<Screening> screenings = db.getSchedule().all();
+        out.writeInt(screenings.size());
+        for (Screening sc : screenings) {
+            writeScreening(out, sc);
+            long[] sold = bookedWords(db, sc), unbooked = unbookedSold.get(sc.getId());
+            if (unbooked != null) for (int w = 0; w < sold.length; w++) sold[w] |= unbooked[w];
+            out.writeInt(sold.length);
+            for (long w : sold) out.writeLong(w);
+        }
+        List<PaymentAuthorization> captures = new ArrayList<>(db.getPendingCaptures());
+        out.writeInt(captures.size());
+        for (PaymentAuthorization a : captures) writeAuthorization(out, a);
+        out.flush();
+        new DataOutputStream(file).writeLong(checked.getChecksum().getValue());
+        file.flush();
+    }
+
+    private static long loadSnapshot(Path file, CinemaData db) throws IOException {
+        byte[] all = Files.readAllBytes(file);
+        if (all.length < 12) throw new IOException("Snapshot truncated");
+        CRC32 crc = new CRC32();
+        crc.update(all, 0, all.length - 8);
+        if (crc.getValue() != ByteBuffer.wrap(all, all.length - 8, 8).getLong()) throw new IOException("Snapshot checksum mismatch");
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(all, 0, all.length - 8));
+        int magic = in.readInt();
+        if (magic != SNAPSHOT_MAGIC && magic != SNAPSHOT_MAGIC_V5 && magic != SNAPSHOT_MAGIC_V4 && magic != SNAPSHOT_MAGIC_V3) throw new IOException("Not a cinema snapshot, or an older format");
+        long seq = in.readLong();
+        long stamp = in.readLong();
+        CatalogueFile catalogue = db.getCatalogue();
+        if (stamp != (catalogue == null ? 0 : catalogue.getStamp()))
+            throw new IOException("Snapshot was taken with a different catalogue file; restore that file or start a fresh data directory");
+
+        for (int n = in.readInt(); n > 0; n--) {
+            User u = UserFactory.restore(in.readUTF(), in.readUTF(), in.readUTF());
+            db.register(u);
+            for (int i = in.readInt(); i > 0; i--) {
+                Booking b = magic == SNAPSHOT_MAGIC_V3 ? Booking.legacy(u.username, null, readStr(in)) : readBooking(in, u.username, magic == SNAPSHOT_MAGIC);
+                db.getBookings().add(u, b);
+            }
+        }
+        for (int n = in.readInt(); n > 0; n--) { Hall h = readHall(in); db.addHall(h); }
+        for (int n = in.readInt(); n > 0; n--) db.removeMovie(db.getMovie(in.readUTF()));
+        int catalogueMovies = in.readInt(), total = catalogueMovies + in.readInt();
+        for (int n = 0; n < total; n++) {
+            Movie m = readMovie(in, db);
+            if (n < catalogueMovies) {
+                // Carry the saved state over to the catalogue's own instance
+                Movie saved = m;
+                m = db.getMovie(saved.getId());
+                m.applyTitle(saved.getTitle());
+                m.applyActive(saved.isActive());
+            }
+            for (int r = in.readInt(); r > 0; r--) m.applyReview(readReview(in));
+            if (n >= catalogueMovies) { db.addMovie(m); }
+        }
+        for (int n = in.readInt(); n > 0; n--) {
+            Screening sc = readScreening(in, db);
+            int words = in.readInt();
+            List<Integer> sold = new ArrayList<>();
+            for (int w = 0; w < words; w++) {
+                for (long bits = in.readLong(); bits != 0; bits &= bits - 1) sold.add((w << 6) + Long.numberOfTrailingZeros(bits));
+            }
+            if (sc == null) continue;
+            int[] seats = sold.stream().mapToInt(Integer::intValue).toArray();
+            sc.getSeats().claim(seats);
+            sc.getSeats().commit(seats);
+            db.getSchedule().add(sc);
+        }
+        if (magic == SNAPSHOT_MAGIC || magic == SNAPSHOT_MAGIC_V5) for (int n = in.readInt(); n > 0; n--) db.captureDeferred(readAuthorization(in));
+        return seq;
+    }
+
+    private static void sell(Screening sc, List<String> seats) {
+        int[] idx = new int[seats.size()];
+        for (int i = 0; i < idx.length; i++) idx[i] = SeatReservationEngine.seatIndex(seats.get(i));
+        sc.getSeats().claim(idx);
+        sc.getSeats().commit(idx);
+    }
+
+    // --- Field encoding ---
+    // Booking without its username (the record or snapshot section has it)
+    private static void writeBooking(DataOutputStream out, Booking b) throws IOException {
+        out.writeUTF(b.getId()); out.writeByte(b.getStatus().ordinal());
+        writeStr(out, b.getScreeningId()); writeStr(out, b.getMovieTitle()); writeStr(out, b.getHallName());
+        out.writeLong(b.getStart() == null ? Long.MIN_VALUE : b.getStart().toEpochSecond(ZoneOffset.UTC));
+        writeStr(out, b.getItem()); out.writeLong(b.getCentsPaid()); out.writeLong(b.getBookedAt());
+        out.writeInt(b.getSeats().size());
+        for (String s : b.getSeats()) out.writeInt(SeatReservationEngine.seatIndex(s));
+        out.writeInt(b.getAddOns().size());
+        for (String a : b.getAddOns()) out.writeUTF(a);
+    }
+
+    // withAddOns: false for records and snapshots written before bookings kept them
+    private static Booking readBooking(DataInputStream in, String username, boolean withAddOns) throws IOException {
+        String id = in.readUTF();
+        Booking.Status status = Booking.Status.values()[in.readByte()];
+        String screeningId = readStr(in), title = readStr(in), hall = readStr(in);
+        long start = in.readLong();
+        String item = readStr(in);
+        long cents = in.readLong(), bookedAt = in.readLong();
+        List<String> seats = new ArrayList<>();
+        for (int n = in.readInt(); n > 0; n--) seats.add(SeatReservationEngine.seatName(in.readInt()));
+        List<String> addOns = new ArrayList<>();
+        if (withAddOns) for (int n = in.readInt(); n > 0; n--) addOns.add(in.readUTF());
+        else if (status == Booking.Status.CONFIRMED) addOns = addOnsFromItem(item, title);
+        return new Booking(id, username, screeningId, title, hall,
+                start == Long.MIN_VALUE ? null : LocalDateTime.ofEpochSecond(start, 0, ZoneOffset.UTC), seats, item, addOns, cents, bookedAt, status);
+    }
+
+    // The add-ons of a booking saved before they were kept, read back from its
+    // item ("Ticket: <title>, Popcorn, Soda"). Each is matched against the
+    // price table's names, longest first, so a name containing ", " stays one
+    // add-on; an unknown one runs to the next ", ".
+    static List<String> addOnsFromItem(String item, String title) {
+        String head = "Ticket: " + (title == null ? "" : title);
+        List<String> out = new ArrayList<>(2);
+        if (item == null || !item.startsWith(head)) return out;
+        List<String> names = new ArrayList<>(PriceTable.current().addOnNames());
+        names.sort(Comparator.comparingInt(String::length).reversed());
+        int at = head.length();
+        while (item.startsWith(", ", at)) {
+            at += 2;
+            int end = -1;
+            for (String n : names) {
+                if (item.startsWith(n, at) && (at + n.length() == item.length() || item.startsWith(", ", at + n.length()))) { end = at + n.length(); break; }
+            }
+            if (end < 0) { end = item.indexOf(", ", at); if (end < 0) end = item.length(); }
+            out.add(item.substring(at, end));
+            at = end;
+        }
+        return out;
+    }
+
+    // Only approved authorizations are ever pending
+    private static void writeAuthorization(DataOutputStream out, PaymentAuthorization a) throws IOException {
+        out.writeUTF(a.getKey()); out.writeLong(a.getCents()); writeStr(out, a.getReference());
+    }
+
+    private static PaymentAuthorization readAuthorization(DataInputStream in) throws IOException {
+        return PaymentAuthorization.approved(in.readUTF(), in.readLong(), readStr(in));
+    }
+
+    private static void writeHall(DataOutputStream out, Hall h) throws IOException {
+        out.writeUTF(h.getId()); writeStr(out, h.getName()); out.writeInt(h.getCapacity()); out.writeInt(h.getSeatsPerRow());
+    }
+
+    private static Hall readHall(DataInputStream in) throws IOException {
+        return new Hall(in.readUTF(), readStr(in), in.readInt(), in.readInt());
+    }
+
+    private static void writeMovie(DataOutputStream out, Movie m) throws IOException {
+        out.writeUTF(m.getId()); writeStr(out, m.getTitle()); writeStr(out, m.getGenre()); writeStr(out, m.getLanguage());
+        out.writeDouble(m.getPrice()); writeStr(out, m.getShowtime());
+        writeStr(out, m.getHall() == null ? null : m.getHall().getId());
+        out.writeBoolean(m.isActive());
+    }
+
+    private static Movie readMovie(DataInputStream in, CinemaData db) throws IOException {
+        String id = in.readUTF(), title = readStr(in), genre = readStr(in), language = readStr(in);
+        double price = in.readDouble();
+        String showtime = readStr(in), hallId = readStr(in);
+        boolean active = in.readBoolean();
+        Movie m = new Movie.MovieBuilder(title).setId(id).setGenre(genre).setLanguage(language).setPrice(price)
+                .setShowtime(showtime).setHall(db.getHall(hallId)).build();
+        m.applyActive(active);
+        return m;
+    }
+
+    // Wall-clock times, stored as epoch seconds read as if they were UTC
+    private static void writeScreening(DataOutputStream out, Screening sc) throws IOException {
+        out.writeUTF(sc.getId()); out.writeUTF(sc.getMovie().getId()); out.writeUTF(sc.getHall().getId());
+        out.writeLong(sc.getStart().toEpochSecond(ZoneOffset.UTC)); out.writeLong(sc.getEnd().toEpochSecond(ZoneOffset.UTC));
+    }
+
+    // null if its movie or hall no longer exists
+    private static Screening readScreening(DataInputStream in, CinemaData db) throws IOException {
+        String id = in.readUTF();
+        Movie m = db.getMovie(in.readUTF());
+        Hall h = db.getHall(in.readUTF());
+        LocalDateTime start = LocalDateTime.ofEpochSecond(in.readLong(), 0, ZoneOffset.UTC);
+        LocalDateTime end = LocalDateTime.ofEpochSecond(in.readLong(), 0, ZoneOffset.UTC);
+        return m == null || h == null ? null : new Screening(id, m, h, start, end);
+    }
+
+    private static void writeReview(DataOutputStream out, Review r) throws IOException {
+        writeStr(out, r.user); writeStr(out, r.comment); out.writeDouble(r.rating);
+    }
+
+    private static Review readReview(DataInputStream in) throws IOException {
+        return new Review(readStr(in), readStr(in), in.readDouble());
+    }
+
+    private static void writeStr(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) out.writeUTF(s);
+    }
+
+    private static String readStr(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -5,8 +5,20 @@ import javax.swing.table.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.awt.geom.RoundRectangle2D;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 public class CompleteCinemaSystem extends JFrame {
     private CardLayout cardLayout = new CardLayout();
@@ -14,7 +26,10 @@ public class CompleteCinemaSystem extends JFrame {
 
     // Uses your existing CinemaData class
     private CinemaData db = CinemaData.getInstance();
+    private BookingService service = new BookingService(db);
     private User currentUser;
+    // Undone on logout, so a dashboard stops following the catalogue once it is gone
+    private final List<Runnable> onLogout = new ArrayList<>();
 
     // --- COLORS & FONTS ---
     private static final Color COL_BACKGROUND = new Color(18, 18, 18);
@@ -51,6 +66,10 @@ public class CompleteCinemaSystem extends JFrame {
         mainPanel.add(createLoginPanel(), "LOGIN");
         mainPanel.add(createRegisterPanel(), "REGISTER");
         add(mainPanel, BorderLayout.CENTER);
+
+        db.addStorageFailureListener(err -> SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this,
+                err.getMessage() != null ? err.getMessage() : err.toString(),
+                "Storage Error", JOptionPane.ERROR_MESSAGE)));
     }
 
     // ==========================================
@@ -143,9 +162,15 @@ public class CompleteCinemaSystem extends JFrame {
         gbc.gridy=7; card.add(regBtn, gbc);
         container.add(card);
 
+        // The password hash takes tens of milliseconds by design, so it runs off the EDT
         loginBtn.addActionListener(e -> {
-            currentUser = db.login(uField.getText(), new String(pField.getPassword()));
-            if(currentUser != null) {
+            String name = uField.getText(), password = new String(pField.getPassword());
+            loginBtn.setEnabled(false);
+            CompletableFuture.supplyAsync(() -> service.login(name, password)).whenComplete((user, err) -> SwingUtilities.invokeLater(() -> {
+                loginBtn.setEnabled(true);
+                if(user == null) { JOptionPane.showMessageDialog(this, err == null ? "Invalid Credentials" : "Login failed: " + err.getMessage()); return; }
+                pField.setText("");
+                currentUser = user;
                 if(currentUser instanceof Admin) {
                     mainPanel.add(createAdminPanel(), "ADMIN");
                     cardLayout.show(mainPanel, "ADMIN");
@@ -153,7 +178,7 @@ public class CompleteCinemaSystem extends JFrame {
                     mainPanel.add(createCustomerPanel(), "CUSTOMER");
                     cardLayout.show(mainPanel, "CUSTOMER");
                 }
-            } else JOptionPane.showMessageDialog(this, "Invalid Credentials");
+            }));
         });
         regBtn.addActionListener(e -> cardLayout.show(mainPanel, "REGISTER"));
         return container;
@@ -191,10 +216,18 @@ public class CompleteCinemaSystem extends JFrame {
         container.add(card);
 
         subBtn.addActionListener(e -> {
-            User u = UserFactory.create((String)roleBox.getSelectedItem(), uField.getText(), new String(pField.getPassword()));
-            db.register(u);
-            JOptionPane.showMessageDialog(this, "Registered!");
-            cardLayout.show(mainPanel, "LOGIN");
+            if(uField.getText().trim().isEmpty()) { JOptionPane.showMessageDialog(this, "Username required"); return; }
+            String role = (String)roleBox.getSelectedItem(), name = uField.getText().trim(), password = new String(pField.getPassword());
+            subBtn.setEnabled(false);
+            // Hashing the new password is as slow as a login, so it runs off the EDT too
+            CompletableFuture.supplyAsync(() -> db.register(UserFactory.create(role, name, password))).whenComplete((ok, err) -> SwingUtilities.invokeLater(() -> {
+                subBtn.setEnabled(true);
+                if(err != null) { JOptionPane.showMessageDialog(this, "Registration failed: " + err.getMessage()); return; }
+                if(!ok) { JOptionPane.showMessageDialog(this, "Username already taken"); return; }
+                pField.setText("");
+                JOptionPane.showMessageDialog(this, "Registered!");
+                cardLayout.show(mainPanel, "LOGIN");
+            }));
         });
         backBtn.addActionListener(e -> cardLayout.show(mainPanel, "LOGIN"));
         return container;
@@ -210,51 +243,80 @@ public class CompleteCinemaSystem extends JFrame {
         // Movie Management
         JPanel moviePanel = new JPanel(new BorderLayout(10, 10));
         moviePanel.setBackground(COL_BACKGROUND); moviePanel.setBorder(new EmptyBorder(20, 20, 20, 20));
-        DefaultTableModel model = new DefaultTableModel(new String[]{"Title", "Genre", "Lang", "Hall", "Active"}, 0);
+        EntityTableModel<Movie> model = new EntityTableModel<>(List.of(
+                EntityTableModel.column("Title", String.class, Movie::getTitle),
+                EntityTableModel.column("Genre", String.class, Movie::getGenre),
+                EntityTableModel.column("Lang", String.class, Movie::getLanguage),
+                EntityTableModel.column("Hall", String.class, m -> m.getHall().getName()),
+                EntityTableModel.column("Active", Object.class, Movie::isActive)), Movie::getId, m -> true);
+        // Paged: only the rows on screen are read, so a lazily loaded catalogue is not decoded here
+        Supplier<List<Movie>> allMovies = db::getMovies;
+        model.setSource(allMovies);
         JTable table = new JTable(model);
         styleTable(table);
-        Runnable refresh = () -> {
-            model.setRowCount(0);
-            for(Movie m : db.getMovies()) model.addRow(new Object[]{m.getTitle(), m.getGenre(), m.getLanguage(), m.getHall().getName(), m.isActive()});
-        };
-        refresh.run();
+        FacetPanel facets = new FacetPanel(List.of(Facet.values()), FacetSelection.NONE, db::facetQuery,
+                COL_BACKGROUND, COL_TEXT_MAIN, COL_TEXT_SEC, FONT_BOLD, FONT_PLAIN);
+        facets.setOnChange(() -> {
+            if (facets.isFiltering()) model.setRows(facets.getResult().movies(), facets.getSelection()::test);
+            else model.setSource(allMovies);
+        });
 
         JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT));
         controls.setBackground(COL_BACKGROUND);
         JButton addBtn = createStyledButton("Add Movie", COL_ACCENT);
         JButton delBtn = createStyledButton("Delete", COL_PRIMARY);
         JButton toggleBtn = createStyledButton("Toggle Status", new Color(70,70,70));
-        controls.add(addBtn); controls.add(delBtn); controls.add(toggleBtn);
+        JButton scheduleBtn = createStyledButton("Schedule", new Color(70,70,70));
+        controls.add(addBtn); controls.add(delBtn); controls.add(toggleBtn); controls.add(scheduleBtn);
 
-        addBtn.addActionListener(e -> showAddMovieDialog(refresh));
+        // The table follows CinemaData's catalogue events, so no manual refresh is needed
+        addBtn.addActionListener(e -> showAddMovieDialog());
+        // By id: the row may have moved or gone since it was clicked
         delBtn.addActionListener(e -> {
-            int row = table.getSelectedRow();
-            if(row >= 0) { db.removeMovie(db.getMovies().get(row)); refresh.run(); }
+            String id = selectedId(table, model);
+            if(id != null) db.removeMovie(id);
         });
+        // Sends the opposite of the "Active" cell the admin is looking at, not of
+        // the live movie, which another admin may have toggled already
+        int activeColumn = model.findColumn("Active");
         toggleBtn.addActionListener(e -> {
-            int row = table.getSelectedRow();
-            if(row >= 0) { Movie m = db.getMovies().get(row); m.setActive(!m.isActive()); refresh.run(); }
+            int r = table.getSelectedRow();
+            if(r < 0) return;
+            int row = table.convertRowIndexToModel(r);
+            String id = model.getRowId(row);
+            Object shown = model.getValueAt(row, activeColumn);
+            if(id != null && shown instanceof Boolean) db.setMovieActive(id, !(Boolean) shown);
+        });
+        scheduleBtn.addActionListener(e -> {
+            Movie m = db.getMovie(selectedId(table, model));
+            if(m != null) showAddScreeningDialog(m);
         });
 
+        moviePanel.add(facetScroll(facets), BorderLayout.WEST);
         moviePanel.add(new JScrollPane(table), BorderLayout.CENTER);
         moviePanel.add(controls, BorderLayout.SOUTH);
 
         // Hall Management
         JPanel hallPanel = new JPanel(new BorderLayout(10, 10));
         hallPanel.setBackground(COL_BACKGROUND); hallPanel.setBorder(new EmptyBorder(20,20,20,20));
-        DefaultTableModel hallModel = new DefaultTableModel(new String[]{"Hall Name", "Capacity"}, 0);
+        EntityTableModel<Hall> hallModel = new EntityTableModel<>(List.of(
+                EntityTableModel.column("Hall Name", String.class, Hall::getName),
+                EntityTableModel.column("Capacity", Object.class, Hall::getCapacity)), Hall::getId, h -> true);
+        hallModel.setRows(db.getHalls(), h -> true);
         JTable hallTable = new JTable(hallModel);
         styleTable(hallTable);
-        Runnable refreshHall = () -> {
-            hallModel.setRowCount(0);
-            for(Hall h : db.getHalls()) hallModel.addRow(new Object[]{h.getName(), h.getCapacity()});
-        };
-        refreshHall.run();
+        listen(new CatalogListener() {
+            @Override public void movieAdded(Movie m) { model.added(m); facets.refreshLater(); }
+            @Override public void moviesAdded(List<Movie> ms) { model.addedAll(ms); facets.refreshLater(); }
+            @Override public void movieRemoved(Movie m) { model.removed(m); facets.refreshLater(); }
+            @Override public void movieChanged(Movie m) { model.changed(m); facets.refreshLater(); }
+            @Override public void hallAdded(Hall h) { hallModel.added(h); }
+        });
         JButton addHallBtn = createStyledButton("Add New Hall", COL_ACCENT);
         addHallBtn.addActionListener(e -> {
             String name = JOptionPane.showInputDialog("Hall Name:");
             String cap = JOptionPane.showInputDialog("Capacity:");
-            if(name != null && cap != null) { db.addHall(new Hall(name, Integer.parseInt(cap))); refreshHall.run(); }
+            if(name != null && cap != null) db.addHall(new Hall(name, Integer.parseInt(cap)));
         });
         JPanel hallControls = new JPanel(new FlowLayout(FlowLayout.LEFT));
         hallControls.setBackground(COL_BACKGROUND); hallControls.add(addHallBtn);
@@ -263,11 +325,167 @@ public class CompleteCinemaSystem extends JFrame {
 
         tabs.addTab("Movies", moviePanel);
         tabs.addTab("Halls", hallPanel);
+        tabs.addTab("Revenue", createRevenuePanel());
+        tabs.addTab("Import", createImportPanel());
+        tabs.addTab("Reports", createReportPanel());
         for(int i=0; i<tabs.getTabCount(); i++) { tabs.setBackgroundAt(i, COL_SURFACE); tabs.setForegroundAt(i, Color.WHITE); }
         return wrapDashboard(tabs, "ADMIN DASHBOARD");
     }
 
-    private void showAddMovieDialog(Runnable refreshCallback) {
+    // Reads RevenueAggregator snapshots every 2s; never touches the booking path's locks
+    private JPanel createRevenuePanel() {
+        JPanel panel = new JPanel(new BorderLayout(10, 10));
+        panel.setBackground(COL_BACKGROUND); panel.setBorder(new EmptyBorder(20, 20, 20, 20));
+        JLabel totals = new JLabel(); totals.setForeground(COL_TEXT_MAIN); totals.setFont(FONT_BOLD);
+        JLabel pipeline = new JLabel(); pipeline.setForeground(COL_TEXT_SEC); pipeline.setFont(FONT_PLAIN);
+        DefaultTableModel model = new DefaultTableModel(new String[]{"Group", "Name", "Revenue"}, 0) {
+            @Override public boolean isCellEditable(int r, int c) { return false; }
+        };
+        JTable table = new JTable(model);
+        styleTable(table);
+
+        Runnable refresh = () -> {
+            RevenueSnapshot s = db.getRevenue().snapshot();
+            totals.setText("Total " + RevenueSnapshot.dollars(s.totalCents) + "   |   " + s.tickets + " tickets in " + s.bookings
+                    + " bookings   |   last minute " + RevenueSnapshot.dollars(s.lastMinuteCents())
+                    + "   |   last hour " + RevenueSnapshot.dollars(s.lastHourCents()));
+            StringBuilder lag = new StringBuilder("<html>");
+            for(BookingDispatcher.Metrics mt : db.getDispatcher().metrics()) lag.append(mt).append("<br>");
+            pipeline.setText(lag.append("</html>").toString());
+            model.setRowCount(0);
+            s.byMovie.forEach((k, v) -> model.addRow(new Object[]{"Movie", k, RevenueSnapshot.dollars(v)}));
+            s.byHall.forEach((k, v) -> model.addRow(new Object[]{"Hall", k, RevenueSnapshot.dollars(v)}));
+            s.byPayment.forEach((k, v) -> model.addRow(new Object[]{"Payment", k, RevenueSnapshot.dollars(v)}));
+            s.addOnUnits.forEach((k, v) -> model.addRow(new Object[]{"Add-on (units)", k, v}));
+        };
+        refresh.run();
+        Timer timer = new Timer(2000, e -> { if(panel.isShowing()) refresh.run(); });
+        timer.start();
+        onLogout.add(timer::stop);
+
+        panel.add(totals, BorderLayout.NORTH);
+        panel.add(new JScrollPane(table), BorderLayout.CENTER);
+        panel.add(pipeline, BorderLayout.SOUTH);
+        return panel;
+    }
+
+    // Bulk loads run on BulkImport's own threads; a timer polls their counters,
+    // so a million-row file never floods the EDT with events
+    private JPanel createReportPanel() {
+        JPanel panel = new JPanel(new BorderLayout(10, 10));
+        panel.setBackground(COL_BACKGROUND); panel.setBorder(new EmptyBorder(20, 20, 20, 20));
+        JLabel help = new JLabel("<html>Writes a folder of CSV files: revenue by movie, hall and day,<br>"
+                + "occupancy per screening, add-on attach rates, and review counts and ratings per movie.<br>"
+                + "The report runs in the background; the rest of the admin screens stay usable.</html>");
+        help.setForeground(COL_TEXT_SEC); help.setFont(FONT_PLAIN);
+
+        JButton exportBtn = createStyledButton("Export Sales Report...", COL_ACCENT);
+        JButton cancelBtn = createStyledButton("Cancel", COL_PRIMARY);
+        cancelBtn.setEnabled(false);
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT)); controls.setBackground(COL_BACKGROUND);
+        controls.add(exportBtn); controls.add(cancelBtn);
+        JPanel top = new JPanel(new BorderLayout()); top.setBackground(COL_BACKGROUND);
+        top.add(help, BorderLayout.NORTH); top.add(controls, BorderLayout.SOUTH);
+
+        JProgressBar bar = new JProgressBar(0, 1000); bar.setStringPainted(true); bar.setString("");
+        JLabel status = new JLabel(" "); status.setForeground(COL_TEXT_MAIN); status.setFont(FONT_BOLD);
+        JPanel bottom = new JPanel(new BorderLayout(5, 5)); bottom.setBackground(COL_BACKGROUND);
+        bottom.add(bar, BorderLayout.NORTH); bottom.add(status, BorderLayout.SOUTH);
+
+        SalesReport[] job = {null};
+        Runnable update = () -> {
+            SalesReport j = job[0];
+            if(j == null) return;
+            bar.setValue((int) Math.round(j.getProgress() * 1000));
+            bar.setString(j.getPhase());
+            status.setText(j.toString());
+        };
+        Timer poll = new Timer(250, e -> update.run());
+        exportBtn.addActionListener(e -> {
+            JFileChooser chooser = new JFileChooser();
+            chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+            chooser.setDialogTitle("Folder for the report");
+            if(chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+            SalesReport j = new SalesReport(db, chooser.getSelectedFile().toPath());
+            job[0] = j;
+            exportBtn.setEnabled(false); cancelBtn.setEnabled(true);
+            poll.start();
+            j.start().thenAccept(finished -> SwingUtilities.invokeLater(() -> {
+                poll.stop();
+                update.run();
+                if(finished.getStatus() == SalesReport.Status.DONE) bar.setValue(1000);
+                exportBtn.setEnabled(true); cancelBtn.setEnabled(false);
+            }));
+        });
+        cancelBtn.addActionListener(e -> { if(job[0] != null) job[0].cancel(); cancelBtn.setEnabled(false); });
+
+        panel.add(top, BorderLayout.NORTH);
+        panel.add(bottom, BorderLayout.SOUTH);
+        return panel;
+    }
+
+    private JPanel createImportPanel() {
+        JPanel panel = new JPanel(new BorderLayout(10, 10));
+        panel.setBackground(COL_BACKGROUND); panel.setBorder(new EmptyBorder(20, 20, 20, 20));
+        JLabel help = new JLabel("<html>CSV with a header row, or JSON lines (.jsonl), one file per kind:<br>"
+                + "Halls: name, capacity[, seats_per_row]<br>"
+                + "Movies: title, price, hall[, genre, language, showtime]<br>"
+                + "Screenings: movie, start (yyyy-mm-dd HH:mm)[, hall, minutes or end]</html>");
+        help.setForeground(COL_TEXT_SEC); help.setFont(FONT_PLAIN);
+
+        JComboBox<BulkImport.Kind> kindBox = new JComboBox<>(BulkImport.Kind.values());
+        kindBox.setSelectedItem(BulkImport.Kind.SCREENINGS);
+        JButton chooseBtn = createStyledButton("Import File...", COL_ACCENT);
+        JButton cancelBtn = createStyledButton("Cancel", COL_PRIMARY);
+        cancelBtn.setEnabled(false);
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT)); controls.setBackground(COL_BACKGROUND);
+        controls.add(kindBox); controls.add(chooseBtn); controls.add(cancelBtn);
+        JPanel top = new JPanel(new BorderLayout()); top.setBackground(COL_BACKGROUND);
+        top.add(help, BorderLayout.NORTH); top.add(controls, BorderLayout.SOUTH);
+
+        DefaultListModel<String> errorModel = new DefaultListModel<>();
+        JList<String> errorList = new JList<>(errorModel);
+        errorList.setBackground(COL_SURFACE); errorList.setForeground(COL_TEXT_SEC); errorList.setFont(FONT_PLAIN);
+        JProgressBar bar = new JProgressBar(0, 1000); bar.setStringPainted(true); bar.setString("");
+        JLabel status = new JLabel(" "); status.setForeground(COL_TEXT_MAIN); status.setFont(FONT_BOLD);
+        JPanel bottom = new JPanel(new BorderLayout(5, 5)); bottom.setBackground(COL_BACKGROUND);
+        bottom.add(bar, BorderLayout.NORTH); bottom.add(status, BorderLayout.SOUTH);
+
+        BulkImport[] job = {null};
+        Runnable update = () -> {
+            BulkImport j = job[0];
+            if(j == null) return;
+            bar.setValue((int) Math.round(j.getProgress() * 1000));
+            bar.setString(String.format("%,d rows", j.getRowsRead()));
+            status.setText(j.toString());
+            List<String> shown = j.getShownErrors();
+            for(int i = errorModel.size(); i < shown.size(); i++) errorModel.addElement(shown.get(i));
+        };
+        Timer poll = new Timer(250, e -> update.run());
+        chooseBtn.addActionListener(e -> {
+            JFileChooser chooser = new JFileChooser();
+            if(chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+            errorModel.clear();
+            BulkImport j = new BulkImport(db, (BulkImport.Kind) kindBox.getSelectedItem(), chooser.getSelectedFile().toPath());
+            job[0] = j;
+            chooseBtn.setEnabled(false); cancelBtn.setEnabled(true);
+            poll.start();
+            j.start().thenAccept(finished -> SwingUtilities.invokeLater(() -> {
+                poll.stop();
+                update.run();
+                if(finished.getRejected() > 0) status.setText(finished + "  (all errors: " + finished.getErrorFile() + ")");
+                chooseBtn.setEnabled(true); cancelBtn.setEnabled(false);
+            }));
+        });
+        cancelBtn.addActionListener(e -> { if(job[0] != null) job[0].cancel(); cancelBtn.setEnabled(false); });
+
+        panel.add(top, BorderLayout.NORTH);
+        panel.add(new JScrollPane(errorList), BorderLayout.CENTER);
+        panel.add(bottom, BorderLayout.SOUTH);
+        return panel;
+    }
+
+    private void showAddMovieDialog() {
         JDialog d = new JDialog(this, "Add Movie", true);
         d.setSize(450, 500); d.setLocationRelativeTo(this); d.setUndecorated(true);
         ((JPanel)d.getContentPane()).setBorder(new LineBorder(COL_PRIMARY, 2));
@@ -295,7 +513,12 @@ public class CompleteCinemaSystem extends JFrame {
                 Movie m = new Movie.MovieBuilder(t.getText()).setGenre(g.getText()).setLanguage(l.getText())
                         .setPrice(Double.parseDouble(price.getText())).setShowtime(s.getText())
                         .setHall((Hall)hBox.getSelectedItem()).build();
-                db.addMovie(m); refreshCallback.run(); d.dispose();
+                db.addMovie(m);
+                // First showing today at the listed time; more via "Schedule"
+                Screening first = Screening.listed(m, LocalDate.now());
+                d.dispose();
+                if(first != null && !db.addScreening(first).isEmpty())
+                    JOptionPane.showMessageDialog(this, m.getTitle() + " was added but not scheduled today: " + m.getHall().getName() + " is busy at " + m.getShowtime() + ".");
             } catch(Exception ex) { JOptionPane.showMessageDialog(d, "Invalid Input"); }
         });
         cancel.addActionListener(e -> d.dispose());
@@ -314,38 +537,61 @@ public class CompleteCinemaSystem extends JFrame {
         // Browse Movies
         JPanel browsePanel = new JPanel(new BorderLayout(10, 10));
         browsePanel.setBackground(COL_BACKGROUND); browsePanel.setBorder(new EmptyBorder(20, 20, 20, 20));
-        DefaultTableModel model = new DefaultTableModel(new String[]{"Title", "Genre", "Lang", "Time", "Price", "Rating"}, 0);
+        // Rating is rounded to one decimal here instead of String.format per row
+        EntityTableModel<Movie> model = new EntityTableModel<>(List.of(
+                EntityTableModel.column("Title", String.class, Movie::getTitle),
+                EntityTableModel.column("Genre", String.class, Movie::getGenre),
+                EntityTableModel.column("Lang", String.class, Movie::getLanguage),
+                EntityTableModel.column("Next Showing", String.class, this::nextShowing),
+                EntityTableModel.column("Price", Object.class, Movie::getPrice),
+                EntityTableModel.column("Rating", Object.class, m -> Math.round(m.getAverageRating() * 10) / 10.0)), Movie::getId, Movie::isActive);
+        // Customers only ever see movies now showing, so that part is fixed. The
+        // rows come from the facet result, which the panel computes off the EDT,
+        // so filling the table never walks (and decodes) the catalogue here
+        FacetPanel facets = new FacetPanel(List.of(Facet.GENRE, Facet.LANGUAGE, Facet.HALL, Facet.PRICE),
+                FacetSelection.NONE.with(Facet.STATUS, Facet.ACTIVE, true), db::facetQuery,
+                COL_BACKGROUND, COL_TEXT_MAIN, COL_TEXT_SEC, FONT_BOLD, FONT_PLAIN);
+        listen(new CatalogListener() {
+            @Override public void movieAdded(Movie m) { model.added(m); facets.refreshLater(); }
+            @Override public void moviesAdded(List<Movie> ms) { model.addedAll(ms); facets.refreshLater(); }
+            @Override public void movieRemoved(Movie m) { model.removed(m); facets.refreshLater(); }
+            @Override public void movieChanged(Movie m) { model.changed(m); facets.refreshLater(); }
+            @Override public void screeningAdded(Screening sc) { model.changed(sc.getMovie()); }
+            @Override public void screeningsAdded(List<Screening> ss) {
+                Set<Movie> movies = new LinkedHashSet<>();
+                for(Screening sc : ss) movies.add(sc.getMovie());
+                model.changedAll(movies);
+            }
+            @Override public void screeningRemoved(Screening sc) { model.changed(sc.getMovie()); }
+        });
         JTable table = new JTable(model);
         styleTable(table);
-        Runnable loadData = () -> {
-            model.setRowCount(0);
-            for(Movie m : db.getMovies()) if(m.isActive()) model.addRow(new Object[]{m.getTitle(), m.getGenre(), m.getLanguage(), m.getShowtime(), m.getPrice(), String.format("%.1f", m.getAverageRating())});
-        };
-        loadData.run();
 
         // --- FIXED SEARCH BAR ---
         JPanel searchBar = new JPanel(new FlowLayout(FlowLayout.LEFT));
         searchBar.setBackground(COL_BACKGROUND);
         JTextField searchField = createStyledField(); searchField.setColumns(20);
 
+        // Text and facets combine: rows come from the search hits or the facet
+        // bitmaps, and the selection's own test keeps later row events consistent
+        Runnable filter = () -> {
+            FacetSelection sel = facets.getSelection();
+            if(searchField.getText().trim().isEmpty()) {
+                model.setRows(facets.getResult() != null ? facets.getResult().movies() : List.of(), sel::test);
+                return;
+            }
+            // Only movies whose title/genre/language match are touched
+            List<Movie> hits = service.search(searchField.getText());
+            Set<Movie> hitSet = new HashSet<>(hits);
+            model.setRows(hits, m -> sel.test(m) && hitSet.contains(m));
+        };
+        facets.setOnChange(filter);
+
         // Add DocumentListener for Real-time Search and Reset
         searchField.getDocument().addDocumentListener(new DocumentListener() {
-            public void insertUpdate(DocumentEvent e) { filter(); }
-            public void removeUpdate(DocumentEvent e) { filter(); }
-            public void changedUpdate(DocumentEvent e) { filter(); }
-
-            private void filter() {
-                String q = searchField.getText().toLowerCase();
-                model.setRowCount(0);
-                for(Movie m : db.getMovies()) {
-                    if(m.isActive()) {
-                        // If query is empty, add everything. Else, check contains.
-                        if (q.isEmpty() || m.getTitle().toLowerCase().contains(q) || m.getGenre().toLowerCase().contains(q)) {
-                            model.addRow(new Object[]{m.getTitle(), m.getGenre(), m.getLanguage(), m.getShowtime(), m.getPrice(), String.format("%.1f", m.getAverageRating())});
-                        }
-                    }
-                }
-            }
+            public void insertUpdate(DocumentEvent e) { filter.run(); }
+            public void removeUpdate(DocumentEvent e) { filter.run(); }
+            public void changedUpdate(DocumentEvent e) { filter.run(); }
         });
 
         searchBar.add(new JLabel("Filter: "){{setForeground(COL_TEXT_MAIN);setFont(FONT_BOLD);}});
@@ -359,51 +605,139 @@ public class CompleteCinemaSystem extends JFrame {
         actions.add(reviewBtn); actions.add(bookBtn);
 
         bookBtn.addActionListener(e -> {
-            int r = table.getSelectedRow();
-            if(r >= 0) showSeatSelection(findMovie((String)model.getValueAt(r, 0)));
+            Movie m = db.getMovie(selectedId(table, model));
+            if(m == null) return;
+            Screening sc = chooseScreening(m);
+            if(sc != null) showSeatSelection(sc);
         });
         reviewBtn.addActionListener(e -> {
-            int r = table.getSelectedRow();
-            if(r >= 0) showReviewDialog(findMovie((String)model.getValueAt(r, 0)), loadData);
+            Movie m = db.getMovie(selectedId(table, model));
+            if(m != null) showReviewDialog(m);
         });
 
         browsePanel.add(searchBar, BorderLayout.NORTH);
+        browsePanel.add(facetScroll(facets), BorderLayout.WEST);
         browsePanel.add(new JScrollPane(table), BorderLayout.CENTER);
         browsePanel.add(actions, BorderLayout.SOUTH);
         tabs.addTab("Browse Movies", browsePanel);
+        tabs.addTab("What's On", createWhatsOnPanel());
 
-        // My Bookings
-        DefaultListModel<String> bookingModel = new DefaultListModel<>();
-        JList<String> bookingList = new JList<>(bookingModel);
+        // My Bookings: virtualized, newest first; only rows in view are fetched
+        AppendLog<Booking> mine = currentUser instanceof Customer ? ((Customer) currentUser).bookings : new AppendLog<>();
+        NewestFirstListModel<Booking> bookingModel = new NewestFirstListModel<>(mine);
+        JList<Booking> bookingList = new JList<>(bookingModel);
         bookingList.setBackground(COL_BACKGROUND);
-        bookingList.setCellRenderer(new DefaultListCellRenderer() {
-            @Override public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
-                JPanel p = new JPanel(new BorderLayout()); p.setBackground(COL_SURFACE);
-                p.setBorder(new CompoundBorder(new MatteBorder(0,0,1,0, new Color(50,50,50)), new EmptyBorder(15,15,15,15)));
-                JLabel l = new JLabel("🎟️  " + value.toString());
-                l.setFont(FONT_PLAIN); l.setForeground(Color.WHITE); p.add(l, BorderLayout.CENTER);
-                return p;
-            }
-        });
+        bookingList.setCellRenderer(new BookingRenderer(COL_SURFACE, COL_PRIMARY.darker(), Color.WHITE, COL_TEXT_SEC, FONT_BOLD, FONT_PLAIN));
+        bookingList.setFixedCellHeight(64);
+        JScrollPane bookingScroll = new JScrollPane(bookingList);
         tabs.addChangeListener(e -> {
-            if(tabs.getSelectedIndex() == 1) {
-                bookingModel.clear();
-                if (currentUser instanceof Customer) {
-                    for(String s : ((Customer)currentUser).bookings) bookingModel.addElement(s);
-                }
-            }
+            if(tabs.getSelectedComponent() == bookingScroll) bookingModel.appended();
         });
-        tabs.addTab("My Bookings", new JScrollPane(bookingList));
+        tabs.addTab("My Bookings", bookingScroll);
         for(int i=0; i<tabs.getTabCount(); i++) { tabs.setBackgroundAt(i, COL_SURFACE); tabs.setForegroundAt(i, Color.WHITE); }
         return wrapDashboard(tabs, "Hello, " + currentUser.username);
     }
 
-    private Movie findMovie(String title) { return db.getMovies().stream().filter(m -> m.getTitle().equals(title)).findFirst().orElse(null); }
-
     // ==========================================
     // BOOKING LOGIC
     // ==========================================
-    private void showSeatSelection(Movie m) {
+    private String nextShowing(Movie m) {
+        List<Screening> next = db.getSchedule().forMovie(m, LocalDateTime.now(), 1);
+        return next.isEmpty() ? "-" : next.get(0).getStart().format(Screening.DAY_TIME);
+    }
+
+    // The movie's upcoming screenings to pick from; null if cancelled or none scheduled
+    private Screening chooseScreening(Movie m) {
+        List<Screening> next = service.nextShowings(m, 50);
+        if(next.isEmpty()) { JOptionPane.showMessageDialog(this, "No upcoming screenings of " + m.getTitle() + "."); return null; }
+        JComboBox<Screening> box = new JComboBox<>(next.toArray(new Screening[0]));
+        int res = JOptionPane.showConfirmDialog(this, new Object[]{"Screening:", box}, m.getTitle(), JOptionPane.OK_CANCEL_OPTION);
+        return res == JOptionPane.OK_OPTION ? (Screening)box.getSelectedItem() : null;
+    }
+
+    // One day's screenings in a time window, straight from the schedule index
+    private JPanel createWhatsOnPanel() {
+        JPanel panel = new JPanel(new BorderLayout(10, 10));
+        panel.setBackground(COL_BACKGROUND); panel.setBorder(new EmptyBorder(20, 20, 20, 20));
+        EntityTableModel<Screening> model = new EntityTableModel<>(List.of(
+                EntityTableModel.column("Starts", String.class, sc -> sc.getStart().format(Screening.DAY_TIME)),
+                EntityTableModel.column("Ends", String.class, sc -> sc.getEnd().toLocalTime().toString()),
+                EntityTableModel.column("Movie", String.class, sc -> sc.getMovie().getTitle()),
+                EntityTableModel.column("Hall", String.class, sc -> sc.getHall().getName()),
+                EntityTableModel.column("Free Seats", Object.class, Screening::getFreeSeats)), Screening::getId, sc -> true);
+        JTable table = new JTable(model);
+        styleTable(table);
+
+        LocalDate[] day = {LocalDate.now()};
+        JLabel dayLabel = new JLabel(); dayLabel.setForeground(COL_TEXT_MAIN); dayLabel.setFont(FONT_BOLD);
+        JSpinner fromBox = new JSpinner(new SpinnerNumberModel(0, 0, 23, 1));
+        JSpinner toBox = new JSpinner(new SpinnerNumberModel(24, 1, 24, 1));
+        Runnable refresh = () -> {
+            dayLabel.setText(day[0].format(DateTimeFormatter.ofPattern("EEEE dd MMM yyyy")));
+            LocalDateTime from = day[0].atStartOfDay().plusHours((Integer)fromBox.getValue());
+            LocalDateTime to = day[0].atStartOfDay().plusHours((Integer)toBox.getValue());
+            model.setRows(service.showingsBetween(from, to), sc -> true);
+        };
+        JButton prev = createStyledButton("<", new Color(60,60,60)), next = createStyledButton(">", new Color(60,60,60));
+        prev.addActionListener(e -> { day[0] = day[0].minusDays(1); refresh.run(); });
+        next.addActionListener(e -> { day[0] = day[0].plusDays(1); refresh.run(); });
+        fromBox.addChangeListener(e -> refresh.run());
+        toBox.addChangeListener(e -> refresh.run());
+        listen(new CatalogListener() {
+            @Override public void screeningAdded(Screening sc) { SwingUtilities.invokeLater(refresh); }
+            @Override public void screeningsAdded(List<Screening> ss) { SwingUtilities.invokeLater(refresh); }
+            @Override public void screeningRemoved(Screening sc) { model.removed(sc); }
+            @Override public void movieChanged(Movie m) { SwingUtilities.invokeLater(refresh); }
+        });
+
+        JPanel bar = new JPanel(new FlowLayout(FlowLayout.LEFT)); bar.setBackground(COL_BACKGROUND);
+        bar.add(prev); bar.add(dayLabel); bar.add(next);
+        bar.add(new JLabel("  From (h):"){{setForeground(COL_TEXT_SEC);}}); bar.add(fromBox);
+        bar.add(new JLabel("To (h):"){{setForeground(COL_TEXT_SEC);}}); bar.add(toBox);
+
+        JButton bookBtn = createStyledButton("Book Tickets", COL_PRIMARY);
+        bookBtn.addActionListener(e -> {
+            Screening sc = db.getSchedule().get(selectedId(table, model));
+            if(sc != null) { showSeatSelection(sc); model.changed(sc); }
+        });
+        JPanel actions = new JPanel(new FlowLayout(FlowLayout.RIGHT)); actions.setBackground(COL_BACKGROUND); actions.add(bookBtn);
+
+        refresh.run();
+        panel.add(bar, BorderLayout.NORTH);
+        panel.add(new JScrollPane(table), BorderLayout.CENTER);
+        panel.add(actions, BorderLayout.SOUTH);
+        return panel;
+    }
+
+    private void showAddScreeningDialog(Movie m) {
+        JTextField date = createStyledField(), time = createStyledField(), length = createStyledField();
+        date.setText(LocalDate.now().toString());
+        time.setText(m.getShowtime() == null ? "20:00" : m.getShowtime());
+        length.setText(String.valueOf(Screening.DEFAULT_LENGTH.toMinutes()));
+        JComboBox<Hall> hBox = new JComboBox<>(db.getHalls().toArray(new Hall[0]));
+        if(m.getHall() != null) hBox.setSelectedItem(m.getHall());
+        Object[] msg = {"Date (yyyy-mm-dd):", date, "Start (HH:mm):", time, "Length (minutes):", length, "Hall:", hBox};
+        if(JOptionPane.showConfirmDialog(this, msg, "Schedule " + m.getTitle(), JOptionPane.OK_CANCEL_OPTION) != JOptionPane.OK_OPTION) return;
+        Screening sc;
+        try {
+            LocalDateTime start = LocalDate.parse(date.getText().trim()).atTime(LocalTime.parse(time.getText().trim()));
+            sc = new Screening(m, (Hall)hBox.getSelectedItem(), start, start.plusMinutes(Long.parseLong(length.getText().trim())));
+        } catch(Exception ex) { JOptionPane.showMessageDialog(this, "Invalid Input"); return; }
+        List<Screening> clashes = db.addScreening(sc);
+        if(clashes.isEmpty()) return;
+        // Rejected: say what is in the way and offer the hall's next free slot that week
+        Duration runtime = Duration.between(sc.getStart(), sc.getEnd());
+        LocalDateTime slot = db.getSchedule().firstFreeSlot(sc.getHall(), sc.getStart(), runtime, sc.getStart().plusDays(7));
+        StringBuilder busy = new StringBuilder(sc.getHall().getName() + " is busy (incl. " + ScreeningSchedule.TURNAROUND.toMinutes() + " min turnaround):\n");
+        for(Screening c : clashes) busy.append("  ").append(c).append('\n');
+        if(slot == null) { JOptionPane.showMessageDialog(this, busy + "No free slot in the next 7 days."); return; }
+        busy.append("\nSchedule at the first free slot, ").append(slot.format(Screening.DAY_TIME)).append("?");
+        if(JOptionPane.showConfirmDialog(this, busy.toString(), "Hall Conflict", JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION
+                && !db.addScreening(new Screening(m, sc.getHall(), slot, slot.plus(runtime))).isEmpty())
+            JOptionPane.showMessageDialog(this, "That slot was just taken; try again.");
+    }
+
+    private void showSeatSelection(Screening sc) {
         JDialog d = new JDialog(this, "Select Seats", true);
         d.setSize(700, 600); d.setLocationRelativeTo(this); d.setUndecorated(true);
         ((JPanel)d.getContentPane()).setBorder(new LineBorder(COL_PRIMARY, 2));
@@ -413,88 +747,97 @@ public class CompleteCinemaSystem extends JFrame {
         JLabel screen = new JLabel("SCREEN"); screen.setOpaque(true); screen.setBackground(Color.GRAY); screen.setHorizontalAlignment(0); screen.setPreferredSize(new Dimension(100, 30));
         main.add(screen, BorderLayout.NORTH);
 
-        JPanel grid = new JPanel(new GridLayout(0, 5, 10, 10)); grid.setBackground(COL_BACKGROUND);
-        List<String> selectedSeats = new ArrayList<>();
-        for(int i=1; i<=m.getHall().getCapacity(); i++) {
-            String sName = "S" + i;
-            JToggleButton btn = new JToggleButton(sName);
-            if(m.getBookedSeats().contains(sName)) {
-                btn.setEnabled(false); btn.setBackground(new Color(60, 0, 0));
-            } else {
-                btn.setBackground(new Color(40, 40, 40)); btn.setForeground(Color.WHITE);
-                btn.addActionListener(e -> {
-                    if(btn.isSelected()) { btn.setBackground(Color.GREEN); btn.setForeground(Color.BLACK); selectedSeats.add(sName); }
-                    else { btn.setBackground(new Color(40, 40, 40)); btn.setForeground(Color.WHITE); selectedSeats.remove(sName); }
-                });
-            }
-            grid.add(btn);
-        }
+        // One painted component for the whole hall instead of a button per seat
+        SeatMapView seatMap = new SeatMapView(sc.getSeats(), sc.getHall().getSeatsPerRow());
 
         JPanel bottom = new JPanel(new FlowLayout()); bottom.setBackground(COL_BACKGROUND);
+        JButton autoBtn = createStyledButton("Auto-pick", COL_ACCENT);
         JButton payBtn = createStyledButton("Checkout", COL_PRIMARY);
         JButton closeBtn = createStyledButton("Cancel", Color.GRAY);
+        autoBtn.addActionListener(e -> {
+            String n = JOptionPane.showInputDialog(d, "How many seats together?", "2");
+            if(n == null) return;
+            try {
+                List<String> best = sc.findBestSeats(Integer.parseInt(n.trim()));
+                if(best.isEmpty()) { JOptionPane.showMessageDialog(d, "No block of " + n.trim() + " seats together is free."); return; }
+                seatMap.setSelectedSeats(best);
+            } catch(NumberFormatException ex) { JOptionPane.showMessageDialog(d, "Invalid Input"); }
+        });
         payBtn.addActionListener(e -> {
-            if(selectedSeats.isEmpty()) JOptionPane.showMessageDialog(d, "Select seats!");
-            else { d.dispose(); showPayment(m, selectedSeats); }
+            List<String> selectedSeats = seatMap.getSelectedSeats();
+            if(selectedSeats.isEmpty()) { JOptionPane.showMessageDialog(d, "Select seats!"); return; }
+            // Hold the seats for the rest of checkout so nobody can buy them from under us
+            ReservationResult held = service.hold(sc, selectedSeats);
+            if(!held.isSuccess()) JOptionPane.showMessageDialog(d, "Sorry, already taken: " + String.join(", ", held.getTakenSeats()));
+            else { d.dispose(); showPayment(held.getHold()); }
         });
         closeBtn.addActionListener(e -> d.dispose());
-        bottom.add(payBtn); bottom.add(closeBtn);
-        main.add(new JScrollPane(grid), BorderLayout.CENTER); main.add(bottom, BorderLayout.SOUTH);
+        bottom.add(autoBtn); bottom.add(payBtn); bottom.add(closeBtn);
+        JScrollPane seatScroll = new JScrollPane(seatMap); seatScroll.getViewport().setBackground(COL_BACKGROUND);
+        main.add(seatScroll, BorderLayout.CENTER); main.add(bottom, BorderLayout.SOUTH);
         d.add(main); d.setVisible(true);
     }
 
-    private void showPayment(Movie m, List<String> seats) {
-        Ticket ticket = new MovieTicket(m);
-
-        JCheckBox pop = new JCheckBox("Popcorn ($8)"); pop.setBackground(COL_SURFACE); pop.setForeground(Color.WHITE);
-        JCheckBox soda = new JCheckBox("Soda ($4)"); soda.setBackground(COL_SURFACE); soda.setForeground(Color.WHITE);
-
-        Object[] msg = {"Unit Price: $" + ticket.getCost(), pop, soda};
-        int res = JOptionPane.showConfirmDialog(this, msg, "Add Snacks?", JOptionPane.OK_CANCEL_OPTION);
-
-        if(res == JOptionPane.OK_OPTION) {
-            if(pop.isSelected()) ticket = new Popcorn(ticket);
-            if(soda.isSelected()) ticket = new Soda(ticket);
-
-            double totalCost = ticket.getCost() * seats.size();
-
-            String[] opts = {"Credit Card", "Cash"};
-            int type = JOptionPane.showOptionDialog(this,
-                    "Tickets: " + seats.size() + "\n" +
-                            "Item: " + ticket.getDescription() + "\n" +
-                            "TOTAL: $" + totalCost,
-                    "Payment", 0, 1, null, opts, opts[0]);
-
-            PaymentStrategy ps = (type == 0) ? new CreditCardStrategy("1234") : new CashStrategy();
-            if(ps.pay(totalCost)) {
-                m.getBookedSeats().addAll(seats);
-
-                // --- FIXED REDUNDANT TITLE ---
-                String details = seats.size() + "x [" + ticket.getDescription() + "]";
-
-                if(currentUser instanceof Customer) {
-                    ((Customer)currentUser).bookings.add(details);
-                }
-
-                // ============================================================
-                //  TRIGGER OBSERVER PATTERN (Email + Logs)
-                // ============================================================
-                // This notifies the system that a booking happened so it can
-                // send emails and log revenue automatically.
-                db.notifyObservers(currentUser.username, m.getTitle());
-                // ============================================================
-
-                JOptionPane.showMessageDialog(this, "Booked Successfully!");
-            }
+    private void showPayment(SeatHold hold) {
+        Movie m = hold.getMovie();
+
+        // One checkbox per add-on on the price list
+        PriceTable prices = PriceTable.current();
+        List<Object> msg = new ArrayList<>();
+        msg.add("Unit Price: " + PricePlan.format(service.ticket(m, List.of()).getCostCents()));
+        Map<String, JCheckBox> boxes = new LinkedHashMap<>();
+        for(String a : prices.addOnNames()) {
+            JCheckBox box = new JCheckBox(a + " (" + PricePlan.format(prices.addOnCents(a)) + ")"); box.setBackground(COL_SURFACE); box.setForeground(Color.WHITE);
+            boxes.put(a, box); msg.add(box);
         }
+        int res = JOptionPane.showConfirmDialog(this, msg.toArray(), "Add Snacks?", JOptionPane.OK_CANCEL_OPTION);
+        if(res != JOptionPane.OK_OPTION) { service.cancel(hold); return; }
+
+        List<String> addOns = new ArrayList<>();
+        boxes.forEach((a, box) -> { if(box.isSelected()) addOns.add(a); });
+        PriceQuote quote = service.quote(hold, addOns);
+
+        String[] opts = {"Credit Card", "Cash"};
+        int type = JOptionPane.showOptionDialog(this, quote.toString(),
+                "Payment", 0, 1, null, opts, opts[0]);
+        if(type == JOptionPane.CLOSED_OPTION) { service.cancel(hold); return; }
+
+        // Payment, seat sale, journal and observers (Email + Logs) all happen in the
+        // service, off the EDT; the UI stays live while the gateway answers
+        PaymentStrategy ps = (type == 0) ? new CreditCardStrategy("1234") : new CashStrategy();
+        JDialog wait = new JDialog(this, "Payment", false);
+        JProgressBar bar = new JProgressBar(); bar.setIndeterminate(true); bar.setString("Authorizing payment..."); bar.setStringPainted(true);
+        wait.add(bar); wait.setSize(300, 60); wait.setLocationRelativeTo(this);
+        wait.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+        wait.setVisible(true);
+        service.bookAsync(currentUser, hold, addOns, ps).whenComplete((result, err) -> SwingUtilities.invokeLater(() -> {
+            wait.dispose();
+            if(err != null) { JOptionPane.showMessageDialog(this, "Booking failed: " + err.getMessage()); return; }
+            switch(result.getStatus()) {
+                case BOOKED: JOptionPane.showMessageDialog(this, "Booked Successfully!"); break;
+                case HOLD_EXPIRED: JOptionPane.showMessageDialog(this, "Your seat hold expired and the seats were sold to someone else. You have not been charged."); break;
+                case PAYMENT_DECLINED: JOptionPane.showMessageDialog(this, "Payment declined."); break;
+                case PAYMENT_FAILED: JOptionPane.showMessageDialog(this, "The payment service did not respond. You have not been charged; please try again."); break;
+                case NOT_SAVED: JOptionPane.showMessageDialog(this, "The booking could not be saved. You have not been charged and the seats were released."); break;
+                case DUPLICATE: JOptionPane.showMessageDialog(this, "This checkout is already being completed."); break;
+            }
+        }));
     }
 
-    private void showReviewDialog(Movie m, Runnable callback) {
+    private void showReviewDialog(Movie m) {
         JDialog d = new JDialog(this, "Reviews", true);
         d.setSize(500, 500); d.setLocationRelativeTo(this); d.setUndecorated(true);
         ((JPanel)d.getContentPane()).setBorder(new LineBorder(COL_ACCENT, 2));
         JPanel p = new JPanel(new BorderLayout(10,10)); p.setBackground(COL_BACKGROUND); p.setBorder(new EmptyBorder(15,15,15,15));
-        JTextArea area = new JTextArea(m.getReviewsSummary()); area.setEditable(false); area.setBackground(COL_SURFACE); area.setForeground(COL_TEXT_MAIN);
+        // Virtualized: only the visible rows are fetched, a page at a time
+        NewestFirstListModel<Review> reviews = new NewestFirstListModel<>(m.getReviewLog());
+        JList<Review> list = new JList<>(reviews);
+        list.setCellRenderer(new ReviewRenderer(COL_SURFACE, COL_PRIMARY.darker(), COL_TEXT_MAIN, COL_TEXT_SEC, FONT_BOLD));
+        list.setFixedCellHeight(48);
+        list.setBackground(COL_SURFACE);
+        JLabel empty = new JLabel("No reviews yet.", SwingConstants.CENTER); empty.setForeground(COL_TEXT_SEC);
+        JScrollPane scroll = new JScrollPane(m.getReviewLog().isEmpty() ? empty : list);
+        JLabel stats = new JLabel(ratingSummary(m)); stats.setForeground(COL_TEXT_SEC); stats.setFont(FONT_BOLD);
         JPanel input = new JPanel(new BorderLayout(5,5)); input.setBackground(COL_BACKGROUND);
         JTextField comment = createStyledField();
         JComboBox<String> rateBox = new JComboBox<>(new String[]{"5", "4", "3", "2", "1"});
@@ -504,13 +847,35 @@ public class CompleteCinemaSystem extends JFrame {
         JPanel btns = new JPanel(); btns.setBackground(COL_BACKGROUND); btns.add(post); btns.add(close);
         input.add(comment, BorderLayout.CENTER); input.add(rateBox, BorderLayout.EAST); input.add(btns, BorderLayout.SOUTH);
 
+        // New reviews (ours or anyone's) arrive as one row at the top
+        CatalogListener onReview = new CatalogListener() {
+            @Override public void reviewAdded(Movie rm, Review r) {
+                if(rm != m) return;
+                SwingUtilities.invokeLater(() -> {
+                    reviews.appended();
+                    scroll.setViewportView(list);
+                    stats.setText(ratingSummary(m));
+                });
+            }
+        };
+        db.addCatalogListener(onReview);
         post.addActionListener(e -> {
-            m.addReview(new Review(currentUser.username, comment.getText(), Double.parseDouble((String)rateBox.getSelectedItem())));
-            area.setText(m.getReviewsSummary()); callback.run();
+            service.review(currentUser, m, comment.getText(), Double.parseDouble((String)rateBox.getSelectedItem()));
+            comment.setText("");
+            SwingUtilities.invokeLater(() -> list.ensureIndexIsVisible(0)); // after the new row lands
         });
         close.addActionListener(e -> d.dispose());
-        p.add(new JScrollPane(area), BorderLayout.CENTER); p.add(input, BorderLayout.SOUTH);
+        p.add(stats, BorderLayout.NORTH); p.add(scroll, BorderLayout.CENTER); p.add(input, BorderLayout.SOUTH);
         d.add(p); d.setVisible(true);
+        db.removeCatalogListener(onReview);
+    }
+
+    // e.g. "4.3 / 5 from 12 reviews   5★ 7  4★ 3  3★ 1  2★ 1  1★ 0"
+    private String ratingSummary(Movie m) {
+        RatingStats r = m.getRatingStats();
+        StringBuilder sb = new StringBuilder(String.format("%.1f / 5 from %d reviews  ", r.getAverage(), r.getCount()));
+        for(int star = 5; star >= 1; star--) sb.append("  ").append(star).append("\u2605 ").append(r.getStarCount(star));
+        return sb.toString();
     }
 
     // ==========================================
@@ -523,12 +888,26 @@ public class CompleteCinemaSystem extends JFrame {
         JLabel l = new JLabel(titleText.toUpperCase()); l.setForeground(COL_PRIMARY); l.setFont(FONT_HEADER);
         JButton out = createStyledButton("Logout", new Color(60,60,60));
         out.setFont(new Font("Segoe UI", Font.BOLD, 12)); out.setBorder(new EmptyBorder(5, 15, 5, 15));
-        out.addActionListener(e -> cardLayout.show(mainPanel, "LOGIN"));
+        out.addActionListener(e -> logout(p));
         top.add(l, BorderLayout.WEST); top.add(out, BorderLayout.EAST);
         p.add(top, BorderLayout.NORTH); p.add(content, BorderLayout.CENTER);
         return p;
     }
 
+    // For the logged-in dashboard's lifetime; removed again on logout
+    private void listen(CatalogListener l) {
+        db.addCatalogListener(l);
+        onLogout.add(() -> db.removeCatalogListener(l));
+    }
+
+    private void logout(JPanel dashboard) {
+        for(Runnable r : onLogout) r.run();
+        onLogout.clear();
+        currentUser = null;
+        cardLayout.show(mainPanel, "LOGIN");
+        mainPanel.remove(dashboard);
+    }
+
     private JButton createStyledButton(String text, Color bg) {
         JButton btn = new JButton(text);
         btn.setFont(FONT_BOLD); btn.setBackground(bg); btn.setForeground(Color.WHITE);
@@ -557,6 +936,20 @@ public class CompleteCinemaSystem extends JFrame {
         return field;
     }
 
+    private JScrollPane facetScroll(FacetPanel facets) {
+        JScrollPane scroll = new JScrollPane(facets, ScrollPaneConstants.VERTICAL_SCROLLBAR_AS_NEEDED, ScrollPaneConstants.HORIZONTAL_SCROLLBAR_NEVER);
+        scroll.setBorder(null);
+        scroll.setPreferredSize(new Dimension(220, 0));
+        scroll.getVerticalScrollBar().setUnitIncrement(16);
+        return scroll;
+    }
+
+    // Id of the entity behind the selected row (wherever sorting has moved it), or null
+    private static String selectedId(JTable table, EntityTableModel<?> model) {
+        int r = table.getSelectedRow();
+        return r < 0 ? null : model.getRowId(table.convertRowIndexToModel(r));
+    }
+
     private void styleTable(JTable table) {
         table.setRowHeight(35); table.setFont(FONT_PLAIN); table.setShowVerticalLines(false);
         table.setBackground(COL_SURFACE); table.setForeground(COL_TEXT_MAIN);
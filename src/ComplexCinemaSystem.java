@@ -7,21 +7,51 @@ import java.util.*;
 import java.util.List;
 import java.text.SimpleDateFormat;
 import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.function.Consumer;
+import java.time.LocalDate;
 
 // ==========================================
 // 1. PATTERN: STRATEGY (Payment)
 // ==========================================
+// pay() is the original synchronous call. Checkout uses the asynchronous
+// two-phase form: authorize() holds the money under an idempotency key, then
+// capture() takes it or release() gives it back. A strategy that only has
+// pay() settles inside authorize() and has nothing to capture or release.
 interface PaymentStrategy {
     boolean pay(double amount);
+
+    default CompletableFuture<PaymentAuthorization> authorize(String idempotencyKey, long cents) {
+        return CompletableFuture.completedFuture(pay(cents / 100.0)
+                ? PaymentAuthorization.approved(idempotencyKey, cents, "settled")
+                : PaymentAuthorization.declined(idempotencyKey, cents, "Declined"));
+    }
+    default CompletableFuture<Void> capture(PaymentAuthorization auth) { return CompletableFuture.completedFuture(null); }
+    default CompletableFuture<Void> release(PaymentAuthorization auth) { return CompletableFuture.completedFuture(null); }
 }
 
-class CreditCardStrategy implements PaymentStrategy {
+// Goes through the card gateway with its own concurrency limit and timeout
+class CreditCardStrategy extends GatewayPaymentStrategy {
     private String cardNumber;
-    public CreditCardStrategy(String cardNumber) { this.cardNumber = cardNumber; }
-    @Override public boolean pay(double amount) { return cardNumber.length() > 3; } // Simple validation
+    public CreditCardStrategy(String cardNumber) {
+        this(cardNumber, PaymentGateways.CARDS, PaymentGateways.CARD_LIMIT, PaymentGateways.CARD_TIMEOUT_MILLIS);
+    }
+    CreditCardStrategy(String cardNumber, PaymentGateway gateway, PaymentLimiter limiter, long timeoutMillis) {
+        super(gateway, limiter, timeoutMillis);
+        this.cardNumber = cardNumber;
+    }
+    @Override protected String account() { return cardNumber; }
+    @Override protected String rejectReason() { return cardNumber.length() > 3 ? null : "Invalid card number"; } // Simple validation
     @Override public String toString() { return "Credit Card"; }
 }
 
+// Paid at the till: settled at once, nothing remote to wait for or limit
 class CashStrategy implements PaymentStrategy {
     @Override public boolean pay(double amount) { return true; }
     @Override public String toString() { return "Cash"; }
@@ -34,6 +64,7 @@ class Review {
     String user;
     String comment;
     double rating;
+    long stamp; // CinemaData's review count when it was posted; 0 when restored (see CinemaStore.writeState)
 
     public Review(String user, String comment, double rating) {
         this.user = user;
@@ -42,34 +73,76 @@ class Review {
     }
 }
 
+// Immutable running aggregate of a movie's reviews. Movie swaps in a new one
+// per review with a CAS, so readers always see count, sum and histogram agree.
+final class RatingStats {
+    static final RatingStats EMPTY = new RatingStats(0, 0, new long[5]);
+    // Bayesian prior: a new film is treated as PRIOR_WEIGHT votes of PRIOR_MEAN
+    static final double PRIOR_MEAN = 3.0;
+    static final int PRIOR_WEIGHT = 10;
+
+    private final long count;
+    private final double sum;
+    private final long[] stars; // stars[0] = 1 star ... stars[4] = 5 stars
+
+    private RatingStats(long count, double sum, long[] stars) { this.count = count; this.sum = sum; this.stars = stars; }
+
+    RatingStats plus(double rating) {
+        long[] h = stars.clone();
+        h[(int) Math.max(1, Math.min(5, Math.round(rating))) - 1]++;
+        return new RatingStats(count + 1, sum + rating, h);
+    }
+
+    public long getCount() { return count; }
+    public double getAverage() { return count == 0 ? 0.0 : sum / count; }
+    public double getBayesianAverage() { return (PRIOR_MEAN * PRIOR_WEIGHT + sum) / (PRIOR_WEIGHT + count); }
+    public long getStarCount(int star) { return stars[star - 1]; }
+    public long[] getHistogram() { return stars.clone(); }
+}
+
 class Hall {
+    public static final int DEFAULT_SEATS_PER_ROW = 5;
+
+    private String id;
     private String name;
     private int capacity;
-    public Hall(String name, int capacity) {
+    private int seatsPerRow;
+    public Hall(String name, int capacity) { this(name, capacity, DEFAULT_SEATS_PER_ROW); }
+    public Hall(String name, int capacity, int seatsPerRow) { this(UUID.randomUUID().toString(), name, capacity, seatsPerRow); }
+    // Used when restoring a hall from the journal/snapshot
+    Hall(String id, String name, int capacity, int seatsPerRow) {
+        if (seatsPerRow < 1 || seatsPerRow > 64) throw new IllegalArgumentException("Seats per row must be 1..64");
+        this.id = id;
         this.name = name;
         this.capacity = capacity;
+        this.seatsPerRow = seatsPerRow;
     }
+    public String getId() { return id; }
     public String getName() { return name; }
     public int getCapacity() { return capacity; }
+    public int getSeatsPerRow() { return seatsPerRow; }
     public void setCapacity(int c) { this.capacity = c; }
     @Override public String toString() { return name + " (" + capacity + " seats)"; }
 }
 
 class Movie {
+    static final int SUMMARY_REVIEWS = 20;
+
     private String id;
-    private String title;
+    private volatile String title; // read without locks by browse and search threads
     private String genre;
     private String language;
     private double price;
     private String showtime;
     private Hall assignedHall;
-    private boolean isActive;
-    private List<String> bookedSeats;
-    private List<Review> reviews;
+    private volatile boolean isActive;
+    private final AppendLog<Review> reviews = new AppendLog<>();
+    private final AtomicReference<RatingStats> ratings = new AtomicReference<>(RatingStats.EMPTY);
+    private MovieOwner owner = MovieOwner.NONE; // set by CinemaData to journal changes and keep its indexes current
 
     // Builder Pattern
     private Movie(MovieBuilder builder) {
-        this.id = UUID.randomUUID().toString();
+        this.id = builder.id != null ? builder.id : UUID.randomUUID().toString();
         this.title = builder.title;
         this.genre = builder.genre;
         this.language = builder.language;
@@ -77,36 +150,57 @@ class Movie {
         this.showtime = builder.showtime;
         this.assignedHall = builder.hall;
         this.isActive = true;
-        this.bookedSeats = new ArrayList<>();
-        this.reviews = new ArrayList<>();
     }
 
     // Getters & Setters for Edit Functionality
+    public String getId() { return id; }
     public String getTitle() { return title; }
-    public void setTitle(String t) { this.title = t; }
+    public void setTitle(String t) { owner.setTitle(this, t); }
     public String getGenre() { return genre; }
     public String getLanguage() { return language; }
     public double getPrice() { return price; }
     public String getShowtime() { return showtime; }
     public Hall getHall() { return assignedHall; }
     public boolean isActive() { return isActive; }
-    public void setActive(boolean active) { this.isActive = active; }
-    public List<String> getBookedSeats() { return bookedSeats; }
+    public void setActive(boolean active) { owner.setActive(this, active); }
 
     // Review Logic
-    public void addReview(Review r) { reviews.add(r); }
-    public double getAverageRating() {
-        if (reviews.isEmpty()) return 0.0;
-        return reviews.stream().mapToDouble(r -> r.rating).average().orElse(0.0);
-    }
+    public void addReview(Review r) { owner.addReview(this, r); }
+    // O(1): read from the running aggregate rather than the review list
+    public double getAverageRating() { return ratings.get().getAverage(); }
+    public double getBayesianRating() { return ratings.get().getBayesianAverage(); }
+    public RatingStats getRatingStats() { return ratings.get(); }
+    // Newest reviews page by page; the GUI's review list reads it lazily
+    public AppendLog<Review> getReviewLog() { return reviews; }
+    // Text of the newest few reviews only, however many there are
     public String getReviewsSummary() {
         if(reviews.isEmpty()) return "No reviews yet.";
         StringBuilder sb = new StringBuilder();
-        for(Review r : reviews) sb.append(r.user).append(": ").append(r.comment).append("\n");
+        for(Review r : reviews.newestFirst(0, SUMMARY_REVIEWS)) sb.append(r.user).append(": ").append(r.comment).append("\n");
+        int more = reviews.size() - SUMMARY_REVIEWS;
+        if(more > 0) sb.append("... and ").append(more).append(" older reviews\n");
         return sb.toString();
     }
 
+    // Raw mutations; the public setters go through the owner, which calls these
+    void applyTitle(String t) { this.title = t; }
+    void applyActive(boolean active) { this.isActive = active; }
+    void applyReview(Review r) {
+        reviews.append(r);
+        ratings.getAndUpdate(s -> s.plus(r.rating));
+    }
+    void setOwner(MovieOwner o) { this.owner = o == null ? MovieOwner.NONE : o; }
+
+    // Lets CinemaData wrap every change to a catalogued movie (journal, search index, table events)
+    interface MovieOwner {
+        MovieOwner NONE = new MovieOwner() {};
+        default void setTitle(Movie m, String t) { m.applyTitle(t); }
+        default void setActive(Movie m, boolean active) { m.applyActive(active); }
+        default void addReview(Movie m, Review r) { m.applyReview(r); }
+    }
+
     public static class MovieBuilder {
+        private String id;
         private String title;
         private String genre;
         private String language;
@@ -120,6 +214,7 @@ class Movie {
         public MovieBuilder setPrice(double p) { this.price = p; return this; }
         public MovieBuilder setShowtime(String s) { this.showtime = s; return this; }
         public MovieBuilder setHall(Hall h) { this.hall = h; return this; }
+        MovieBuilder setId(String id) { this.id = id; return this; } // restore only
         public Movie build() { return new Movie(this); }
     }
 }
@@ -129,28 +224,118 @@ class Movie {
 // ==========================================
 class CinemaData {
     private static CinemaData instance;
-    private List<User> users = new ArrayList<>();
-    private List<Movie> movies = new ArrayList<>();
-    private List<Hall> halls = new ArrayList<>();
+    // Username -> User; putIfAbsent makes duplicate registration impossible
+    private Map<String, User> users = new ConcurrentHashMap<>();
+    // Catalogue records (from the mapped catalogue file, created on first access) + runtime additions
+    private final CatalogueFile catalogue;
+    private final CatalogueList<Movie> movies;
+    private final CatalogueList<Hall> halls;
+    // Id -> entity, so the GUI and replay find what a row or record names in
+    // O(1): runtime additions are put on add, catalogue records when their
+    // loader first creates them (getMovie falls back to the file's id index for
+    // records not touched yet). Users are keyed by username above.
+    private final Map<String, Movie> moviesById = new ConcurrentHashMap<>();
+    private final Map<String, Hall> hallsById = new ConcurrentHashMap<>();
+    private volatile boolean catalogueIndexed; // search index covers the catalogue movies
+
+    // --- NEW: Observers (delivered asynchronously, see BookingDispatcher) ---
+    private final BookingDispatcher dispatcher = new BookingDispatcher();
+    private List<CatalogListener> catalogListeners = new CopyOnWriteArrayList<>();
+
+    // Timed seat holds between seat selection and payment
+    private final SeatHoldManager holds = new SeatHoldManager();
+
+    // Live revenue totals, fed by RevenueLogger
+    private final RevenueAggregator revenue = new RevenueAggregator();
+
+    // Inverted n-gram index behind the customer "Filter" box
+    private final MovieSearchIndex searchIndex = new MovieSearchIndex();
+    // Facet bitmaps behind the genre/language/hall/price/status checkboxes
+    private final FacetIndex facets = new FacetIndex();
+
+    // Every screening, ordered by start time (also per hall and per movie)
+    private final ScreeningSchedule schedule = new ScreeningSchedule();
+    private final BookingIndex bookings = new BookingIndex();
+    // Captures the gateway has not taken yet, by idempotency key (see CaptureRetrier)
+    private final Map<String, PaymentAuthorization> pendingCaptures = new ConcurrentHashMap<>();
+    private final CaptureRetrier captures = new CaptureRetrier(this);
+
+    // Persistence: mutations hold the read lock while they apply and journal, so a
+    // snapshot (write lock) always sees state and journal position that agree
+    private final ReentrantReadWriteLock stateLock = new ReentrantReadWriteLock();
+    private CinemaStore store; // null while recovering or when persistence is off
+    // Counts reviews as they are posted; a snapshot reads it to tell which ones precede it
+    private final AtomicLong reviewStamps = new AtomicLong();
+    // The latest storage problem (journal write or snapshot error), null if none
+    private volatile Throwable storageFailure;
+    private final List<Consumer<Throwable>> storageFailureListeners = new CopyOnWriteArrayList<>();
+
+    private final Movie.MovieOwner movieOwner = new Movie.MovieOwner() {
+        @Override public void setTitle(Movie m, String t) {
+            mutate(() -> { m.applyTitle(t); journal(s -> s.movieState(m)); });
+            movieChanged(m);
+        }
+        @Override public void setActive(Movie m, boolean active) {
+            mutate(() -> { m.applyActive(active); journal(s -> s.movieState(m)); });
+            movieChanged(m);
+        }
+        @Override public void addReview(Movie m, Review r) {
+            mutate(() -> { r.stamp = reviewStamps.incrementAndGet(); m.applyReview(r); journal(s -> s.review(m, r)); });
+            for(CatalogListener l : catalogListeners) l.reviewAdded(m, r);
+            movieChanged(m);
+        }
+    };
+
+    private CinemaData() { this(CatalogueFile.openDefault(), CinemaStore.openDefault()); }
+
+    // getInstance opens the configured files; tests open their own (either may be null)
+    CinemaData(CatalogueFile catalogue, CinemaStore s) {
+        // Only maps the file: cold start does not depend on the catalogue size
+        this.catalogue = catalogue;
+        halls = catalogue == null ? CatalogueList.empty() : new CatalogueList<>(catalogue.hallCount(), i -> {
+            Hall h = catalogue.hall(i);
+            hallsById.put(h.getId(), h);
+            return h;
+        });
+        movies = catalogue == null ? CatalogueList.empty() : new CatalogueList<>(catalogue.movieCount(), i -> {
+            Movie m = catalogue.movie(i);
+            m.setOwner(movieOwner);
+            moviesById.put(m.getId(), m);
+            return m;
+        });
+        catalogueIndexed = catalogue == null;
+
+        boolean seeded = s == null || !s.recover(this);
+        if (seeded) seed();
+        // Journal only from here on, so replay above is not written back
+        this.store = s;
+        if (s != null) s.start(this, seeded);
+        captures.resume();
 
-    // --- NEW: Observer List ---
-    private List<BookingObserver> observers = new ArrayList<>();
+        // --- NEW: Register Observers automatically ---
+        addObserver(new EmailService());
+        addObserver(new RevenueLogger(revenue));
+    }
 
-    private CinemaData() {
+    private void seed() {
         // Seed Data
-        users.add(UserFactory.create("admin","admin","123"));
-        users.add(UserFactory.create("customer","user","123"));
+        register(UserFactory.create("admin","admin","123"));
+        register(UserFactory.create("customer","user","123"));
 
+        if (catalogue != null) return;
         Hall h1 = new Hall("Hall A", 20);
         Hall h2 = new Hall("IMAX Hall", 50);
-        halls.add(h1); halls.add(h2);
-
-        movies.add(new Movie.MovieBuilder("Inception").setGenre("Sci-Fi").setLanguage("English").setPrice(12).setShowtime("18:00").setHall(h1).build());
-        movies.add(new Movie.MovieBuilder("Parasite").setGenre("Thriller").setLanguage("Korean").setPrice(10).setShowtime("20:00").setHall(h2).build());
-
-        // --- NEW: Register Observers automatically ---
-        addObserver(new EmailService());
-        addObserver(new RevenueLogger());
+        addHall(h1); addHall(h2);
+
+        Movie inception = new Movie.MovieBuilder("Inception").setGenre("Sci-Fi").setLanguage("English").setPrice(12).setShowtime("18:00").setHall(h1).build();
+        Movie parasite = new Movie.MovieBuilder("Parasite").setGenre("Thriller").setLanguage("Korean").setPrice(10).setShowtime("20:00").setHall(h2).build();
+        addMovie(inception); addMovie(parasite);
+        // A week of each at the listed showtime
+        LocalDate today = LocalDate.now();
+        for (int d = 0; d < 7; d++) {
+            addScreening(Screening.listed(inception, today.plusDays(d)));
+            addScreening(Screening.listed(parasite, today.plusDays(d)));
+        }
     }
 
     public static CinemaData getInstance() {
@@ -159,24 +344,238 @@ class CinemaData {
     }
 
     // --- NEW: Observer Methods ---
-    public void addObserver(BookingObserver o) { observers.add(o); }
+    public void addObserver(BookingObserver o) { dispatcher.register(o); }
+    public void addObserver(BookingObserver o, BookingDispatcher.BackPressure policy, int capacity, int batchSize) {
+        dispatcher.register(o, policy, capacity, batchSize);
+    }
 
+    // Only enqueues; observers run on their own workers, never on the caller's (EDT) thread
     public void notifyObservers(String user, String title) {
-        for(BookingObserver o : observers) {
-            o.onBookingSuccess(user, title);
-        }
+        dispatcher.publish(new BookingEvent(user, title));
     }
+    public void notifyObservers(BookingEvent e) { dispatcher.publish(e); }
+    public RevenueAggregator getRevenue() { return revenue; }
+    public BookingDispatcher getDispatcher() { return dispatcher; }
 
     public User login(String u, String p) {
-        return users.stream().filter(user -> user.username.equals(u) && user.verify(p)).findFirst().orElse(null);
+        User user = u == null ? null : users.get(u);
+        return user != null && user.verify(p) ? user : null;
+    }
+
+    public void addMovie(Movie m) { addMovies(List.of(m)); }
+    // The whole batch becomes visible to readers at once, as one catalogue version
+    public void addMovies(Collection<Movie> batch) {
+        mutate(() -> {
+            for (Movie m : batch) {
+                moviesById.put(m.getId(), m);
+                searchIndex.add(m);
+                facets.add(m);
+                m.setOwner(movieOwner);
+                journal(s -> s.addMovie(m));
+            }
+            movies.addAll(batch);
+        });
+        List<Movie> added = List.copyOf(batch);
+        for(CatalogListener l : catalogListeners) l.moviesAdded(added);
+    }
+    // Admin actions name the movie by id, which stays valid however the admin's
+    // table is sorted or filtered and whatever else changed meanwhile; false if
+    // the movie is gone
+    public boolean removeMovie(String id) {
+        Movie m = getMovie(id);
+        return m != null && removeMovie(m);
+    }
+    public boolean setMovieActive(String id, boolean active) {
+        Movie m = getMovie(id);
+        if (m == null) return false;
+        m.setActive(active);
+        return true;
+    }
+    // null if there is no such movie (any more)
+    public Movie getMovie(String id) {
+        Movie m = id == null ? null : moviesById.get(id);
+        if (m != null || id == null || catalogue == null) return m;
+        return movies.base(catalogue.indexOfMovie(id)); // a record nobody has loaded yet
+    }
+    public Hall getHall(String id) {
+        Hall h = id == null ? null : hallsById.get(id);
+        if (h != null || id == null || catalogue == null) return h;
+        return halls.base(catalogue.indexOfHall(id));
+    }
+    // Its screenings go with it (replay does the same, so they need no journal record)
+    public boolean removeMovie(Movie m) {
+        List<Screening> dropped = new ArrayList<>();
+        boolean removed = mutate(() -> {
+            if (!movies.remove(m)) return false;
+            moviesById.remove(m.getId(), m);
+            m.setOwner(null);
+            searchIndex.remove(m);
+            facets.remove(m);
+            for (Screening sc : schedule.allForMovie(m)) if (schedule.remove(sc)) dropped.add(sc);
+            journal(s -> s.removeMovie(m));
+            return true;
+        });
+        if (!removed) return false;
+        for(CatalogListener l : catalogListeners) {
+            for (Screening sc : dropped) l.screeningRemoved(sc);
+            l.movieRemoved(m);
+        }
+        return true;
+    }
+    private void movieChanged(Movie m) {
+        searchIndex.update(m);
+        facets.update(m);
+        for(CatalogListener l : catalogListeners) l.movieChanged(m);
+    }
+    // Matching movies, best first; an empty query returns the whole catalogue
+    public List<Movie> searchMovies(String query) {
+        if (!catalogueIndexed) indexCatalogue();
+        return searchIndex.searchMovies(query);
+    }
+    // Movies matching the ticked facet values, with the count per value
+    public FacetResult facetQuery(FacetSelection selection) {
+        if (!catalogueIndexed) indexCatalogue();
+        return facets.query(selection);
+    }
+    // Deferred to the first search so startup never walks the catalogue
+    private synchronized void indexCatalogue() {
+        if (catalogueIndexed) return;
+        for (int i = 0; i < catalogue.movieCount(); i++) {
+            Movie m = movies.base(i);
+            if (m != null) { searchIndex.add(m); facets.add(m); }
+        }
+        catalogueIndexed = true;
+    }
+    // Snapshots of one catalogue version: taking one never locks, and it does not
+    // change under its reader while admins edit; ask again for newer contents
+    public List<Movie> getMovies() { return movies.snapshot(); }
+    public List<Hall> getHalls() { return halls.snapshot(); }
+    CatalogueFile getCatalogue() { return catalogue; }
+    CatalogueList<Movie> movieList() { return movies; }
+    CatalogueList<Hall> hallList() { return halls; }
+    public void addHall(Hall h) {
+        mutate(() -> { hallsById.put(h.getId(), h); halls.add(h); journal(s -> s.addHall(h)); });
+        for(CatalogListener l : catalogListeners) l.hallAdded(h);
+    }
+    // Rejected if it overlaps another screening in the hall (turnaround
+    // included); returns the clashing screenings, empty when it was added
+    public List<Screening> addScreening(Screening sc) {
+        List<Screening> clashes = mutate(() -> {
+            List<Screening> c = schedule.tryAdd(sc);
+            if (c.isEmpty()) journal(s -> s.addScreening(sc));
+            return c;
+        });
+        if (clashes.isEmpty()) for(CatalogListener l : catalogListeners) l.screeningAdded(sc);
+        return clashes;
+    }
+    // addScreening for a whole batch (an import) under one lock, with one
+    // listener event for those that went in. Returns, per position in the
+    // batch, the screenings that kept it out (empty when it was added).
+    public List<List<Screening>> addScreenings(List<Screening> batch) {
+        List<Screening> added = new ArrayList<>(batch.size());
+        List<List<Screening>> clashes = mutate(() -> {
+            List<List<Screening>> out = new ArrayList<>(batch.size());
+            for (Screening sc : batch) {
+                List<Screening> c = schedule.tryAdd(sc);
+                if (c.isEmpty()) { journal(s -> s.addScreening(sc)); added.add(sc); }
+                out.add(c);
+            }
+            return out;
+        });
+        if (!added.isEmpty()) for(CatalogListener l : catalogListeners) l.screeningsAdded(added);
+        return clashes;
+    }
+    // Completes once every change made so far is on disk (at once when
+    // persistence is off); lets bulk writers keep the journal queue short
+    public CompletableFuture<Void> flushJournal() {
+        CinemaStore s = store;
+        return s == null ? CompletableFuture.completedFuture(null) : s.sync();
+    }
+    // Bracket a bulk import (see CinemaStore.holdSnapshots)
+    public void holdSnapshots() { CinemaStore s = store; if (s != null) s.holdSnapshots(); }
+    public void releaseSnapshots() { CinemaStore s = store; if (s != null) s.releaseSnapshots(); }
+    // The GUI warns the user through this; a listener added after a failure
+    // hears of the latest one at once
+    public void addStorageFailureListener(Consumer<Throwable> l) {
+        storageFailureListeners.add(l);
+        Throwable f = storageFailure;
+        if (f != null) l.accept(f);
+    }
+    public Throwable getStorageFailure() { return storageFailure; }
+    void storageFailed(Throwable cause) {
+        storageFailure = cause;
+        for (Consumer<Throwable> l : storageFailureListeners) l.accept(cause);
+    }
+    public ScreeningSchedule getSchedule() { return schedule; }
+    public BookingIndex getBookings() { return bookings; }
+    public void addCatalogListener(CatalogListener l) { catalogListeners.add(l); }
+    public void removeCatalogListener(CatalogListener l) { catalogListeners.remove(l); }
+    // Returns false if the username is already taken
+    public boolean register(User u) {
+        return mutate(() -> {
+            if (users.putIfAbsent(u.username, u) != null) return false;
+            journal(s -> s.register(u));
+            return true;
+        });
+    }
+    public User findUser(String username) { return users.get(username); }
+    public int getUserCount() { return users.size(); }
+    Collection<User> allUsers() { return users.values(); }
+    public SeatHoldManager getHolds() { return holds; }
+
+    // Records a paid booking whose seats are already committed in the screening's engine.
+    // Returns once the journal entry is on disk (group-committed with other bookings).
+    public void recordBooking(User u, Booking b) {
+        recordBookingAsync(u, b).join();
+    }
+
+    // Completes once the booking is on disk (at once when persistence is off).
+    // Only then is it added to the customer's bookings and the index, so a
+    // journal batch that fails after the record was queued leaves nothing
+    // behind. The add runs on the journal writer as the record completes,
+    // before any record queued after it (a snapshot's rotation included) does.
+    public CompletableFuture<Void> recordBookingAsync(User u, Booking b) {
+        return mutate(() -> {
+            CinemaStore s = store;
+            if (s == null) { bookings.add(u, b); return CompletableFuture.completedFuture((Void) null); }
+            return s.booking(b).thenRun(() -> bookings.add(u, b));
+        });
+    }
+
+    // --- Payment captures still owed (CaptureRetrier) ---
+    public CaptureRetrier getCaptures() { return captures; }
+    public Collection<PaymentAuthorization> getPendingCaptures() { return pendingCaptures.values(); }
+
+    public void captureDeferred(PaymentAuthorization a) {
+        mutate(() -> { if (pendingCaptures.putIfAbsent(a.getKey(), a) == null) journal(s -> s.captureDeferred(a)); });
     }
 
-    public void addMovie(Movie m) { movies.add(m); }
-    public void removeMovie(Movie m) { movies.remove(m); }
-    public List<Movie> getMovies() { return movies; }
-    public List<Hall> getHalls() { return halls; }
-    public void addHall(Hall h) { halls.add(h); }
-    public void register(User u) { users.add(u); }
+    public void captureSettled(String key) {
+        mutate(() -> { if (pendingCaptures.remove(key) != null) journal(s -> s.captureSettled(key)); });
+    }
+
+    // --- Persistence helpers ---
+    private void mutate(Runnable change) { mutate(() -> { change.run(); return null; }); }
+
+    private <T> T mutate(Supplier<T> change) {
+        stateLock.readLock().lock();
+        try { return change.get(); }
+        finally { stateLock.readLock().unlock(); }
+    }
+
+    private void journal(Consumer<CinemaStore> write) {
+        CinemaStore s = store;
+        if (s != null) write.accept(s);
+    }
+
+    long reviewStamp() { return reviewStamps.get(); }
+
+    // Runs with every mutation paused; used to capture snapshots
+    <T> T exclusive(Supplier<T> read) {
+        stateLock.writeLock().lock();
+        try { return read.get(); }
+        finally { stateLock.writeLock().unlock(); }
+    }
 }
 
 // ==========================================
@@ -184,15 +583,22 @@ class CinemaData {
 // ==========================================
 abstract class User {
     protected String username;
-    protected String password;
-    public User(String u, String p) { this.username = u; this.password = p; }
-    public boolean verify(String p) { return password.equals(p); }
+    protected String passwordHash; // salted, see PasswordHasher
+    public User(String u, String p) { this.username = u; this.passwordHash = PasswordHasher.hash(p); }
+    // Restores a user from an already hashed password (journal/snapshot replay)
+    protected User(String u, String hash, boolean hashed) { this.username = u; this.passwordHash = hash; }
+    public boolean verify(String p) { return PasswordHasher.verify(p, passwordHash); }
     public abstract String getRole();
 }
-class Admin extends User { public Admin(String u, String p) { super(u, p); } @Override public String getRole() { return "ADMIN"; } }
+class Admin extends User {
+    public Admin(String u, String p) { super(u, p); }
+    Admin(String u, String hash, boolean hashed) { super(u, hash, hashed); }
+    @Override public String getRole() { return "ADMIN"; }
+}
 class Customer extends User {
-    List<String> bookings = new ArrayList<>();
+    final AppendLog<Booking> bookings = new AppendLog<>(); // oldest first; BookingIndex appends
     public Customer(String u, String p) { super(u, p); }
+    Customer(String u, String hash, boolean hashed) { super(u, hash, hashed); }
     @Override public String getRole() { return "CUSTOMER"; }
 }
 
@@ -206,15 +612,26 @@ class UserFactory {
             default: throw new IllegalArgumentException("Invalid role");
         }
     }
+
+    static User restore(String role, String u, String passwordHash) {
+        switch (role.toUpperCase()) {
+            case "ADMIN": return new Admin(u, passwordHash, true);
+            case "CUSTOMER": return new Customer(u, passwordHash, true);
+            default: throw new IllegalArgumentException("Invalid role");
+        }
+    }
 }
 
 
 
 
 // 1. Base Component Interface
+// The decorators are the original API; prices come from PriceTable in cents,
+// and PricingEngine compiles the same result into a flat PricePlan.
 interface Ticket {
     String getDescription();
     double getCost();
+    default long getCostCents() { return PricePlan.cents(getCost()); }
 }
 
 // 2. Concrete Component (The basic movie ticket)
@@ -230,9 +647,14 @@ class MovieTicket implements Ticket {
         return "Ticket: " + movie.getTitle();
     }
 
+    @Override
+    public long getCostCents() {
+        return PricePlan.cents(movie.getPrice());
+    }
+
     @Override
     public double getCost() {
-        return movie.getPrice();
+        return getCostCents() / 100.0;
     }
 }
 
@@ -248,30 +670,34 @@ abstract class TicketDecorator implements Ticket {
         return tempTicket.getDescription();
     }
 
+    public long getCostCents() {
+        return tempTicket.getCostCents();
+    }
+
     public double getCost() {
-        return tempTicket.getCost();
+        return getCostCents() / 100.0;
     }
 }
 
-// 4. Concrete Decorators (Add-ons)
+// 4. Concrete Decorators (Add-ons), priced from the current PriceTable
 class Popcorn extends TicketDecorator {
     public Popcorn(Ticket ticket) { super(ticket); }
 
     @Override
-    public String getDescription() { return tempTicket.getDescription() + ", Popcorn"; }
+    public String getDescription() { return tempTicket.getDescription() + ", " + PriceTable.POPCORN; }
 
     @Override
-    public double getCost() { return tempTicket.getCost() + 8.0; } // Popcorn costs 8
+    public long getCostCents() { return tempTicket.getCostCents() + PriceTable.current().addOnCents(PriceTable.POPCORN); }
 }
 
 class Soda extends TicketDecorator {
     public Soda(Ticket ticket) { super(ticket); }
 
     @Override
-    public String getDescription() { return tempTicket.getDescription() + ", Soda"; }
+    public String getDescription() { return tempTicket.getDescription() + ", " + PriceTable.SODA; }
 
     @Override
-    public double getCost() { return tempTicket.getCost() + 4.0; } // Soda costs 4
+    public long getCostCents() { return tempTicket.getCostCents() + PriceTable.current().addOnCents(PriceTable.SODA); }
 }
 
 
@@ -281,9 +707,53 @@ class Soda extends TicketDecorator {
 // 5. PATTERN: OBSERVER (Notifications)
 // ==========================================
 
+// One successful booking, as handed to observers
+class BookingEvent {
+    final String username;
+    final String movieTitle;
+    final String hallName;
+    final String paymentMethod;
+    final int seats;
+    final long amountCents; // total charged, all seats and add-ons
+    final List<String> addOns;
+    final long timestamp;
+
+    public BookingEvent(String username, String movieTitle) { this(username, movieTitle, null, null, 0, 0, List.of()); }
+
+    public BookingEvent(String username, String movieTitle, String hallName, String paymentMethod, int seats, long amountCents, List<String> addOns) {
+        this.username = username;
+        this.movieTitle = movieTitle;
+        this.hallName = hallName;
+        this.paymentMethod = paymentMethod;
+        this.seats = seats;
+        this.amountCents = amountCents;
+        this.addOns = List.copyOf(addOns);
+        this.timestamp = System.currentTimeMillis();
+    }
+}
+
 // The Listener Interface
 interface BookingObserver {
     void onBookingSuccess(String username, String movieTitle);
+
+    // Observers get events in batches; override to handle a whole batch at once
+    default void onBookingBatch(List<BookingEvent> events) {
+        for(BookingEvent e : events) onBookingSuccess(e.username, e.movieTitle);
+    }
+}
+
+// Catalogue changes (movies/halls added, removed or edited), used by the live table models
+interface CatalogListener {
+    default void movieAdded(Movie m) {}
+    // A batch (addMovies, an import); override to handle it as one change
+    default void moviesAdded(List<Movie> ms) { for (Movie m : ms) movieAdded(m); }
+    default void movieRemoved(Movie m) {}
+    default void movieChanged(Movie m) {}
+    default void hallAdded(Hall h) {}
+    default void screeningAdded(Screening s) {}
+    default void screeningsAdded(List<Screening> ss) { for (Screening s : ss) screeningAdded(s); }
+    default void screeningRemoved(Screening s) {}
+    default void reviewAdded(Movie m, Review r) {}
 }
 
 // Observer 1: Simulates sending an email
@@ -295,11 +765,25 @@ class EmailService implements BookingObserver {
 }
 
 // Observer 2: Simulates logging for the admin
+// Feeds every sale into the RevenueAggregator behind the admin "Revenue" tab
 class RevenueLogger implements BookingObserver {
+    private final RevenueAggregator revenue;
+
+    public RevenueLogger() { this(new RevenueAggregator()); }
+    public RevenueLogger(RevenueAggregator revenue) { this.revenue = revenue; }
+
     @Override
     public void onBookingSuccess(String username, String movieTitle) {
         System.out.println("💰 [ADMIN LOG] New Sale recorded for '" + movieTitle + "'");
     }
+
+    @Override
+    public void onBookingBatch(List<BookingEvent> events) {
+        for(BookingEvent e : events) {
+            revenue.record(e);
+            System.out.println("💰 [ADMIN LOG] New Sale recorded for '" + e.movieTitle + "' " + RevenueSnapshot.dollars(e.amountCents));
+        }
+    }
 }
 
 
@@ -0,0 +1,162 @@
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+// ==========================================
+// LIVE TABLE MODEL (replaces DefaultTableModel rebuilds)
+// ==========================================
+// Rows are references to the live Movie/Hall objects, kept in a filtered view
+// with an id -> row index. Selection handlers take the row's id and look the
+// entity up again in CinemaData, so an action always names one entity
+// (two movies may share a title) and never a stale copy of it. Cells are read on demand when JTable paints
+// them, so nothing is copied into Object[] rows. CinemaData's CatalogListener
+// events become single-row insert/update/delete events; calls from other
+// threads are handed over to the EDT.
+// A whole catalogue is shown paged instead (setSource): rows are read by index
+// from a snapshot list as JTable paints them, so opening a dashboard decodes
+// only the catalogue records on screen.
+class EntityTableModel<T> extends AbstractTableModel {
+    static final class Column<T> {
+        final String name;
+        final Class<?> type;
+        final Function<T, Object> value;
+        Column(String name, Class<?> type, Function<T, Object> value) { this.name = name; this.type = type; this.value = value; }
+    }
+
+    private final List<Column<T>> columns;
+    private final Function<T, String> idOf;
+    private final List<T> rows = new ArrayList<>();
+    private final Map<String, Integer> rowOf = new HashMap<>();
+    private Predicate<T> filter;
+    private Supplier<? extends List<? extends T>> source; // non-null while paged
+    private List<? extends T> pinned;                     // the source as of the last event
+
+    EntityTableModel(List<Column<T>> columns, Function<T, String> idOf, Predicate<T> filter) {
+        this.columns = columns;
+        this.idOf = idOf;
+        this.filter = filter;
+    }
+
+    static <T> Column<T> column(String name, Class<?> type, Function<T, Object> value) { return new Column<>(name, type, value); }
+
+    // --- TableModel ---
+    @Override public int getRowCount() { return pinned != null ? pinned.size() : rows.size(); }
+    @Override public int getColumnCount() { return columns.size(); }
+    @Override public String getColumnName(int c) { return columns.get(c).name; }
+    @Override public Class<?> getColumnClass(int c) { return columns.get(c).type; }
+    @Override public Object getValueAt(int r, int c) { return columns.get(c).value.apply(row(r)); }
+
+    public T getRow(int r) { return r >= 0 && r < getRowCount() ? row(r) : null; }
+    public String getRowId(int r) { return r >= 0 && r < getRowCount() ? idOf.apply(row(r)) : null; }
+
+    private T row(int r) { return pinned != null ? pinned.get(r) : rows.get(r); }
+
+    // --- View maintenance ---
+    // Replaces the view in the given order (e.g. ranked search hits) with one table event.
+    public void setRows(Collection<? extends T> source, Predicate<T> newFilter) {
+        onEdt(() -> {
+            filter = newFilter;
+            this.source = null; pinned = null;
+            rows.clear(); rowOf.clear();
+            for (T t : source) {
+                String id = idOf.apply(t);
+                if (filter.test(t) && !rowOf.containsKey(id)) { rowOf.put(id, rows.size()); rows.add(t); }
+            }
+            fireTableDataChanged();
+        });
+    }
+
+    // Shows all of the source, unfiltered and without walking it. The supplier
+    // hands out a snapshot (CinemaData.getMovies()), pinned again on each event;
+    // the source must add at the end, as CatalogueList does.
+    public void setSource(Supplier<? extends List<? extends T>> newSource) {
+        onEdt(() -> {
+            if (newSource == source) return; // already shown: keep the selection
+            filter = t -> true;
+            source = newSource; pinned = newSource.get();
+            rows.clear(); rowOf.clear();
+            fireTableDataChanged();
+        });
+    }
+
+    public void added(T t) {
+        onEdt(() -> {
+            if (pinned != null) { repin(1, null); return; }
+            String id = idOf.apply(t);
+            if (rowOf.containsKey(id) || !filter.test(t)) return;
+            int r = rows.size();
+            rows.add(t); rowOf.put(id, r);
+            fireTableRowsInserted(r, r);
+        });
+    }
+
+    // A batch of additions as one insert event
+    public void addedAll(Collection<? extends T> ts) {
+        onEdt(() -> {
+            if (pinned != null) { repin(ts.size(), null); return; }
+            int first = rows.size();
+            for (T t : ts) {
+                String id = idOf.apply(t);
+                if (!rowOf.containsKey(id) && filter.test(t)) { rowOf.put(id, rows.size()); rows.add(t); }
+            }
+            if (rows.size() > first) fireTableRowsInserted(first, rows.size() - 1);
+        });
+    }
+
+    public void removed(T t) { onEdt(() -> { if (pinned != null) repin(0, t); else removeRow(t); }); }
+
+    // Updates the row in place, or inserts/deletes it if the change moved it across the filter.
+    public void changed(T t) {
+        onEdt(() -> {
+            if (pinned != null) {
+                int r = pinned.indexOf(t);
+                if (r >= 0) fireTableRowsUpdated(r, r);
+                return;
+            }
+            Integer r = indexOf(t);
+            boolean visible = filter.test(t);
+            if (r == null) { if (visible) added(t); }
+            else if (!visible) removeRow(t);
+            else fireTableRowsUpdated(r, r);
+        });
+    }
+
+    public void changedAll(Collection<? extends T> ts) { onEdt(() -> { for (T t : ts) changed(t); }); }
+
+    // Removes in place, so the rows keep their order (search hits stay ranked).
+    // Finding the row is O(1); only the rows after it are shifted and re-indexed.
+    private void removeRow(T t) {
+        Integer r = indexOf(t);
+        if (r == null) return;
+        rowOf.remove(idOf.apply(t));
+        rows.remove((int) r);
+        for (int i = r; i < rows.size(); i++) rowOf.put(idOf.apply(rows.get(i)), i);
+        fireTableRowsDeleted(r, r);
+    }
+
+    private Integer indexOf(T t) { return rowOf.get(idOf.apply(t)); }
+
+    // Paged: one precise event when the fresh snapshot differs from the last by
+    // this change alone, else a full refresh (still cheap: rows are read lazily).
+    // The removed row is looked up in the snapshot that still has it.
+    private void repin(int inserted, T removedRow) {
+        List<? extends T> before = pinned;
+        pinned = source.get();
+        int r = removedRow == null ? -1 : before.indexOf(removedRow);
+        if (pinned.size() != before.size() + inserted - (r >= 0 ? 1 : 0)) fireTableDataChanged();
+        else if (r >= 0) fireTableRowsDeleted(r, r);
+        else if (inserted > 0) fireTableRowsInserted(before.size(), pinned.size() - 1);
+    }
+
+    private static void onEdt(Runnable r) {
+        if (SwingUtilities.isEventDispatchThread()) r.run();
+        else SwingUtilities.invokeLater(r);
+    }
+}
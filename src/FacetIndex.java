@@ -0,0 +1,262 @@
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// ==========================================
+// FACETED FILTERING (bitmap index)
+// ==========================================
+// Every movie gets a dense ordinal, and every facet value (genre "Drama",
+// hall "IMAX Hall", price band, ...) a RoaringBitmap of the ordinals that
+// have it. A query ORs the ticked values within a facet and ANDs the facets;
+// the count next to each checkbox is a popcount of that value's bitmap against
+// the other facets' selections, so ticking a genre narrows the language counts
+// but not the other genres'. No movie is looked at to answer either.
+enum Facet {
+    GENRE("Genre"), LANGUAGE("Language"), HALL("Hall"), PRICE("Price"), STATUS("Status");
+
+    static final String ACTIVE = "Now showing", INACTIVE = "Not showing";
+    private static final long[] PRICE_BANDS = {800, 1200, 1600}; // cents; upper bounds (exclusive)
+
+    final String label;
+    Facet(String label) { this.label = label; }
+
+    String valueOf(Movie m) {
+        switch (this) {
+            case GENRE: return orUnknown(m.getGenre());
+            case LANGUAGE: return orUnknown(m.getLanguage());
+            case HALL: return m.getHall() == null ? "Unknown" : m.getHall().getName();
+            case PRICE: return priceBand(PricePlan.cents(m.getPrice()));
+            default: return m.isActive() ? ACTIVE : INACTIVE;
+        }
+    }
+
+    // "Under $8.00", "$8.00 - $12.00", ..., "$16.00 and up"
+    static String priceBand(long cents) {
+        int i = 0;
+        while (i < PRICE_BANDS.length && cents >= PRICE_BANDS[i]) i++;
+        return bandLabel(i);
+    }
+
+    private static String bandLabel(int i) {
+        if (i == 0) return "Under " + PricePlan.format(PRICE_BANDS[0]);
+        if (i == PRICE_BANDS.length) return PricePlan.format(PRICE_BANDS[i - 1]) + " and up";
+        return PricePlan.format(PRICE_BANDS[i - 1]) + " - " + PricePlan.format(PRICE_BANDS[i]);
+    }
+
+    // Display order of values: price bands cheapest first, the rest alphabetical
+    Comparator<String> order() {
+        if (this != PRICE) return Comparator.naturalOrder();
+        List<String> bands = new ArrayList<>();
+        for (int i = 0; i <= PRICE_BANDS.length; i++) bands.add(bandLabel(i));
+        return Comparator.comparingInt(bands::indexOf);
+    }
+
+    private static String orUnknown(String s) { return s == null || s.isBlank() ? "Unknown" : s; }
+}
+
+// Ticked values per facet; a facet with nothing ticked does not filter. Immutable.
+final class FacetSelection {
+    static final FacetSelection NONE = new FacetSelection(new EnumMap<>(Facet.class));
+
+    private final EnumMap<Facet, Set<String>> ticked;
+
+    private FacetSelection(EnumMap<Facet, Set<String>> ticked) { this.ticked = ticked; }
+
+    public FacetSelection with(Facet f, String value, boolean on) {
+        EnumMap<Facet, Set<String>> next = new EnumMap<>(Facet.class);
+        next.putAll(ticked);
+        Set<String> values = new TreeSet<>(ticked.getOrDefault(f, Set.of()));
+        if (on) values.add(value); else values.remove(value);
+        if (values.isEmpty()) next.remove(f); else next.put(f, Collections.unmodifiableSet(values));
+        return new FacetSelection(next);
+    }
+
+    public Set<String> get(Facet f) { return ticked.getOrDefault(f, Set.of()); }
+    public boolean isTicked(Facet f, String value) { return get(f).contains(value); }
+    Set<Facet> facets() { return ticked.keySet(); }
+
+    // The same test as the bitmaps, for one movie (incremental table updates)
+    public boolean test(Movie m) {
+        for (Map.Entry<Facet, Set<String>> e : ticked.entrySet()) if (!e.getValue().contains(e.getKey().valueOf(m))) return false;
+        return true;
+    }
+}
+
+class FacetIndex {
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> ordinals = new HashMap<>(); // movie id -> ordinal
+    private Movie[] movies = new Movie[1024];
+    private int[] free = new int[16]; // ordinals of removed movies, reused first
+    private int freeCount, next;
+    private final RoaringBitmap all = new RoaringBitmap();
+    private final EnumMap<Facet, Values> facets = new EnumMap<>(Facet.class);
+
+    // One facet's values: a bitmap per value, plus each ordinal's value as a
+    // small int so a facet with many values (halls) can be counted in one pass
+    // over the matches instead of one intersection per value
+    private static final class Values {
+        final TreeMap<String, RoaringBitmap> bitmaps;  // live values, display order
+        final Map<String, Integer> ids = new HashMap<>();
+        final List<String> names = new ArrayList<>(); // id -> value; ids are never reused
+        int[] column = new int[1024];                 // ordinal -> id + 1, 0 when not indexed
+
+        Values(Facet f) { bitmaps = new TreeMap<>(f.order()); }
+
+        int id(String value) {
+            return ids.computeIfAbsent(value, v -> { names.add(v); return names.size() - 1; });
+        }
+    }
+
+    FacetIndex() {
+        for (Facet f : Facet.values()) facets.put(f, new Values(f));
+    }
+
+    public void add(Movie m) {
+        lock.writeLock().lock();
+        try {
+            Integer known = ordinals.get(m.getId());
+            if (known != null) { reindex(known, m); return; }
+            int ord = freeCount > 0 ? free[--freeCount] : next++;
+            if (ord == movies.length) {
+                movies = Arrays.copyOf(movies, ord * 2);
+                for (Values v : facets.values()) v.column = Arrays.copyOf(v.column, ord * 2);
+            }
+            ordinals.put(m.getId(), ord);
+            movies[ord] = m;
+            all.add(ord);
+            reindex(ord, m);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Re-reads the movie's facet values (after it was toggled or edited)
+    public void update(Movie m) {
+        lock.writeLock().lock();
+        try {
+            Integer ord = ordinals.get(m.getId());
+            if (ord != null) reindex(ord, m);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Movie m) {
+        lock.writeLock().lock();
+        try {
+            Integer ord = ordinals.remove(m.getId());
+            if (ord == null) return;
+            for (Values v : facets.values()) unset(v, ord);
+            all.remove(ord);
+            movies[ord] = null;
+            if (freeCount == free.length) free = Arrays.copyOf(free, freeCount * 2);
+            free[freeCount++] = ord;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try { return ordinals.size(); } finally { lock.readLock().unlock(); }
+    }
+
+    public FacetResult query(FacetSelection selection) {
+        lock.readLock().lock();
+        try {
+            // OR within each filtering facet
+            EnumMap<Facet, RoaringBitmap> unions = new EnumMap<>(Facet.class);
+            for (Facet f : selection.facets()) {
+                RoaringBitmap u = new RoaringBitmap();
+                for (String v : selection.get(f)) {
+                    RoaringBitmap b = facets.get(f).bitmaps.get(v);
+                    if (b != null) u = u.or(b);
+                }
+                unions.put(f, u);
+            }
+            RoaringBitmap selected = intersect(unions, null);
+            // Each facet's counts ignore that facet's own ticks
+            EnumMap<Facet, Map<String, Integer>> counts = new EnumMap<>(Facet.class);
+            RoaringBitmap probe = null; // dense copy of `selected`, made once if any facet needs it
+            for (Facet f : Facet.values()) {
+                RoaringBitmap others = unions.containsKey(f) ? intersect(unions, f) : selected;
+                Values values = facets.get(f);
+                Map<String, Integer> c = new LinkedHashMap<>();
+                if (others == all) {
+                    for (Map.Entry<String, RoaringBitmap> e : values.bitmaps.entrySet()) c.put(e.getKey(), e.getValue().cardinality());
+                } else if (others.cardinality() < probeCost(values)) {
+                    int[] tally = new int[values.names.size() + 1];
+                    others.countBy(values.column, tally);
+                    for (String v : values.bitmaps.keySet()) c.put(v, tally[values.ids.get(v) + 1]);
+                } else {
+                    RoaringBitmap dense = others != selected ? others.dense() : probe != null ? probe : (probe = selected.dense());
+                    for (Map.Entry<String, RoaringBitmap> e : values.bitmaps.entrySet()) c.put(e.getKey(), dense.andCardinality(e.getValue()));
+                }
+                counts.put(f, c);
+            }
+            // Ordinals are reused once a movie is removed, so they are turned
+            // into movies here, under the lock, and never after it
+            List<Movie> matches = new ArrayList<>(selected.cardinality());
+            selected.forEach(o -> matches.add(movies[o]));
+            return new FacetResult(selection, Collections.unmodifiableList(matches), counts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // AND of all facet unions except `skip`; `all` itself when there are none
+    private RoaringBitmap intersect(EnumMap<Facet, RoaringBitmap> unions, Facet skip) {
+        RoaringBitmap out = all;
+        for (Map.Entry<Facet, RoaringBitmap> e : unions.entrySet()) {
+            if (e.getKey() != skip) out = out.and(e.getValue());
+        }
+        return out;
+    }
+
+    // Steps to popcount every value of a facet against a dense bitmap, to
+    // compare with tallying the matches one by one
+    private static int probeCost(Values values) {
+        int cost = 0;
+        for (RoaringBitmap b : values.bitmaps.values()) cost += b.probeCost();
+        return cost;
+    }
+
+    private void reindex(int ord, Movie m) {
+        for (Facet f : Facet.values()) {
+            Values v = facets.get(f);
+            int now = v.id(f.valueOf(m)) + 1;
+            if (v.column[ord] == now) continue;
+            unset(v, ord);
+            v.bitmaps.computeIfAbsent(v.names.get(now - 1), k -> new RoaringBitmap()).add(ord);
+            v.column[ord] = now;
+        }
+    }
+
+    private void unset(Values v, int ord) {
+        int was = v.column[ord];
+        if (was == 0) return;
+        v.column[ord] = 0;
+        String value = v.names.get(was - 1);
+        RoaringBitmap b = v.bitmaps.get(value);
+        if (b == null) return;
+        b.remove(ord);
+        if (b.isEmpty()) v.bitmaps.remove(value);
+    }
+}
+
+// The movies matching a selection (in ordinal order), and the count per
+// value of every facet, as of the query. Immutable.
+final class FacetResult {
+    private final FacetSelection selection;
+    private final List<Movie> movies;
+    private final EnumMap<Facet, Map<String, Integer>> counts;
+
+    FacetResult(FacetSelection selection, List<Movie> movies, EnumMap<Facet, Map<String, Integer>> counts) {
+        this.selection = selection; this.movies = movies; this.counts = counts;
+    }
+
+    public FacetSelection getSelection() { return selection; }
+    public int size() { return movies.size(); }
+    // Value -> count, in the facet's display order
+    public Map<String, Integer> counts(Facet f) { return counts.get(f); }
+    public List<Movie> movies() { return movies; }
+}
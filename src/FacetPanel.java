@@ -0,0 +1,119 @@
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+// ==========================================
+// FACET CHECKBOXES (storefront-style filter)
+// ==========================================
+// One group of checkboxes per facet, each labelled with its live count
+// ("Drama (1,204)"). Values with no matches stay listed, greyed out, unless
+// ticked. Queries run off the EDT. Only the newest selection's result is
+// shown, and the owner hears about it (and about the first result, which a
+// table can fill from) through the change callback. Refreshes
+// after catalogue events are coalesced. Everything except refreshLater() is
+// EDT only.
+class FacetPanel extends JPanel {
+    private final List<Facet> shown;
+    private final Function<FacetSelection, FacetResult> query;
+    private final Color text, secondary;
+    private final Font bold, plain;
+    private final Map<Facet, JPanel> groups = new EnumMap<>(Facet.class);
+    private final Map<Facet, Map<String, JCheckBox>> boxes = new EnumMap<>(Facet.class);
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+    private FacetSelection selection; // starts as the fixed part (e.g. only movies now showing)
+    private FacetResult result;        // null until the first query returns
+    private Runnable onChange = () -> {};
+
+    FacetPanel(List<Facet> shown, FacetSelection fixed, Function<FacetSelection, FacetResult> query,
+               Color background, Color text, Color secondary, Font bold, Font plain) {
+        this.shown = shown; this.selection = fixed; this.query = query;
+        this.text = text; this.secondary = secondary; this.bold = bold; this.plain = plain;
+        setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
+        setBackground(background);
+        setBorder(new EmptyBorder(0, 0, 0, 10));
+        for (Facet f : shown) {
+            JPanel g = new JPanel();
+            g.setLayout(new BoxLayout(g, BoxLayout.Y_AXIS));
+            g.setBackground(background);
+            g.setAlignmentX(LEFT_ALIGNMENT);
+            groups.put(f, g);
+            boxes.put(f, new LinkedHashMap<>());
+            add(g);
+        }
+        run(selection, true); // the callback is set before the result reaches the EDT
+    }
+
+    // Called with the first result, then with each new one after the user ticks or unticks a value
+    void setOnChange(Runnable r) { onChange = r; }
+    FacetSelection getSelection() { return selection; }
+    FacetResult getResult() { return result; }
+    boolean isFiltering() { return shown.stream().anyMatch(f -> !selection.get(f).isEmpty()); }
+
+    // Re-counts for the current selection; safe from any thread, and a burst of
+    // calls costs one query
+    void refreshLater() {
+        if (!refreshPending.compareAndSet(false, true)) return;
+        SwingUtilities.invokeLater(() -> {
+            refreshPending.set(false);
+            run(selection, false);
+        });
+    }
+
+    private void toggled(Facet f, String value, boolean on) {
+        selection = selection.with(f, value, on);
+        run(selection, true);
+    }
+
+    private void run(FacetSelection sel, boolean notify) {
+        CompletableFuture.supplyAsync(() -> query.apply(sel)).thenAccept(r -> SwingUtilities.invokeLater(() -> {
+            if (sel != selection) return; // superseded by a newer tick
+            result = r;
+            render();
+            if (notify) onChange.run();
+        }));
+    }
+
+    private void render() {
+        for (Facet f : shown) {
+            Map<String, Integer> counts = result.counts(f);
+            Map<String, JCheckBox> mine = boxes.get(f);
+            Set<String> values = new LinkedHashSet<>(counts.keySet());
+            values.addAll(selection.get(f)); // a ticked value stays even at zero
+            if (!mine.keySet().equals(values)) rebuild(f, values);
+            for (Map.Entry<String, JCheckBox> e : mine.entrySet()) {
+                int n = counts.getOrDefault(e.getKey(), 0);
+                JCheckBox box = e.getValue();
+                box.setText(e.getKey() + " (" + String.format("%,d", n) + ")");
+                box.setSelected(selection.isTicked(f, e.getKey()));
+                box.setEnabled(n > 0 || box.isSelected());
+            }
+        }
+        revalidate();
+        repaint();
+    }
+
+    private void rebuild(Facet f, Set<String> values) {
+        JPanel g = groups.get(f);
+        Map<String, JCheckBox> mine = boxes.get(f);
+        g.removeAll();
+        mine.clear();
+        JLabel title = new JLabel(f.label);
+        title.setForeground(text); title.setFont(bold);
+        title.setBorder(new EmptyBorder(10, 0, 4, 0));
+        g.add(title);
+        for (String v : values) {
+            JCheckBox box = new JCheckBox(v);
+            box.setOpaque(false); box.setForeground(secondary); box.setFont(plain);
+            box.setFocusPainted(false);
+            // Only user clicks toggle; render() sets the state without firing this
+            box.addActionListener(e -> toggled(f, v, box.isSelected()));
+            mine.put(v, box);
+            g.add(box);
+        }
+    }
+}
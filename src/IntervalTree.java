@@ -0,0 +1,167 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// ==========================================
+// INTERVAL TREE (half-open [lo, hi) ranges)
+// ==========================================
+// An AVL tree ordered by lo (ties broken by the value comparator) where every
+// node also keeps the largest hi in its subtree. A query skips any subtree that
+// ends at or before its start, so "does anything overlap [lo, hi)?" is O(log n)
+// and listing all k overlaps is O(log n + k). Not thread-safe; callers lock.
+class IntervalTree<T> {
+    private static final class Node<T> {
+        final long lo, hi;
+        final T value;
+        long maxHi;
+        int height = 1;
+        Node<T> left, right;
+        Node(long lo, long hi, T value) { this.lo = lo; this.hi = hi; this.value = value; this.maxHi = hi; }
+    }
+
+    private final Comparator<? super T> tieBreak;
+    private Node<T> root;
+    private int size;
+
+    IntervalTree(Comparator<? super T> tieBreak) { this.tieBreak = tieBreak; }
+
+    public int size() { return size; }
+
+    public void add(long lo, long hi, T value) {
+        if (hi <= lo) throw new IllegalArgumentException("Empty interval [" + lo + ", " + hi + ")");
+        root = insert(root, new Node<>(lo, hi, value));
+        size++;
+    }
+
+    // lo must be the value's lo when it was added
+    public boolean remove(long lo, T value) {
+        int before = size;
+        root = delete(root, lo, value);
+        return size < before;
+    }
+
+    // Any one value overlapping [lo, hi), or null
+    public T anyOverlap(long lo, long hi) {
+        Node<T> n = root;
+        while (n != null) {
+            if (n.lo < hi && lo < n.hi) return n.value;
+            // Only the left side can hold an overlap if it reaches past lo
+            n = n.left != null && n.left.maxHi > lo ? n.left : n.lo < hi ? n.right : null;
+        }
+        return null;
+    }
+
+    // Every value overlapping [lo, hi), in lo order
+    public List<T> overlaps(long lo, long hi) {
+        List<T> out = new ArrayList<>();
+        collect(root, lo, hi, out);
+        return out;
+    }
+
+    // Earliest t >= from with [t, t + length) overlapping nothing and ending by
+    // until, or Long.MIN_VALUE if there is none. Each step jumps past every
+    // interval blocking the current candidate.
+    public long firstGap(long from, long length, long until) {
+        long t = from;
+        while (t + length <= until) {
+            List<T> blocking = new ArrayList<>();
+            long next = collectEnd(root, t, t + length, blocking);
+            if (blocking.isEmpty()) return t;
+            t = next;
+        }
+        return Long.MIN_VALUE;
+    }
+
+    private void collect(Node<T> n, long lo, long hi, List<T> out) {
+        if (n == null || n.maxHi <= lo) return;
+        collect(n.left, lo, hi, out);
+        if (n.lo < hi && lo < n.hi) out.add(n.value);
+        if (n.lo < hi) collect(n.right, lo, hi, out);
+    }
+
+    // Like collect, returning the latest hi among the overlaps
+    private long collectEnd(Node<T> n, long lo, long hi, List<T> out) {
+        if (n == null || n.maxHi <= lo) return Long.MIN_VALUE;
+        long end = collectEnd(n.left, lo, hi, out);
+        if (n.lo < hi && lo < n.hi) { out.add(n.value); end = Math.max(end, n.hi); }
+        if (n.lo < hi) end = Math.max(end, collectEnd(n.right, lo, hi, out));
+        return end;
+    }
+
+    // --- AVL maintenance ---
+    private int compare(long lo, T value, Node<T> n) {
+        int c = Long.compare(lo, n.lo);
+        return c != 0 ? c : tieBreak.compare(value, n.value);
+    }
+
+    private Node<T> insert(Node<T> n, Node<T> add) {
+        if (n == null) return add;
+        if (compare(add.lo, add.value, n) < 0) n.left = insert(n.left, add);
+        else n.right = insert(n.right, add);
+        return balance(n);
+    }
+
+    private Node<T> delete(Node<T> n, long lo, T value) {
+        if (n == null) return null;
+        int c = compare(lo, value, n);
+        if (c < 0) n.left = delete(n.left, lo, value);
+        else if (c > 0) n.right = delete(n.right, lo, value);
+        else {
+            size--;
+            if (n.left == null) return n.right;
+            if (n.right == null) return n.left;
+            Node<T> min = n.right;
+            while (min.left != null) min = min.left;
+            min.right = removeMin(n.right);
+            min.left = n.left;
+            n = min;
+        }
+        return balance(n);
+    }
+
+    private Node<T> removeMin(Node<T> n) {
+        if (n.left == null) return n.right;
+        n.left = removeMin(n.left);
+        return balance(n);
+    }
+
+    private static int height(Node<?> n) { return n == null ? 0 : n.height; }
+
+    private static <T> void update(Node<T> n) {
+        n.height = 1 + Math.max(height(n.left), height(n.right));
+        long m = n.hi;
+        if (n.left != null) m = Math.max(m, n.left.maxHi);
+        if (n.right != null) m = Math.max(m, n.right.maxHi);
+        n.maxHi = m;
+    }
+
+    private static <T> Node<T> balance(Node<T> n) {
+        update(n);
+        int skew = height(n.left) - height(n.right);
+        if (skew > 1) {
+            if (height(n.left.left) < height(n.left.right)) n.left = rotateLeft(n.left);
+            return rotateRight(n);
+        }
+        if (skew < -1) {
+            if (height(n.right.right) < height(n.right.left)) n.right = rotateRight(n.right);
+            return rotateLeft(n);
+        }
+        return n;
+    }
+
+    private static <T> Node<T> rotateRight(Node<T> n) {
+        Node<T> l = n.left;
+        n.left = l.right;
+        l.right = n;
+        update(n); update(l);
+        return l;
+    }
+
+    private static <T> Node<T> rotateLeft(Node<T> n) {
+        Node<T> r = n.right;
+        n.right = r.left;
+        r.left = n;
+        update(n); update(r);
+        return r;
+    }
+}
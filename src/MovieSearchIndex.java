@@ -0,0 +1,123 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// ==========================================
+// MOVIE SEARCH INDEX (n-gram inverted index)
+// ==========================================
+// Every 1-, 2- and 3-character gram of a movie's title, genre and language
+// points to the ids of the movies containing it. A query of up to three
+// characters is a single posting lookup; a longer one intersects the postings
+// of its trigrams (smallest first) and checks the few survivors with
+// contains(), so typing never touches movies that cannot match.
+class MovieSearchIndex {
+    private static final int MAX_GRAM = 3;
+
+    // Lower-cased copy of the searchable fields, so updates can remove old grams
+    private static final class Doc {
+        final Movie movie;
+        final String title, genre, language;
+        Doc(Movie m) {
+            this.movie = m;
+            this.title = norm(m.getTitle());
+            this.genre = norm(m.getGenre());
+            this.language = norm(m.getLanguage());
+        }
+        Set<String> grams() {
+            Set<String> g = new HashSet<>();
+            addGrams(title, g); addGrams(genre, g); addGrams(language, g);
+            return g;
+        }
+    }
+
+    private final Map<String, Doc> docs = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> postings = new ConcurrentHashMap<>();
+
+    public synchronized void add(Movie m) {
+        Doc d = new Doc(m);
+        Doc old = docs.put(m.getId(), d);
+        if (old != null) unlink(m.getId(), old);
+        for (String g : d.grams()) postings.computeIfAbsent(g, k -> ConcurrentHashMap.newKeySet()).add(m.getId());
+    }
+
+    public void update(Movie m) { add(m); }
+
+    public synchronized void remove(Movie m) {
+        Doc old = docs.remove(m.getId());
+        if (old != null) unlink(m.getId(), old);
+    }
+
+    public int size() { return docs.size(); }
+
+    // Ids of matching movies, best match first. An empty query matches everything.
+    public List<String> search(String query) {
+        String q = norm(query);
+        List<Doc> hits = new ArrayList<>();
+        if (q.isEmpty()) hits.addAll(docs.values());
+        else {
+            for (String id : candidates(q)) {
+                Doc d = docs.get(id);
+                if (d != null && score(d, q) > 0) hits.add(d);
+            }
+        }
+        hits.sort(Comparator.comparingInt((Doc d) -> -score(d, q)).thenComparing(d -> d.title));
+        List<String> ids = new ArrayList<>(hits.size());
+        for (Doc d : hits) ids.add(d.movie.getId());
+        return ids;
+    }
+
+    public List<Movie> searchMovies(String query) {
+        List<Movie> out = new ArrayList<>();
+        for (String id : search(query)) {
+            Doc d = docs.get(id);
+            if (d != null) out.add(d.movie);
+        }
+        return out;
+    }
+
+    private Set<String> candidates(String q) {
+        if (q.length() <= MAX_GRAM) return postings.getOrDefault(q, Set.of());
+        List<Set<String>> lists = new ArrayList<>();
+        for (int i = 0; i + MAX_GRAM <= q.length(); i++) {
+            Set<String> p = postings.get(q.substring(i, i + MAX_GRAM));
+            if (p == null) return Set.of();
+            lists.add(p);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+        Set<String> out = new HashSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !out.isEmpty(); i++) out.retainAll(lists.get(i));
+        return out;
+    }
+
+    // Title matches outrank genre, which outranks language; prefixes outrank infixes.
+    private static int score(Doc d, String q) {
+        if (q.isEmpty()) return 0;
+        int s = 0;
+        if (d.title.startsWith(q)) s += 8; else if (d.title.contains(q)) s += 4;
+        if (d.genre.contains(q)) s += 2;
+        if (d.language.contains(q)) s += 1;
+        return s;
+    }
+
+    private void unlink(String id, Doc old) {
+        for (String g : old.grams()) {
+            Set<String> p = postings.get(g);
+            if (p != null) {
+                p.remove(id);
+                if (p.isEmpty()) postings.remove(g, p);
+            }
+        }
+    }
+
+    private static void addGrams(String s, Set<String> out) {
+        for (int n = 1; n <= MAX_GRAM; n++)
+            for (int i = 0; i + n <= s.length(); i++) out.add(s.substring(i, i + n));
+    }
+
+    private static String norm(String s) { return s == null ? "" : s.trim().toLowerCase(Locale.ROOT); }
+}
@@ -0,0 +1,107 @@
+import javax.swing.*;
+import javax.swing.border.CompoundBorder;
+import javax.swing.border.EmptyBorder;
+import javax.swing.border.MatteBorder;
+import java.awt.*;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// ==========================================
+// NEWEST-FIRST LIST (virtualized)
+// ==========================================
+// A ListModel over an AppendLog (a movie's reviews, a customer's bookings).
+// With a fixed cell height, JList only asks for the rows in view, and the
+// model fetches those a page at a time and keeps a few recent pages, so a log
+// of a million items opens as fast as one of ten. Row 0 is the newest item.
+// New items are one intervalAdded at the top; the rows below only shift, so
+// nothing already fetched is re-read.
+class NewestFirstListModel<T> extends AbstractListModel<T> {
+    static final int PAGE = 100;
+    private static final int CACHED_PAGES = 16;
+
+    private final AppendLog<T> log;
+    private int size; // EDT only; may trail log.size() until appended() runs
+    // Pages by position in the log (oldest first), so they stay valid as rows shift
+    private final Map<Integer, List<T>> pages = new LinkedHashMap<Integer, List<T>>(CACHED_PAGES, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> e) { return size() > CACHED_PAGES; }
+    };
+
+    NewestFirstListModel(AppendLog<T> log) {
+        this.log = log;
+        this.size = log.size();
+    }
+
+    @Override public int getSize() { return size; }
+
+    @Override public T getElementAt(int row) {
+        int index = size - 1 - row;
+        int page = index / PAGE;
+        List<T> p = pages.get(page);
+        if (p == null || p.size() <= index % PAGE) {
+            p = log.range(page * PAGE, page * PAGE + PAGE);
+            pages.put(page, p);
+        }
+        return p.get(index % PAGE);
+    }
+
+    // Call on the EDT after items were appended to the log
+    void appended() {
+        int now = log.size();
+        if (now <= size) return;
+        int added = now - size;
+        size = now;
+        fireIntervalAdded(this, 0, added - 1);
+    }
+}
+
+// Two-line review cell (stars and author, then the comment); one instance
+// paints every row
+class ReviewRenderer extends JPanel implements ListCellRenderer<Review> {
+    private final JLabel head = new JLabel(), body = new JLabel();
+    private final Color background, selected;
+
+    ReviewRenderer(Color background, Color selected, Color text, Color secondary, Font bold) {
+        super(new BorderLayout(0, 2));
+        this.background = background; this.selected = selected;
+        setBorder(new EmptyBorder(6, 8, 6, 8));
+        head.setForeground(secondary); head.setFont(bold);
+        body.setForeground(text);
+        add(head, BorderLayout.NORTH); add(body, BorderLayout.CENTER);
+    }
+
+    @Override
+    public Component getListCellRendererComponent(JList<? extends Review> list, Review r, int index, boolean isSelected, boolean hasFocus) {
+        int stars = (int) Math.max(1, Math.min(5, Math.round(r.rating)));
+        head.setText("★".repeat(stars) + "☆".repeat(5 - stars) + "  " + r.user);
+        body.setText(r.comment == null || r.comment.isEmpty() ? " " : r.comment);
+        setBackground(isSelected ? selected : background);
+        return this;
+    }
+}
+
+// Booking cell: movie, time and hall on top; seats, add-ons and price below.
+// One instance paints every row.
+class BookingRenderer extends JPanel implements ListCellRenderer<Booking> {
+    private final JLabel head = new JLabel(), body = new JLabel(), price = new JLabel();
+    private final Color background, selected;
+
+    BookingRenderer(Color background, Color selected, Color text, Color secondary, Font bold, Font plain) {
+        super(new BorderLayout(8, 2));
+        this.background = background; this.selected = selected;
+        setBorder(new CompoundBorder(new MatteBorder(0, 0, 1, 0, new Color(50, 50, 50)), new EmptyBorder(8, 15, 8, 15)));
+        head.setForeground(text); head.setFont(bold);
+        body.setForeground(secondary); body.setFont(plain);
+        price.setForeground(text); price.setFont(bold);
+        add(head, BorderLayout.NORTH); add(body, BorderLayout.CENTER); add(price, BorderLayout.EAST);
+    }
+
+    @Override
+    public Component getListCellRendererComponent(JList<? extends Booking> list, Booking b, int index, boolean isSelected, boolean hasFocus) {
+        head.setText("🎟️  " + b.getHeadline());
+        body.setText(b.getDescription());
+        price.setText(b.getCentsPaid() > 0 ? PricePlan.format(b.getCentsPaid()) : "");
+        setBackground(isSelected ? selected : background);
+        return this;
+    }
+}
@@ -0,0 +1,58 @@
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+// ==========================================
+// PASSWORD HASHING (salted PBKDF2)
+// ==========================================
+// Hashes are stored as "pbkdf2$<iterations>$<salt>$<hash>", so the cost can be
+// raised later without invalidating existing accounts. The cost is read from
+// the "cinema.password.iterations" system property (default 120000).
+final class PasswordHasher {
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int KEY_BITS = 256;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private static volatile int iterations = Integer.getInteger("cinema.password.iterations", 120_000);
+
+    private PasswordHasher() {}
+
+    public static int getIterations() { return iterations; }
+    public static void setIterations(int n) {
+        if (n < 1) throw new IllegalArgumentException("Iterations must be positive");
+        iterations = n;
+    }
+
+    public static String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        int n = iterations;
+        Base64.Encoder b64 = Base64.getEncoder();
+        return "pbkdf2$" + n + "$" + b64.encodeToString(salt) + "$" + b64.encodeToString(derive(password, salt, n));
+    }
+
+    public static boolean verify(String password, String stored) {
+        if (password == null || stored == null) return false;
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4 || !parts[0].equals("pbkdf2")) return false;
+        Base64.Decoder b64 = Base64.getDecoder();
+        byte[] expected = b64.decode(parts[3]);
+        byte[] actual = derive(password, b64.decode(parts[2]), Integer.parseInt(parts[1]));
+        return MessageDigest.isEqual(expected, actual); // constant time
+    }
+
+    private static byte[] derive(String password, byte[] salt, int n) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, n, KEY_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " unavailable", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
@@ -0,0 +1,295 @@
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// ==========================================
+// PAYMENT GATEWAY (asynchronous, two-phase)
+// ==========================================
+// authorize() puts a hold on the money, capture() takes it and void releases
+// it, so a checkout can reserve seats, authorize, and then either commit both
+// or roll both back. Every call returns a CompletableFuture and no thread
+// waits on the gateway. The idempotency key makes retries safe: authorizing
+// the same key again returns the first authorization, never a second charge.
+interface PaymentGateway {
+    CompletableFuture<PaymentAuthorization> authorize(String idempotencyKey, String account, long cents);
+    CompletableFuture<Void> capture(PaymentAuthorization auth);
+    CompletableFuture<Void> voidAuthorization(PaymentAuthorization auth);
+}
+
+// The gateway's answer to authorize()
+class PaymentAuthorization {
+    private final String key;
+    private final long cents;
+    private final boolean approved;
+    private final String reference; // gateway's authorization code, or the decline reason
+
+    private PaymentAuthorization(String key, long cents, boolean approved, String reference) {
+        this.key = key; this.cents = cents; this.approved = approved; this.reference = reference;
+    }
+
+    static PaymentAuthorization approved(String key, long cents, String code) { return new PaymentAuthorization(key, cents, true, code); }
+    static PaymentAuthorization declined(String key, long cents, String reason) { return new PaymentAuthorization(key, cents, false, reason); }
+
+    public String getKey() { return key; }
+    public long getCents() { return cents; }
+    public boolean isApproved() { return approved; }
+    public String getReference() { return reference; }
+}
+
+// The gateway failed or did not answer in time (as opposed to a decline)
+class PaymentException extends RuntimeException {
+    PaymentException(String message) { super(message); }
+}
+
+// ==========================================
+// STUB GATEWAY (local, for tests and load runs)
+// ==========================================
+// Answers after a configurable latency (plus random jitter) from one timer
+// thread, declines or fails a configurable fraction of authorizations, and
+// counts what it did so a run can check nothing was left authorized.
+//   -Dcinema.payment.latency.ms=0 -Dcinema.payment.jitter.ms=0
+//   -Dcinema.payment.decline.rate=0 -Dcinema.payment.failure.rate=0
+class StubPaymentGateway implements PaymentGateway {
+    private final long latencyMillis, jitterMillis;
+    private final double declineRate, failureRate;
+    private final Map<String, CompletableFuture<PaymentAuthorization>> byKey = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> settled = new ConcurrentHashMap<>(); // key -> captured (true) / voided (false)
+    private final AtomicLong approved = new AtomicLong(), declined = new AtomicLong(), failed = new AtomicLong();
+    private final AtomicLong captured = new AtomicLong(), voided = new AtomicLong();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "payment-gateway-stub");
+        t.setDaemon(true);
+        return t;
+    });
+
+    StubPaymentGateway(long latencyMillis, long jitterMillis, double declineRate, double failureRate) {
+        this.latencyMillis = latencyMillis; this.jitterMillis = jitterMillis;
+        this.declineRate = declineRate; this.failureRate = failureRate;
+    }
+
+    static StubPaymentGateway fromProperties() {
+        return new StubPaymentGateway(Long.getLong("cinema.payment.latency.ms", 0), Long.getLong("cinema.payment.jitter.ms", 0),
+                Double.parseDouble(System.getProperty("cinema.payment.decline.rate", "0")),
+                Double.parseDouble(System.getProperty("cinema.payment.failure.rate", "0")));
+    }
+
+    @Override
+    public CompletableFuture<PaymentAuthorization> authorize(String key, String account, long cents) {
+        CompletableFuture<PaymentAuthorization> mine = new CompletableFuture<>();
+        CompletableFuture<PaymentAuthorization> first = byKey.putIfAbsent(key, mine);
+        if (first != null) return first; // retry of a key already seen
+        later(() -> {
+            double roll = ThreadLocalRandom.current().nextDouble();
+            if (roll < failureRate) {
+                failed.incrementAndGet();
+                byKey.remove(key, mine); // nothing was authorized, so the key may be retried
+                mine.completeExceptionally(new PaymentException("Gateway error"));
+            } else if (roll < failureRate + declineRate) {
+                declined.incrementAndGet();
+                mine.complete(PaymentAuthorization.declined(key, cents, "Declined by issuer"));
+            } else {
+                approved.incrementAndGet();
+                mine.complete(PaymentAuthorization.approved(key, cents, UUID.randomUUID().toString().substring(0, 8)));
+            }
+        });
+        return mine;
+    }
+
+    @Override public CompletableFuture<Void> capture(PaymentAuthorization auth) { return settle(auth, true); }
+    @Override public CompletableFuture<Void> voidAuthorization(PaymentAuthorization auth) { return settle(auth, false); }
+
+    // Settling twice is a no-op; capturing a voided authorization (or the reverse) fails
+    private CompletableFuture<Void> settle(PaymentAuthorization auth, boolean capture) {
+        if (!auth.isApproved()) return CompletableFuture.failedFuture(new PaymentException("Not authorized: " + auth.getKey()));
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        later(() -> {
+            Boolean was = settled.putIfAbsent(auth.getKey(), capture);
+            if (was == null) (capture ? captured : voided).incrementAndGet();
+            if (was != null && was != capture) done.completeExceptionally(new PaymentException("Already " + (was ? "captured" : "voided") + ": " + auth.getKey()));
+            else done.complete(null);
+        });
+        return done;
+    }
+
+    private void later(Runnable r) {
+        long delay = latencyMillis + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0);
+        if (delay <= 0) r.run();
+        else timer.schedule(r, delay, TimeUnit.MILLISECONDS);
+    }
+
+    public long getApproved() { return approved.get(); }
+    public long getDeclined() { return declined.get(); }
+    public long getFailed() { return failed.get(); }
+    public long getCaptured() { return captured.get(); }
+    public long getVoided() { return voided.get(); }
+    // Authorized but neither captured nor voided yet
+    public long getOutstanding() { return approved.get() - captured.get() - voided.get(); }
+}
+
+// ==========================================
+// PAYMENT LIMITER (async semaphore)
+// ==========================================
+// At most `permits` gateway calls in flight; the rest wait in a queue rather
+// than on a thread, and each completion starts the next queued call.
+class PaymentLimiter {
+    private final int permits;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+
+    PaymentLimiter(int permits) {
+        if (permits < 1) throw new IllegalArgumentException("permits must be positive");
+        this.permits = permits;
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        waiting.add(() -> {
+            CompletableFuture<T> f;
+            try { f = call.get(); } catch (RuntimeException e) { f = CompletableFuture.failedFuture(e); }
+            f.whenComplete((v, e) -> {
+                inFlight.decrementAndGet();
+                drain();
+                if (e != null) result.completeExceptionally(e); else result.complete(v);
+            });
+        });
+        drain();
+        return result;
+    }
+
+    public int getInFlight() { return inFlight.get(); }
+    public int getQueued() { return waiting.size(); }
+
+    private void drain() {
+        while (!waiting.isEmpty()) {
+            int n = inFlight.get();
+            if (n >= permits) return;
+            if (!inFlight.compareAndSet(n, n + 1)) continue;
+            Runnable next = waiting.poll();
+            if (next == null) { inFlight.decrementAndGet(); continue; }
+            next.run();
+        }
+    }
+}
+
+// ==========================================
+// GATEWAY-BACKED PAYMENT STRATEGY
+// ==========================================
+// Puts a strategy's own concurrency limit and timeout around its gateway. An
+// authorization that times out counts as failed; if the gateway approves it
+// late, it is voided so the customer is never charged for a failed checkout.
+abstract class GatewayPaymentStrategy implements PaymentStrategy {
+    private final PaymentGateway gateway;
+    private final PaymentLimiter limiter;
+    private final long timeoutMillis;
+
+    GatewayPaymentStrategy(PaymentGateway gateway, PaymentLimiter limiter, long timeoutMillis) {
+        this.gateway = gateway; this.limiter = limiter; this.timeoutMillis = timeoutMillis;
+    }
+
+    // The account the gateway charges (card number, wallet id, ...)
+    protected abstract String account();
+
+    // Checked before anything goes to the gateway; null when acceptable
+    protected String rejectReason() { return null; }
+
+    @Override
+    public CompletableFuture<PaymentAuthorization> authorize(String key, long cents) {
+        String reject = rejectReason();
+        if (reject != null) return CompletableFuture.completedFuture(PaymentAuthorization.declined(key, cents, reject));
+        CompletableFuture<PaymentAuthorization> call = limiter.submit(() -> gateway.authorize(key, account(), cents));
+        CompletableFuture<PaymentAuthorization> timed = call.copy().orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+        timed.whenComplete((a, e) -> {
+            if (e instanceof TimeoutException || e instanceof CompletionException && e.getCause() instanceof TimeoutException)
+                call.thenAccept(late -> { if (late.isApproved()) gateway.voidAuthorization(late); });
+        });
+        return timed;
+    }
+
+    @Override
+    public CompletableFuture<Void> capture(PaymentAuthorization auth) {
+        return limiter.submit(() -> gateway.capture(auth)).orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public CompletableFuture<Void> release(PaymentAuthorization auth) {
+        return limiter.submit(() -> gateway.voidAuthorization(auth)).orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public boolean pay(double amount) {
+        try {
+            PaymentAuthorization a = authorize(UUID.randomUUID().toString(), PricePlan.cents(amount)).join();
+            if (!a.isApproved()) return false;
+            capture(a).join();
+            return true;
+        } catch (CompletionException e) {
+            return false;
+        }
+    }
+}
+
+// Shared card gateway settings; card strategies use these unless given their own
+//   -Dcinema.payment.concurrency=32 -Dcinema.payment.timeout.ms=10000
+final class PaymentGateways {
+    static final StubPaymentGateway CARDS = StubPaymentGateway.fromProperties();
+    static final PaymentLimiter CARD_LIMIT = new PaymentLimiter(Integer.getInteger("cinema.payment.concurrency", 32));
+    static final long CARD_TIMEOUT_MILLIS = Long.getLong("cinema.payment.timeout.ms", 10_000);
+
+    private PaymentGateways() {}
+}
+
+// ==========================================
+// CAPTURE RETRIES
+// ==========================================
+// A capture the gateway failed or missed at checkout. The booking stands (its
+// seats are sold and the amount authorized), so the capture is journaled as
+// pending and retried under the same idempotency key, which the gateway
+// settles at most once, backing off from 1 s to 5 min until it goes through.
+// Captures still pending at startup are retried on the card gateway: cash
+// settles at the till and never leaves one behind.
+final class CaptureRetrier {
+    private static final long FIRST_DELAY_MILLIS = 1_000, MAX_DELAY_MILLIS = 300_000;
+
+    private final CinemaData db;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "capture-retry");
+        t.setDaemon(true);
+        return t;
+    });
+
+    CaptureRetrier(CinemaData db) { this.db = db; }
+
+    void defer(PaymentAuthorization auth, Function<PaymentAuthorization, CompletableFuture<Void>> capture) {
+        db.captureDeferred(auth);
+        schedule(auth, capture, FIRST_DELAY_MILLIS);
+    }
+
+    void resume() {
+        for (PaymentAuthorization auth : db.getPendingCaptures())
+            schedule(auth, a -> PaymentGateways.CARD_LIMIT.submit(() -> PaymentGateways.CARDS.capture(a)), FIRST_DELAY_MILLIS);
+    }
+
+    private void schedule(PaymentAuthorization auth, Function<PaymentAuthorization, CompletableFuture<Void>> capture, long delay) {
+        timer.schedule(() -> {
+            CompletableFuture<Void> f;
+            try { f = capture.apply(auth); } catch (RuntimeException e) { f = CompletableFuture.failedFuture(e); }
+            f.whenComplete((v, e) -> {
+                if (e == null) db.captureSettled(auth.getKey());
+                else schedule(auth, capture, Math.min(delay * 2, MAX_DELAY_MILLIS));
+            });
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+}
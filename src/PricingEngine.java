@@ -0,0 +1,229 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// ==========================================
+// PRICING ENGINE (long cents)
+// ==========================================
+// A movie plus a set of add-ons compiles once into an immutable PricePlan: the
+// unit price is summed and the description built when the plan is made, and
+// pricing a booking is then a few long additions per seat. Money never passes
+// through double until it is shown. Add-on prices, seat-class surcharges and
+// bulk discounts all come from the installed PriceTable; the Ticket
+// decorators read the same table, so both views always agree.
+class PricingEngine {
+    private static final int MAX_PLANS = 10_000; // cache bound; a big catalogue must not pin every plan
+
+    private final Map<PlanKey, PricePlan> plans = new ConcurrentHashMap<>();
+
+    // Plans are cached per (movie, title, price, add-ons, table); a new table,
+    // price or title simply misses, so nothing has to be invalidated
+    public PricePlan plan(Movie m, Collection<String> addOns) {
+        PriceTable table = PriceTable.current();
+        long base = PricePlan.cents(m.getPrice());
+        List<String> chosen = table.inTableOrder(addOns);
+        PlanKey key = new PlanKey(m, base, chosen, table);
+        PricePlan plan = plans.get(key);
+        if (plan != null) return plan;
+        if (plans.size() >= MAX_PLANS) plans.clear();
+        return plans.computeIfAbsent(key, k -> new PricePlan(m, base, chosen, table));
+    }
+
+    private static final class PlanKey {
+        final Movie movie;
+        final String title;
+        final long base;
+        final List<String> addOns;
+        final PriceTable table;
+        PlanKey(Movie movie, long base, List<String> addOns, PriceTable table) {
+            this.movie = movie; this.title = movie.getTitle(); this.base = base; this.addOns = addOns; this.table = table;
+        }
+        @Override public boolean equals(Object o) {
+            if (!(o instanceof PlanKey)) return false;
+            PlanKey k = (PlanKey) o;
+            return movie == k.movie && base == k.base && table == k.table && title.equals(k.title) && addOns.equals(k.addOns);
+        }
+        @Override public int hashCode() { return Objects.hash(System.identityHashCode(movie), base, addOns, System.identityHashCode(table)); }
+    }
+}
+
+// Which price band a seat is in
+enum SeatClass {
+    STANDARD, PREMIUM;
+
+    // The back third of the rows is premium
+    static SeatClass of(Hall h, int seat) {
+        int rows = (h.getCapacity() + h.getSeatsPerRow() - 1) / h.getSeatsPerRow();
+        int premiumFrom = rows - rows / 3;
+        return seat / h.getSeatsPerRow() >= premiumFrom ? PREMIUM : STANDARD;
+    }
+}
+
+// Immutable price list: add-ons (in menu order), per-seat-class surcharges
+// and bulk discounts. Changes build a new table and install() swaps it in.
+final class PriceTable {
+    static final String POPCORN = "Popcorn", SODA = "Soda"; // the default add-ons
+    private static volatile PriceTable current = defaults();
+
+    private final Map<String, Long> addOns;
+    private final Map<SeatClass, Long> surcharges;
+    private final int[] bulkSeats, bulkPercentOff; // ascending by seats
+
+    private PriceTable(Map<String, Long> addOns, Map<SeatClass, Long> surcharges, int[] bulkSeats, int[] bulkPercentOff) {
+        this.addOns = Collections.unmodifiableMap(addOns);
+        this.surcharges = Collections.unmodifiableMap(surcharges);
+        this.bulkSeats = bulkSeats;
+        this.bulkPercentOff = bulkPercentOff;
+    }
+
+    // Popcorn $8, Soda $4; every seat the same price and no bulk tiers, so
+    // surcharges and discounts only apply once withSurcharge/withBulkDiscount
+    // install them
+    static PriceTable defaults() {
+        Map<String, Long> addOns = new LinkedHashMap<>();
+        addOns.put(POPCORN, 800L);
+        addOns.put(SODA, 400L);
+        Map<SeatClass, Long> surcharges = new EnumMap<>(SeatClass.class);
+        for (SeatClass c : SeatClass.values()) surcharges.put(c, 0L);
+        return new PriceTable(addOns, surcharges, new int[0], new int[0]);
+    }
+
+    static PriceTable current() { return current; }
+    static void install(PriceTable table) { current = Objects.requireNonNull(table); }
+
+    public PriceTable withAddOn(String name, long cents) {
+        if (cents < 0) throw new IllegalArgumentException("Negative price for " + name);
+        Map<String, Long> a = new LinkedHashMap<>(addOns);
+        a.put(name, cents);
+        return new PriceTable(a, surcharges, bulkSeats, bulkPercentOff);
+    }
+
+    public PriceTable withSurcharge(SeatClass c, long cents) {
+        Map<SeatClass, Long> s = new EnumMap<>(surcharges);
+        s.put(c, cents);
+        return new PriceTable(addOns, s, bulkSeats, bulkPercentOff);
+    }
+
+    // percentOff applies to bookings of at least minSeats seats (0 removes the tier)
+    public PriceTable withBulkDiscount(int minSeats, int percentOff) {
+        if (minSeats < 1 || percentOff < 0 || percentOff > 100) throw new IllegalArgumentException("Bad bulk tier " + minSeats + "/" + percentOff);
+        Map<Integer, Integer> tiers = new java.util.TreeMap<>();
+        for (int i = 0; i < bulkSeats.length; i++) tiers.put(bulkSeats[i], bulkPercentOff[i]);
+        if (percentOff == 0) tiers.remove(minSeats); else tiers.put(minSeats, percentOff);
+        int[] seats = new int[tiers.size()], off = new int[tiers.size()];
+        int i = 0;
+        for (Map.Entry<Integer, Integer> t : tiers.entrySet()) { seats[i] = t.getKey(); off[i++] = t.getValue(); }
+        return new PriceTable(addOns, surcharges, seats, off);
+    }
+
+    public Set<String> addOnNames() { return addOns.keySet(); }
+
+    public long addOnCents(String name) {
+        Long c = addOns.get(name);
+        if (c == null) throw new IllegalArgumentException("Unknown add-on: " + name);
+        return c;
+    }
+
+    public long surchargeCents(SeatClass c) { return surcharges.getOrDefault(c, 0L); }
+
+    public int bulkPercentOff(int seats) {
+        int off = 0;
+        for (int i = 0; i < bulkSeats.length && bulkSeats[i] <= seats; i++) off = bulkPercentOff[i];
+        return off;
+    }
+
+    // The chosen add-ons in menu order, duplicates dropped; unknown names are rejected
+    List<String> inTableOrder(Collection<String> chosen) {
+        for (String a : chosen) addOnCents(a);
+        List<String> out = new ArrayList<>(chosen.size());
+        for (String a : addOns.keySet()) if (chosen.contains(a)) out.add(a);
+        return List.copyOf(out);
+    }
+}
+
+// One movie with a fixed set of add-ons, priced once. Also a Ticket, so code
+// written against the decorators can take a plan unchanged.
+final class PricePlan implements Ticket {
+    private final Movie movie;
+    private final List<String> addOns;
+    private final long unitCents;
+    private final long[] seatCents; // unit + surcharge, by SeatClass ordinal
+    private final String description;
+    private final PriceTable table;
+
+    PricePlan(Movie movie, long baseCents, List<String> addOns, PriceTable table) {
+        this.movie = movie;
+        this.addOns = addOns;
+        this.table = table;
+        long unit = baseCents;
+        StringBuilder d = new StringBuilder("Ticket: ").append(movie.getTitle());
+        for (String a : addOns) { unit += table.addOnCents(a); d.append(", ").append(a); }
+        this.unitCents = unit;
+        this.description = d.toString();
+        SeatClass[] classes = SeatClass.values();
+        this.seatCents = new long[classes.length];
+        for (SeatClass c : classes) seatCents[c.ordinal()] = unit + table.surchargeCents(c);
+    }
+
+    static long cents(double dollars) { return Math.round(dollars * 100); }
+    static String format(long cents) { return String.format("$%d.%02d", cents / 100, Math.abs(cents % 100)); }
+
+    public Movie getMovie() { return movie; }
+    public List<String> getAddOns() { return addOns; }
+    public long getUnitCents() { return unitCents; }
+    public long getSeatCents(SeatClass c) { return seatCents[c.ordinal()]; }
+
+    // Prices the given seats of a screening: each at its class price, then the
+    // bulk discount for the party size, rounded down to whole cents
+    public PriceQuote quote(Hall hall, List<String> seats) {
+        long subtotal = 0;
+        int premium = 0;
+        for (String s : seats) {
+            SeatClass c = SeatClass.of(hall, SeatReservationEngine.seatIndex(s));
+            if (c == SeatClass.PREMIUM) premium++;
+            subtotal += seatCents[c.ordinal()];
+        }
+        long discount = subtotal * table.bulkPercentOff(seats.size()) / 100;
+        return new PriceQuote(this, seats.size(), premium, subtotal, discount);
+    }
+
+    @Override public String getDescription() { return description; }
+    @Override public long getCostCents() { return unitCents; }
+    @Override public double getCost() { return unitCents / 100.0; }
+}
+
+// What a booking costs, in cents
+final class PriceQuote {
+    private final PricePlan plan;
+    private final int seats, premiumSeats;
+    private final long subtotalCents, discountCents;
+
+    PriceQuote(PricePlan plan, int seats, int premiumSeats, long subtotalCents, long discountCents) {
+        this.plan = plan; this.seats = seats; this.premiumSeats = premiumSeats;
+        this.subtotalCents = subtotalCents; this.discountCents = discountCents;
+    }
+
+    public PricePlan getPlan() { return plan; }
+    public int getSeats() { return seats; }
+    public int getPremiumSeats() { return premiumSeats; }
+    public long getSubtotalCents() { return subtotalCents; }
+    public long getDiscountCents() { return discountCents; }
+    public long getTotalCents() { return subtotalCents - discountCents; }
+
+    @Override public String toString() {
+        StringBuilder s = new StringBuilder();
+        s.append("Tickets: ").append(seats).append(" x ").append(PricePlan.format(plan.getUnitCents()));
+        if (premiumSeats > 0 && plan.getSeatCents(SeatClass.PREMIUM) != plan.getUnitCents()) s.append(" (").append(premiumSeats).append(" premium at ").append(PricePlan.format(plan.getSeatCents(SeatClass.PREMIUM))).append(")");
+        s.append("\nItem: ").append(plan.getDescription());
+        if (discountCents > 0) s.append("\nSubtotal: ").append(PricePlan.format(subtotalCents))
+                .append("\nGroup discount: -").append(PricePlan.format(discountCents));
+        return s.append("\nTOTAL: ").append(PricePlan.format(getTotalCents())).toString();
+    }
+}
@@ -0,0 +1,118 @@
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// ==========================================
+// REVENUE AGGREGATION (fed by RevenueLogger)
+// ==========================================
+// All amounts are integer cents. Totals per movie, hall and payment method are
+// LongAdders, so concurrent bookings never contend on one counter; rolling
+// per-minute (last hour) and per-hour (last day) series are rings of packed
+// (period, cents) words updated with a single CAS. Readers take a snapshot
+// without blocking writers.
+class RevenueAggregator {
+    private final LongAdder totalCents = new LongAdder();
+    private final LongAdder tickets = new LongAdder();
+    private final LongAdder bookings = new LongAdder();
+    private final Map<String, LongAdder> byMovie = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> byHall = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> byPayment = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> addOns = new ConcurrentHashMap<>();
+    private final TimeBuckets perMinute = new TimeBuckets(60, TimeUnit.MINUTES.toMillis(1));
+    private final TimeBuckets perHour = new TimeBuckets(24, TimeUnit.HOURS.toMillis(1));
+
+    public void record(BookingEvent e) {
+        long cents = e.amountCents;
+        totalCents.add(cents);
+        tickets.add(e.seats);
+        bookings.increment();
+        add(byMovie, e.movieTitle, cents);
+        add(byHall, e.hallName, cents);
+        add(byPayment, e.paymentMethod, cents);
+        for (String a : e.addOns) addOns.computeIfAbsent(a, k -> new LongAdder()).add(e.seats);
+        perMinute.add(e.timestamp, cents);
+        perHour.add(e.timestamp, cents);
+    }
+
+    private static void add(Map<String, LongAdder> m, String key, long cents) {
+        m.computeIfAbsent(key == null ? "?" : key, k -> new LongAdder()).add(cents);
+    }
+
+    public RevenueSnapshot snapshot() {
+        long now = System.currentTimeMillis();
+        return new RevenueSnapshot(totalCents.sum(), tickets.sum(), bookings.sum(), sums(byMovie), sums(byHall),
+                sums(byPayment), sums(addOns), perMinute.series(now), perHour.series(now));
+    }
+
+    private static Map<String, Long> sums(Map<String, LongAdder> m) {
+        Map<String, Long> out = new TreeMap<>();
+        m.forEach((k, v) -> out.put(k, v.sum()));
+        return out;
+    }
+
+    // Ring of slots, each one long: high 24 bits = period number, low 40 bits = cents.
+    // A stale slot is reset and added to in the same CAS, so no update is lost.
+    static final class TimeBuckets {
+        private static final int VALUE_BITS = 40;
+        private static final long VALUE_MASK = (1L << VALUE_BITS) - 1;
+        private static final long PERIOD_MASK = (1L << (64 - VALUE_BITS)) - 1;
+
+        private final AtomicLongArray slots;
+        private final long widthMillis;
+
+        TimeBuckets(int slotCount, long widthMillis) {
+            this.slots = new AtomicLongArray(slotCount);
+            this.widthMillis = widthMillis;
+        }
+
+        void add(long timeMillis, long cents) {
+            long period = (timeMillis / widthMillis) & PERIOD_MASK;
+            int i = (int) ((timeMillis / widthMillis) % slots.length());
+            while (true) {
+                long cur = slots.get(i);
+                long next = (cur >>> VALUE_BITS) == period ? cur + cents : (period << VALUE_BITS) | (cents & VALUE_MASK);
+                if (slots.compareAndSet(i, cur, next)) return;
+            }
+        }
+
+        // Oldest first; the last element is the current (partial) period.
+        long[] series(long nowMillis) {
+            int n = slots.length();
+            long[] out = new long[n];
+            long current = nowMillis / widthMillis;
+            for (int k = 0; k < n; k++) {
+                long p = current - (n - 1 - k);
+                long v = slots.get((int) (p % n));
+                out[k] = (v >>> VALUE_BITS) == (p & PERIOD_MASK) ? v & VALUE_MASK : 0;
+            }
+            return out;
+        }
+    }
+}
+
+// Point-in-time copy of the aggregates for the admin dashboard
+class RevenueSnapshot {
+    final long totalCents, tickets, bookings;
+    final Map<String, Long> byMovie, byHall, byPayment, addOnUnits;
+    final long[] lastHourByMinute, lastDayByHour;
+
+    RevenueSnapshot(long totalCents, long tickets, long bookings, Map<String, Long> byMovie, Map<String, Long> byHall,
+                    Map<String, Long> byPayment, Map<String, Long> addOnUnits, long[] lastHourByMinute, long[] lastDayByHour) {
+        this.totalCents = totalCents; this.tickets = tickets; this.bookings = bookings;
+        this.byMovie = byMovie; this.byHall = byHall; this.byPayment = byPayment; this.addOnUnits = addOnUnits;
+        this.lastHourByMinute = lastHourByMinute; this.lastDayByHour = lastDayByHour;
+    }
+
+    long lastMinuteCents() { return lastHourByMinute[lastHourByMinute.length - 1]; }
+
+    long lastHourCents() {
+        long s = 0;
+        for (long c : lastHourByMinute) s += c;
+        return s;
+    }
+
+    static String dollars(long cents) { return String.format("$%d.%02d", cents / 100, Math.abs(cents % 100)); }
+}
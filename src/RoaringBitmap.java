@@ -0,0 +1,350 @@
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// ==========================================
+// COMPRESSED BITMAP (roaring-style)
+// ==========================================
+// A set of non-negative ints split by their high 16 bits into containers of
+// up to 65536 values. A sparse container is a sorted char[] (2 bytes a value);
+// past 4096 values it becomes a 1024-word bitset (8 KB flat), whichever is
+// smaller. AND/OR work container by container, and andCardinality() counts an
+// intersection with popcounts without building it. Not thread-safe.
+final class RoaringBitmap {
+    private static final int ARRAY_MAX = 4096;
+
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int size; // containers in use
+
+    public void add(int x) {
+        char hb = (char) (x >>> 16);
+        int i = find(hb);
+        if (i < 0) {
+            i = -i - 1;
+            insertAt(i, hb, new ArrayContainer());
+        }
+        containers[i] = containers[i].add((char) x);
+    }
+
+    public void remove(int x) {
+        int i = find((char) (x >>> 16));
+        if (i < 0) return;
+        Container c = containers[i].remove((char) x);
+        if (c.cardinality() == 0) removeAt(i);
+        else containers[i] = c;
+    }
+
+    public boolean contains(int x) {
+        int i = find((char) (x >>> 16));
+        return i >= 0 && containers[i].contains((char) x);
+    }
+
+    public int cardinality() {
+        int n = 0;
+        for (int i = 0; i < size; i++) n += containers[i].cardinality();
+        return n;
+    }
+
+    public boolean isEmpty() { return size == 0; }
+
+    public RoaringBitmap and(RoaringBitmap o) {
+        RoaringBitmap out = new RoaringBitmap();
+        for (int i = 0, j = 0; i < size && j < o.size; ) {
+            if (keys[i] < o.keys[j]) i++;
+            else if (keys[i] > o.keys[j]) j++;
+            else {
+                Container c = containers[i].and(o.containers[j]);
+                if (c.cardinality() > 0) out.append(keys[i], c);
+                i++; j++;
+            }
+        }
+        return out;
+    }
+
+    public RoaringBitmap or(RoaringBitmap o) {
+        RoaringBitmap out = new RoaringBitmap();
+        int i = 0, j = 0;
+        while (i < size || j < o.size) {
+            if (j >= o.size || i < size && keys[i] < o.keys[j]) { out.append(keys[i], containers[i].copy()); i++; }
+            else if (i >= size || keys[i] > o.keys[j]) { out.append(o.keys[j], o.containers[j].copy()); j++; }
+            else { out.append(keys[i], containers[i].or(o.containers[j])); i++; j++; }
+        }
+        return out;
+    }
+
+    // |this AND o| without materializing it
+    public int andCardinality(RoaringBitmap o) {
+        int n = 0;
+        for (int i = 0, j = 0; i < size && j < o.size; ) {
+            if (keys[i] < o.keys[j]) i++;
+            else if (keys[i] > o.keys[j]) j++;
+            else { n += containers[i].andCardinality(o.containers[j]); i++; j++; }
+        }
+        return n;
+    }
+
+    // Ascending
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) containers[i].forEach(keys[i] << 16, action);
+    }
+
+    // counts[keyOf[x]]++ for every x in the set (a group-by without a callback per value)
+    public void countBy(int[] keyOf, int[] counts) {
+        for (int i = 0; i < size; i++) containers[i].countBy(keys[i] << 16, keyOf, counts);
+    }
+
+    public RoaringBitmap copy() {
+        RoaringBitmap out = new RoaringBitmap();
+        for (int i = 0; i < size; i++) out.append(keys[i], containers[i].copy());
+        return out;
+    }
+
+    // Roughly the work of andCardinality() against a dense bitmap: a lookup
+    // per value of a sparse container, a word per 64 of a full one
+    public int probeCost() {
+        int n = 0;
+        for (int i = 0; i < size; i++) n += Math.min(containers[i].cardinality(), 1024);
+        return n;
+    }
+
+    // This set with every container as a flat bitset, for a bitmap that is
+    // about to be intersected with many others: each of those then costs one
+    // word lookup per value instead of a merge. Containers that already are
+    // bitsets are shared, so the result is for reading only, and only while
+    // this bitmap is not being changed.
+    public RoaringBitmap dense() {
+        RoaringBitmap out = new RoaringBitmap();
+        for (int i = 0; i < size; i++) {
+            Container c = containers[i];
+            out.append(keys[i], c instanceof ArrayContainer ? ((ArrayContainer) c).toBitmap() : c);
+        }
+        return out;
+    }
+
+    private int find(char key) {
+        // Containers are appended in key order almost always; check the last first
+        if (size > 0 && keys[size - 1] == key) return size - 1;
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void append(char key, Container c) { insertAt(size, key, c); }
+
+    private void insertAt(int i, char key, Container c) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, i, keys, i + 1, size - i);
+        System.arraycopy(containers, i, containers, i + 1, size - i);
+        keys[i] = key;
+        containers[i] = c;
+        size++;
+    }
+
+    private void removeAt(int i) {
+        System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+        System.arraycopy(containers, i + 1, containers, i, size - i - 1);
+        containers[--size] = null;
+    }
+
+    // --- Containers (the low 16 bits of each value) ---
+    // add/remove return the container to keep, which may have changed kind
+    private abstract static class Container {
+        abstract Container add(char x);
+        abstract Container remove(char x);
+        abstract boolean contains(char x);
+        abstract int cardinality();
+        abstract Container and(Container o);
+        abstract Container or(Container o);
+        abstract int andCardinality(Container o);
+        abstract void forEach(int high, IntConsumer action);
+        abstract void countBy(int high, int[] keyOf, int[] counts);
+        abstract Container copy();
+    }
+
+    private static final class ArrayContainer extends Container {
+        char[] values;
+        int card;
+
+        ArrayContainer() { this(new char[4], 0); }
+        ArrayContainer(char[] values, int card) { this.values = values; this.card = card; }
+
+        @Override Container add(char x) {
+            int i = Arrays.binarySearch(values, 0, card, x);
+            if (i >= 0) return this;
+            if (card == ARRAY_MAX) return toBitmap().add(x);
+            i = -i - 1;
+            if (card == values.length) values = Arrays.copyOf(values, Math.max(4, Math.min(ARRAY_MAX, card * 2)));
+            System.arraycopy(values, i, values, i + 1, card - i);
+            values[i] = x;
+            card++;
+            return this;
+        }
+
+        @Override Container remove(char x) {
+            int i = Arrays.binarySearch(values, 0, card, x);
+            if (i < 0) return this;
+            System.arraycopy(values, i + 1, values, i, card - i - 1);
+            card--;
+            return this;
+        }
+
+        @Override boolean contains(char x) { return Arrays.binarySearch(values, 0, card, x) >= 0; }
+        @Override int cardinality() { return card; }
+
+        @Override Container and(Container o) {
+            int n = 0;
+            if (o instanceof BitmapContainer) {
+                // Every value is written before it is known to be kept, so the
+                // last write can land one past the result: size by card, not by
+                // the smaller side (or()/dense() leave small bitset containers)
+                char[] out = new char[card];
+                long[] w = ((BitmapContainer) o).words;
+                for (int i = 0; i < card; i++) {
+                    out[n] = values[i];
+                    n += (int) (w[values[i] >>> 6] >>> values[i]) & 1; // branch-free: kept only if set
+                }
+                return new ArrayContainer(out, n);
+            }
+            ArrayContainer a = (ArrayContainer) o;
+            char[] out = new char[Math.min(card, a.card)];
+            for (int i = 0, j = 0; i < card && j < a.card; ) {
+                if (values[i] < a.values[j]) i++;
+                else if (values[i] > a.values[j]) j++;
+                else { out[n++] = values[i]; i++; j++; }
+            }
+            return new ArrayContainer(out, n);
+        }
+
+        @Override Container or(Container o) {
+            if (o instanceof BitmapContainer) return o.or(this);
+            ArrayContainer a = (ArrayContainer) o;
+            if (card + a.card > ARRAY_MAX) return toBitmap().or(a);
+            char[] out = new char[card + a.card];
+            int n = 0, i = 0, j = 0;
+            while (i < card && j < a.card) {
+                if (values[i] < a.values[j]) out[n++] = values[i++];
+                else if (values[i] > a.values[j]) out[n++] = a.values[j++];
+                else { out[n++] = values[i++]; j++; }
+            }
+            while (i < card) out[n++] = values[i++];
+            while (j < a.card) out[n++] = a.values[j++];
+            return new ArrayContainer(out, n);
+        }
+
+        @Override int andCardinality(Container o) {
+            int n = 0;
+            if (o instanceof BitmapContainer) {
+                long[] w = ((BitmapContainer) o).words;
+                for (int i = 0; i < card; i++) n += (int) (w[values[i] >>> 6] >>> values[i]) & 1;
+            } else {
+                ArrayContainer a = (ArrayContainer) o;
+                for (int i = 0, j = 0; i < card && j < a.card; ) {
+                    if (values[i] < a.values[j]) i++;
+                    else if (values[i] > a.values[j]) j++;
+                    else { n++; i++; j++; }
+                }
+            }
+            return n;
+        }
+
+        @Override void forEach(int high, IntConsumer action) {
+            for (int i = 0; i < card; i++) action.accept(high | values[i]);
+        }
+
+        @Override void countBy(int high, int[] keyOf, int[] counts) {
+            for (int i = 0; i < card; i++) counts[keyOf[high | values[i]]]++;
+        }
+
+        @Override Container copy() { return new ArrayContainer(Arrays.copyOf(values, Math.max(4, card)), card); }
+
+        BitmapContainer toBitmap() {
+            BitmapContainer b = new BitmapContainer();
+            for (int i = 0; i < card; i++) b.words[values[i] >>> 6] |= 1L << values[i];
+            b.card = card;
+            return b;
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        final long[] words = new long[1024];
+        int card;
+
+        @Override Container add(char x) {
+            long before = words[x >>> 6];
+            words[x >>> 6] = before | 1L << x;
+            if (before != words[x >>> 6]) card++;
+            return this;
+        }
+
+        @Override Container remove(char x) {
+            long before = words[x >>> 6];
+            words[x >>> 6] = before & ~(1L << x);
+            if (before != words[x >>> 6] && --card <= ARRAY_MAX) return toArray();
+            return this;
+        }
+
+        @Override boolean contains(char x) { return (words[x >>> 6] & (1L << x)) != 0; }
+        @Override int cardinality() { return card; }
+
+        @Override Container and(Container o) {
+            if (o instanceof ArrayContainer) return o.and(this);
+            long[] w = ((BitmapContainer) o).words;
+            BitmapContainer out = new BitmapContainer();
+            int n = 0;
+            for (int i = 0; i < 1024; i++) n += Long.bitCount(out.words[i] = words[i] & w[i]);
+            out.card = n;
+            return n <= ARRAY_MAX ? out.toArray() : out;
+        }
+
+        @Override Container or(Container o) {
+            BitmapContainer out = (BitmapContainer) copy();
+            if (o instanceof ArrayContainer) {
+                ArrayContainer a = (ArrayContainer) o;
+                for (int i = 0; i < a.card; i++) out.add(a.values[i]);
+            } else {
+                long[] w = ((BitmapContainer) o).words;
+                int n = 0;
+                for (int i = 0; i < 1024; i++) n += Long.bitCount(out.words[i] |= w[i]);
+                out.card = n;
+            }
+            return out;
+        }
+
+        @Override int andCardinality(Container o) {
+            if (o instanceof ArrayContainer) return o.andCardinality(this);
+            long[] w = ((BitmapContainer) o).words;
+            int n = 0;
+            for (int i = 0; i < 1024; i++) n += Long.bitCount(words[i] & w[i]);
+            return n;
+        }
+
+        @Override void forEach(int high, IntConsumer action) {
+            for (int i = 0; i < 1024; i++) {
+                for (long w = words[i]; w != 0; w &= w - 1) action.accept(high | i << 6 | Long.numberOfTrailingZeros(w));
+            }
+        }
+
+        @Override void countBy(int high, int[] keyOf, int[] counts) {
+            for (int i = 0; i < 1024; i++) {
+                for (long w = words[i]; w != 0; w &= w - 1) counts[keyOf[high | i << 6 | Long.numberOfTrailingZeros(w)]]++;
+            }
+        }
+
+        @Override Container copy() {
+            BitmapContainer out = new BitmapContainer();
+            System.arraycopy(words, 0, out.words, 0, 1024);
+            out.card = card;
+            return out;
+        }
+
+        ArrayContainer toArray() {
+            char[] out = new char[card];
+            int n = 0;
+            for (int i = 0; i < 1024; i++) {
+                for (long w = words[i]; w != 0; w &= w - 1) out[n++] = (char) (i << 6 | Long.numberOfTrailingZeros(w));
+            }
+            return new ArrayContainer(out, n);
+        }
+    }
+}
@@ -0,0 +1,295 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// ==========================================
+// SALES & OCCUPANCY REPORT (CSV export)
+// ==========================================
+// One pass over the schedule and one over the bookings, each walked in place
+// without being copied, write a directory of CSV files:
+//   occupancy_by_screening.csv  one row per screening, written as it is visited
+//   revenue_by_movie.csv        bookings, tickets, revenue, occupancy, add-on
+//                               attach rate, reviews and rating per title
+//   revenue_by_hall.csv         the same per hall, without reviews
+//   revenue_by_day.csv          sales per day the booking was made (local time)
+//   add_ons.csv                 per add-on: bookings with it and attach rate
+// Only the per-title/hall/day/add-on totals are held, so memory follows the size
+// of the catalogue and not the number of bookings. Movies are grouped by title,
+// as bookings keep the title they were sold under. Reports run one at a time on
+// their own thread and can be cancelled between records.
+class SalesReport {
+    enum Status { RUNNING, DONE, CANCELLED, FAILED }
+
+    private static final ExecutorService RUNNER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "cinema-report");
+        t.setDaemon(true);
+        return t;
+    });
+    private static final DateTimeFormatter FOLDER = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final DateTimeFormatter START = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"); // as the import reads it
+
+    private final CinemaData db;
+    private final Path dir;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+
+    // Progress, written by the report thread and polled by the panel
+    private volatile long done, total;
+    private volatile String phase = "Waiting";
+    private volatile Status status = Status.RUNNING;
+    private volatile String failure;
+
+    // Totals for one title, hall, day or add-on
+    private static final class Tally {
+        long bookings, tickets, cents, withAddOn;
+        long screenings, seatsOffered, seatsSold;
+        long reviews; double ratingSum;
+
+        void booking(Booking b, boolean anyAddOn) {
+            bookings++;
+            tickets += b.getSeats().size();
+            cents += b.getCentsPaid();
+            if (anyAddOn) withAddOn++;
+        }
+
+        void screening(int capacity, int sold) {
+            screenings++;
+            seatsOffered += capacity;
+            seatsSold += sold;
+        }
+    }
+
+    // Hashed while counting, sorted once when written
+    private final Map<String, Tally> byMovie = new HashMap<>(), byHall = new HashMap<>(), addOns = new HashMap<>();
+    private final Map<LocalDate, Tally> byDay = new HashMap<>();
+    private long confirmed;
+
+    // Writes into a new "report-<time>" folder under parent
+    SalesReport(CinemaData db, Path parent) {
+        this.db = db;
+        this.dir = parent.resolve("report-" + LocalDateTime.now().format(FOLDER));
+    }
+
+    CompletableFuture<SalesReport> start() {
+        return CompletableFuture.runAsync(this::run, RUNNER).handle((v, e) -> this);
+    }
+
+    void cancel() { cancelled.set(true); }
+
+    public Path getDirectory() { return dir; }
+    public Status getStatus() { return status; }
+    public String getFailure() { return failure; }
+    public String getPhase() { return phase; }
+    // 0..1 over screenings, bookings and movies together
+    public double getProgress() { long t = total; return t == 0 ? 0 : Math.min(1.0, (double) done / t); }
+
+    @Override public String toString() {
+        switch (status) {
+            case DONE: return "Report written to " + dir;
+            case CANCELLED: return "Report cancelled";
+            case FAILED: return "Report failed: " + failure;
+            default: return phase + " (" + Math.round(getProgress() * 100) + "%)";
+        }
+    }
+
+    // The whole report on the calling thread (start() runs it in the background)
+    void run() {
+        try {
+            Files.createDirectories(dir);
+            // Only catalogue movies created so far can have reviews; walking
+            // getMovies() would load (and keep) every record of the file
+            CatalogueList.Version<Movie> version = db.movieList().pin();
+            List<Movie> movies = db.movieList().loadedBase(version);
+            movies.addAll(db.movieList().extras(version));
+            total = db.getSchedule().size() + db.getBookings().size() + movies.size();
+            phase = "Screenings";
+            try (CsvChannelWriter out = new CsvChannelWriter(dir.resolve("occupancy_by_screening.csv"),
+                    "screening_id", "start", "movie", "hall", "capacity", "seats_sold", "occupancy_pct")) {
+                db.getSchedule().forEach(sc -> { checkCancelled(); screening(sc, out); done++; });
+            }
+            phase = "Bookings";
+            db.getBookings().forEach(b -> { checkCancelled(); booking(b); done++; });
+            phase = "Reviews";
+            for (Movie m : movies) {
+                checkCancelled();
+                RatingStats r = m.getRatingStats();
+                Tally t = tally(byMovie, m.getTitle());
+                t.reviews += r.getCount();
+                t.ratingSum += r.getAverage() * r.getCount();
+                done++;
+            }
+            phase = "Writing totals";
+            writeTotals();
+            status = Status.DONE;
+        } catch (CancelledException e) {
+            status = Status.CANCELLED;
+        } catch (IOException | RuntimeException e) {
+            failure = e.getMessage() != null ? e.getMessage() : e.toString();
+            status = Status.FAILED;
+        }
+        if (status != Status.DONE) deletePartial();
+        phase = status == Status.DONE ? "Done" : "Stopped";
+    }
+
+    private void deletePartial() {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path f : files) Files.deleteIfExists(f);
+            Files.deleteIfExists(dir);
+        } catch (IOException ignored) {
+            // best effort: a half-written report is only clutter
+        }
+    }
+
+    private void screening(Screening sc, CsvChannelWriter out) {
+        int capacity = sc.getSeats().getCapacity(), sold = sc.getSeats().bookedCount();
+        tally(byMovie, sc.getMovie().getTitle()).screening(capacity, sold);
+        tally(byHall, sc.getHall().getName()).screening(capacity, sold);
+        out.row(sc.getId(), sc.getStart().format(START), sc.getMovie().getTitle(), sc.getHall().getName(), capacity, sold, percent(sold, capacity));
+    }
+
+    private void booking(Booking b) {
+        if (b.getStatus() != Booking.Status.CONFIRMED) return; // legacy text has no seats or price
+        confirmed++;
+        List<String> chosen = b.getAddOns();
+        LocalDate day = LocalDate.ofInstant(Instant.ofEpochMilli(b.getBookedAt()), zone);
+        boolean anyAddOn = !chosen.isEmpty();
+        tally(byMovie, b.getMovieTitle()).booking(b, anyAddOn);
+        tally(byHall, b.getHallName()).booking(b, anyAddOn);
+        byDay.computeIfAbsent(day, d -> new Tally()).booking(b, anyAddOn);
+        for (String a : chosen) tally(addOns, a).booking(b, true);
+    }
+
+    private void writeTotals() throws IOException {
+        try (CsvChannelWriter out = new CsvChannelWriter(dir.resolve("revenue_by_movie.csv"), "movie", "bookings", "tickets", "revenue",
+                "screenings", "seats_offered", "seats_sold", "occupancy_pct", "add_on_attach_pct", "reviews", "average_rating")) {
+            for (Map.Entry<String, Tally> e : new TreeMap<>(byMovie).entrySet()) {
+                Tally t = e.getValue();
+                out.row(e.getKey(), t.bookings, t.tickets, dollars(t.cents), t.screenings, t.seatsOffered, t.seatsSold,
+                        percent(t.seatsSold, t.seatsOffered), percent(t.withAddOn, t.bookings), t.reviews,
+                        t.reviews == 0 ? "" : String.format(Locale.ROOT, "%.2f", t.ratingSum / t.reviews));
+            }
+        }
+        try (CsvChannelWriter out = new CsvChannelWriter(dir.resolve("revenue_by_hall.csv"), "hall", "bookings", "tickets", "revenue",
+                "screenings", "seats_offered", "seats_sold", "occupancy_pct", "add_on_attach_pct")) {
+            for (Map.Entry<String, Tally> e : new TreeMap<>(byHall).entrySet()) {
+                Tally t = e.getValue();
+                out.row(e.getKey(), t.bookings, t.tickets, dollars(t.cents), t.screenings, t.seatsOffered, t.seatsSold,
+                        percent(t.seatsSold, t.seatsOffered), percent(t.withAddOn, t.bookings));
+            }
+        }
+        try (CsvChannelWriter out = new CsvChannelWriter(dir.resolve("revenue_by_day.csv"), "day", "bookings", "tickets", "revenue", "add_on_attach_pct")) {
+            for (Map.Entry<LocalDate, Tally> e : new TreeMap<>(byDay).entrySet()) {
+                Tally t = e.getValue();
+                out.row(e.getKey(), t.bookings, t.tickets, dollars(t.cents), percent(t.withAddOn, t.bookings));
+            }
+        }
+        try (CsvChannelWriter out = new CsvChannelWriter(dir.resolve("add_ons.csv"), "add_on", "bookings", "tickets", "attach_rate_pct")) {
+            for (Map.Entry<String, Tally> e : new TreeMap<>(addOns).entrySet()) {
+                Tally t = e.getValue();
+                out.row(e.getKey(), t.bookings, t.tickets, percent(t.bookings, confirmed));
+            }
+        }
+    }
+
+    private static Tally tally(Map<String, Tally> m, String key) { return m.computeIfAbsent(key == null ? "?" : key, k -> new Tally()); }
+
+    private static String dollars(long cents) { return String.format(Locale.ROOT, "%d.%02d", cents / 100, cents % 100); }
+
+    private static String percent(long part, long whole) { return whole == 0 ? "" : String.format(Locale.ROOT, "%.1f", 100.0 * part / whole); }
+
+    private void checkCancelled() { if (cancelled.get()) throw new CancelledException(); }
+
+    private static final class CancelledException extends RuntimeException {
+        CancelledException() { super(null, null, false, false); }
+    }
+}
+
+// ==========================================
+// CSV OVER A FILE CHANNEL
+// ==========================================
+// Rows are encoded to UTF-8 straight into one direct buffer, which is written
+// to the FileChannel whenever it fills, so a file of any length costs the
+// buffer and one row. Fields are quoted only when they need it (RFC 4180).
+// IO errors surface as UncheckedIOException so rows can be written from a
+// forEach callback.
+final class CsvChannelWriter implements Closeable {
+    private static final int BUFFER_BYTES = 1 << 18;
+
+    private final FileChannel channel;
+    private final ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private final CharsetEncoder utf8 = StandardCharsets.UTF_8.newEncoder();
+    private final StringBuilder line = new StringBuilder(256);
+
+    CsvChannelWriter(Path file, String... header) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        row((Object[]) header);
+    }
+
+    // null is written as an empty field, anything else as its toString()
+    void row(Object... fields) {
+        line.setLength(0);
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) line.append(',');
+            if (fields[i] != null) field(fields[i].toString());
+        }
+        line.append("\r\n");
+        CharBuffer in = CharBuffer.wrap(line);
+        try {
+            while (utf8.encode(in, bytes, false) == CoderResult.OVERFLOW) drain();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void field(String s) {
+        boolean quote = false;
+        for (int i = 0; i < s.length() && !quote; i++) {
+            char c = s.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) { line.append(s); return; }
+        line.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"') line.append('"');
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    private void drain() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) channel.write(bytes);
+        bytes.clear();
+    }
+
+    @Override public void close() throws IOException {
+        try {
+            utf8.encode(CharBuffer.allocate(0), bytes, true);
+            utf8.flush(bytes);
+            drain();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,258 @@
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+// ==========================================
+// SCREENINGS (one showing of a movie in a hall)
+// ==========================================
+// A Movie is the film; a Screening is a particular start/end time in a hall and
+// owns the seat state for that showing, so the same film can play many times.
+// Times are the cinema's local wall-clock time.
+class Screening {
+    public static final Duration DEFAULT_LENGTH = Duration.ofMinutes(120);
+    static final DateTimeFormatter DAY_TIME = DateTimeFormatter.ofPattern("EEE dd MMM HH:mm");
+
+    private final String id;
+    private final Movie movie;
+    private final Hall hall;
+    private final LocalDateTime start, end;
+    private final SeatReservationEngine seats;
+
+    public Screening(Movie movie, Hall hall, LocalDateTime start, LocalDateTime end) {
+        this(UUID.randomUUID().toString(), movie, hall, start, end);
+    }
+
+    // Restores a persisted screening under its original id
+    Screening(String id, Movie movie, Hall hall, LocalDateTime start, LocalDateTime end) {
+        if (movie == null || hall == null) throw new IllegalArgumentException("A screening needs a movie and a hall");
+        if (!end.isAfter(start)) throw new IllegalArgumentException("Screening must end after it starts");
+        this.id = id;
+        this.movie = movie;
+        this.hall = hall;
+        this.start = start;
+        this.end = end;
+        this.seats = new SeatReservationEngine(hall.getCapacity());
+    }
+
+    // The movie's listed showtime ("18:00") in its hall on the given day; null if
+    // the movie has no hall or the showtime is not HH:mm
+    static Screening listed(Movie m, LocalDate day) {
+        if (m.getHall() == null || m.getShowtime() == null) return null;
+        try {
+            LocalDateTime start = day.atTime(LocalTime.parse(m.getShowtime().trim()));
+            return new Screening(m, m.getHall(), start, start.plus(DEFAULT_LENGTH));
+        } catch (java.time.format.DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    public String getId() { return id; }
+    public Movie getMovie() { return movie; }
+    public Hall getHall() { return hall; }
+    public LocalDateTime getStart() { return start; }
+    public LocalDateTime getEnd() { return end; }
+    public SeatReservationEngine getSeats() { return seats; }
+    public List<String> getBookedSeats() { return seats.bookedSeats(); } // read-only snapshot
+    public int getFreeSeats() { return seats.getCapacity() - seats.bookedCount(); }
+
+    // Best free block of adjacent seats for a group, or an empty list if none is left
+    public List<String> findBestSeats(int partySize) { return seats.findBestBlock(partySize, hall.getSeatsPerRow()); }
+
+    @Override public String toString() { return start.format(DAY_TIME) + "  " + movie.getTitle() + "  (" + hall.getName() + ")"; }
+}
+
+// ==========================================
+// SCREENING SCHEDULE (time-ordered indexes)
+// ==========================================
+// Every screening sits in a ConcurrentSkipListMap ordered by start time, plus
+// one such map per hall and per movie. A time window is a subMap and "next N"
+// is a tailMap walk, so queries cost O(log n + k) and never parse showtimes or
+// scan the catalogue. Readers never block writers.
+//
+// Each hall also has an IntervalTree of the time it is occupied: the screening
+// plus the turnaround buffer for cleaning and letting the audience out
+// (-Dcinema.turnaround.minutes, default 15). tryAdd checks and inserts under
+// the hall's lock, so two admins cannot double-book a hall.
+class ScreeningSchedule {
+    static final Duration TURNAROUND = Duration.ofMinutes(Long.getLong("cinema.turnaround.minutes", 15));
+    private static final Comparator<Screening> BY_ID = Comparator.comparing(Screening::getId);
+
+    // Start time (to the second, as epoch seconds so a comparison is one long
+    // compare), then id, so screenings starting together are distinct keys
+    private static final class Key implements Comparable<Key> {
+        final long start;
+        final String id;
+        Key(LocalDateTime start, String id) { this.start = seconds(start); this.id = id; }
+        static Key of(Screening s) { return new Key(s.getStart(), s.getId()); }
+        static Key floor(LocalDateTime t) { return new Key(t, ""); } // sorts before every real id at t
+        @Override public int compareTo(Key o) {
+            int c = Long.compare(start, o.start);
+            return c != 0 ? c : id.compareTo(o.id);
+        }
+        @Override public boolean equals(Object o) { return o instanceof Key && compareTo((Key) o) == 0; }
+        @Override public int hashCode() { return Long.hashCode(start) * 31 + id.hashCode(); }
+    }
+
+    private final ConcurrentSkipListMap<Key, Screening> byStart = new ConcurrentSkipListMap<>();
+    private final Map<String, ConcurrentSkipListMap<Key, Screening>> byHall = new ConcurrentHashMap<>();
+    private final Map<String, ConcurrentSkipListMap<Key, Screening>> byMovie = new ConcurrentHashMap<>();
+    private final Map<String, Screening> byId = new ConcurrentHashMap<>();
+    private final Map<String, IntervalTree<Screening>> occupied = new ConcurrentHashMap<>();
+
+    // Adds the screening unless it overlaps another in its hall; returns the
+    // screenings it clashes with (empty when added)
+    public List<Screening> tryAdd(Screening s) {
+        IntervalTree<Screening> hall = timeline(s.getHall());
+        synchronized (hall) {
+            List<Screening> clashes = hall.overlaps(from(s), until(s));
+            if (clashes.isEmpty() && byId.putIfAbsent(s.getId(), s) == null) {
+                hall.add(from(s), until(s), s);
+                index(s);
+            }
+            return clashes;
+        }
+    }
+
+    // Adds without the overlap check: restores what was accepted before (and
+    // must survive a later change of the turnaround)
+    public void add(Screening s) {
+        if (byId.putIfAbsent(s.getId(), s) != null) return;
+        IntervalTree<Screening> hall = timeline(s.getHall());
+        synchronized (hall) { hall.add(from(s), until(s), s); }
+        index(s);
+    }
+
+    private void index(Screening s) {
+        Key k = Key.of(s);
+        byStart.put(k, s);
+        byHall.computeIfAbsent(s.getHall().getId(), h -> new ConcurrentSkipListMap<>()).put(k, s);
+        byMovie.computeIfAbsent(s.getMovie().getId(), m -> new ConcurrentSkipListMap<>()).put(k, s);
+    }
+
+    public boolean remove(Screening s) {
+        if (!byId.remove(s.getId(), s)) return false;
+        IntervalTree<Screening> hall = timeline(s.getHall());
+        synchronized (hall) { hall.remove(from(s), s); }
+        Key k = Key.of(s);
+        byStart.remove(k);
+        Map<Key, Screening> h = byHall.get(s.getHall().getId());
+        if (h != null) h.remove(k);
+        Map<Key, Screening> m = byMovie.get(s.getMovie().getId());
+        if (m != null) m.remove(k);
+        return true;
+    }
+
+    public Screening get(String id) { return id == null ? null : byId.get(id); }
+    public int size() { return byId.size(); }
+    public List<Screening> all() { return new ArrayList<>(byStart.values()); }
+    // In start order without copying, for passes over the whole schedule;
+    // screenings added or removed meanwhile may or may not be seen
+    public void forEach(Consumer<? super Screening> action) { byStart.values().forEach(action); }
+
+    // --- Queries: start in [from, to), in start order ---
+    public List<Screening> between(LocalDateTime from, LocalDateTime to) { return window(byStart, from, to); }
+
+    public List<Screening> onDay(LocalDate day) { return between(day.atStartOfDay(), day.plusDays(1).atStartOfDay()); }
+
+    public List<Screening> next(LocalDateTime from, int n) { return first(byStart, from, n); }
+
+    public List<Screening> inHall(Hall h, LocalDateTime from, LocalDateTime to) {
+        return window(byHall.getOrDefault(h.getId(), new ConcurrentSkipListMap<>()), from, to);
+    }
+
+    public List<Screening> forMovie(Movie m, LocalDateTime from, int n) {
+        return first(byMovie.getOrDefault(m.getId(), new ConcurrentSkipListMap<>()), from, n);
+    }
+
+    // Every screening of the movie, past ones included
+    public List<Screening> allForMovie(Movie m) {
+        return new ArrayList<>(byMovie.getOrDefault(m.getId(), new ConcurrentSkipListMap<>()).values());
+    }
+
+    // --- Hall occupancy (IntervalTree, O(log n + k)) ---
+    // Screenings already in the hall that a new one at these times would clash with
+    public List<Screening> conflicts(Hall h, LocalDateTime start, LocalDateTime end) {
+        IntervalTree<Screening> hall = timeline(h);
+        synchronized (hall) { return hall.overlaps(seconds(start), seconds(end.plus(TURNAROUND))); }
+    }
+
+    // Earliest start at or after from when the hall is free for the runtime plus
+    // turnaround, ending by until; null if the hall is full until then
+    public LocalDateTime firstFreeSlot(Hall h, LocalDateTime from, Duration runtime, LocalDateTime until) {
+        IntervalTree<Screening> hall = timeline(h);
+        long t;
+        synchronized (hall) { t = hall.firstGap(seconds(from), runtime.plus(TURNAROUND).getSeconds(), seconds(until)); }
+        return t == Long.MIN_VALUE ? null : LocalDateTime.ofEpochSecond(t, 0, ZoneOffset.UTC);
+    }
+
+    // Checks a batch (e.g. an imported week) against the schedule and against
+    // itself without adding anything. Each hall's part of the batch is sorted
+    // and swept once, so 100k screenings cost O(n log n) plus the clashes found.
+    // Within the batch a screening is reported against the earlier one whose
+    // occupancy runs latest, not against every earlier one it overlaps.
+    public List<ScheduleConflict> validate(Collection<Screening> batch) {
+        Map<String, List<Screening>> perHall = new HashMap<>();
+        for (Screening s : batch) perHall.computeIfAbsent(s.getHall().getId(), h -> new ArrayList<>()).add(s);
+        List<ScheduleConflict> out = new ArrayList<>();
+        for (List<Screening> hall : perHall.values()) {
+            hall.sort(Comparator.comparing(Screening::getStart).thenComparing(BY_ID));
+            IntervalTree<Screening> existing = timeline(hall.get(0).getHall());
+            synchronized (existing) {
+                for (Screening s : hall) for (Screening other : existing.overlaps(from(s), until(s))) out.add(new ScheduleConflict(s, other));
+            }
+            Screening latest = null;
+            for (Screening s : hall) {
+                if (latest != null && from(s) < until(latest)) out.add(new ScheduleConflict(s, latest));
+                if (latest == null || until(s) > until(latest)) latest = s;
+            }
+        }
+        return out;
+    }
+
+    private IntervalTree<Screening> timeline(Hall h) { return occupied.computeIfAbsent(h.getId(), id -> new IntervalTree<>(BY_ID)); }
+
+    // Wall-clock times as epoch seconds read as UTC, like the journal
+    private static long seconds(LocalDateTime t) { return t.toEpochSecond(ZoneOffset.UTC); }
+    private static long from(Screening s) { return seconds(s.getStart()); }
+    private static long until(Screening s) { return seconds(s.getEnd().plus(TURNAROUND)); }
+
+    private static List<Screening> window(NavigableMap<Key, Screening> index, LocalDateTime from, LocalDateTime to) {
+        if (!to.isAfter(from)) return new ArrayList<>();
+        return new ArrayList<>(index.subMap(Key.floor(from), true, Key.floor(to), false).values());
+    }
+
+    private static List<Screening> first(NavigableMap<Key, Screening> index, LocalDateTime from, int n) {
+        List<Screening> out = new ArrayList<>(Math.min(n, 64));
+        for (Screening s : index.tailMap(Key.floor(from), true).values()) {
+            if (out.size() == n) break;
+            out.add(s);
+        }
+        return out;
+    }
+}
+
+// Two screenings whose hall occupancy (including turnaround) overlaps
+class ScheduleConflict {
+    private final Screening screening, clashesWith;
+
+    ScheduleConflict(Screening screening, Screening clashesWith) { this.screening = screening; this.clashesWith = clashesWith; }
+
+    public Screening getScreening() { return screening; }
+    public Screening getClashesWith() { return clashesWith; }
+
+    @Override public String toString() { return screening + " clashes with " + clashesWith; }
+}
@@ -0,0 +1,225 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// ==========================================
+// SEAT HOLDS (claimed seats with a TTL)
+// ==========================================
+// A hold claims seats in the Screening's SeatReservationEngine so nobody else can
+// buy them while the customer is in the snack/payment dialogs. It ends in one
+// of three ways: confirm() turns it into a booking, release() gives the seats
+// back (cancel / failed payment), or the timing wheel expires it.
+class SeatHoldManager {
+    public static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private final HashedTimingWheel wheel;
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final AtomicInteger openHolds = new AtomicInteger();
+    final String keyPrefix = UUID.randomUUID().toString(); // hold ids restart with the process
+
+    public SeatHoldManager() { this(new HashedTimingWheel(250, 512, "seat-hold-expiry")); }
+    public SeatHoldManager(HashedTimingWheel wheel) { this.wheel = wheel; }
+
+    public ReservationResult hold(Screening s, Collection<String> seatNames) { return hold(s, seatNames, DEFAULT_TTL_MILLIS); }
+
+    public ReservationResult hold(Screening s, Collection<String> seatNames, long ttlMillis) {
+        ReservationResult claim = s.getSeats().claim(seatNames);
+        if (!claim.isSuccess()) return claim;
+        // The hold owns its timeout from construction, and the wheel only sees it
+        // once both exist, so an early expiry or a concurrent close always has
+        // the entry to cancel
+        SeatHold h = new SeatHold(this, nextId.getAndIncrement(), s, claim.getClaimedSeats(), wheel, ttlMillis);
+        openHolds.incrementAndGet();
+        wheel.start(h.timeout);
+        return ReservationResult.held(h);
+    }
+
+    public int getOpenHolds() { return openHolds.get(); }
+
+    void closed(SeatHold h) {
+        openHolds.decrementAndGet();
+        h.timeout.cancel();
+    }
+}
+
+class SeatHold {
+    // EXPIRING: timed out, seats still being released; CONFIRMING: one checkout
+    // is re-claiming the seats of an expired hold
+    enum State { HELD, CONFIRMED, RELEASED, EXPIRED, EXPIRING, CONFIRMING }
+
+    private final SeatHoldManager owner;
+    private final long id;
+    private final Screening screening;
+    private final List<String> seats;
+    private final int[] seatIndexes;
+    private final AtomicReference<State> state = new AtomicReference<>(State.HELD);
+    final WheelTimeout timeout;
+
+    SeatHold(SeatHoldManager owner, long id, Screening screening, List<String> seats, HashedTimingWheel wheel, long ttlMillis) {
+        this.owner = owner;
+        this.timeout = wheel.newTimeout(this::expire, ttlMillis);
+        this.id = id;
+        this.screening = screening;
+        this.seats = seats;
+        this.seatIndexes = new int[seats.size()];
+        for (int i = 0; i < seatIndexes.length; i++) seatIndexes[i] = SeatReservationEngine.seatIndex(seats.get(i));
+    }
+
+    public long getId() { return id; }
+    // Idempotency key for paying for this hold: a retried checkout reuses it
+    public String getCheckoutKey() { return owner.keyPrefix + "-" + id; }
+    public Screening getScreening() { return screening; }
+    public Movie getMovie() { return screening.getMovie(); }
+    public List<String> getSeats() { return seats; }
+    public State getState() { return state.get(); }
+    public boolean isActive() { return state.get() == State.HELD; }
+    // Confirmed, or being confirmed by another checkout of this hold
+    public boolean isConfirmed() { State s = state.get(); return s == State.CONFIRMED || s == State.CONFIRMING; }
+
+    // Turns the hold into a booking. If it expired in the meantime the seats are
+    // re-claimed, so a paid customer only loses out if someone else bought them.
+    // Exactly one call ever returns true: a second checkout of the same hold
+    // (a double-clicked Pay) gets false and must not record a booking.
+    public boolean confirm() {
+        if (state.compareAndSet(State.HELD, State.CONFIRMED)) {
+            owner.closed(this);
+            screening.getSeats().commit(seatIndexes);
+            return true;
+        }
+        while (state.get() == State.EXPIRING) Thread.onSpinWait(); // its seats are free in a moment
+        if (!state.compareAndSet(State.EXPIRED, State.CONFIRMING)) return false;
+        if (screening.getSeats().claim(seatIndexes).isSuccess()) {
+            screening.getSeats().commit(seatIndexes);
+            state.set(State.CONFIRMED);
+            return true;
+        }
+        state.set(State.EXPIRED);
+        return false;
+    }
+
+    public void release() { end(State.RELEASED); }
+
+    void expire() { end(State.EXPIRING, State.EXPIRED); }
+
+    private void end(State to) { end(to, to); }
+
+    // The seats are released between the two states, so a confirm() that sees
+    // EXPIRED can re-claim them
+    private void end(State closing, State closed) {
+        if (state.compareAndSet(State.HELD, closing)) {
+            owner.closed(this);
+            screening.getSeats().release(seatIndexes);
+            if (closing != closed) state.set(closed);
+        }
+    }
+}
+
+// ==========================================
+// HASHED TIMING WHEEL
+// ==========================================
+// One ticker thread advances a ring of buckets; each tick only touches the
+// bucket that is due, so cost is independent of how many timeouts are open.
+// New timeouts are queued and moved into their bucket by the ticker itself,
+// which keeps the buckets single-threaded. Cancelled timeouts are dropped
+// lazily when their bucket comes round.
+class HashedTimingWheel {
+    private final long tickMillis;
+    private final int mask;
+    private final List<List<WheelTimeout>> buckets;
+    private final ConcurrentLinkedQueue<WheelTimeout> incoming = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final long startNanos = System.nanoTime();
+    private final ScheduledExecutorService ticker;
+    private long tick; // ticker thread only
+
+    public HashedTimingWheel(long tickMillis, int wheelSize, String threadName) {
+        if (tickMillis <= 0 || Integer.bitCount(wheelSize) != 1)
+            throw new IllegalArgumentException("tick must be > 0 and wheel size a power of two");
+        this.tickMillis = tickMillis;
+        this.mask = wheelSize - 1;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) buckets.add(new ArrayList<>());
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, threadName);
+            t.setDaemon(true);
+            return t;
+        });
+        ticker.scheduleAtFixedRate(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public WheelTimeout schedule(Runnable task, long delayMillis) {
+        WheelTimeout t = newTimeout(task, delayMillis);
+        start(t);
+        return t;
+    }
+
+    // Created but not yet on the wheel, so its owner can keep the handle before
+    // the task could possibly run; start() puts it on. The delay counts from here.
+    public WheelTimeout newTimeout(Runnable task, long delayMillis) {
+        long deadline = elapsedMillis() + Math.max(0, delayMillis);
+        return new WheelTimeout(task, (deadline + tickMillis - 1) / tickMillis);
+    }
+
+    public void start(WheelTimeout t) {
+        pending.incrementAndGet();
+        incoming.add(t);
+    }
+
+    public int pending() { return pending.get(); }
+
+    public void shutdown() { ticker.shutdownNow(); }
+
+    private long elapsedMillis() { return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos); }
+
+    // Catches up on every tick that has elapsed, in case the thread was starved.
+    private void advance() {
+        long target = elapsedMillis() / tickMillis;
+        while (tick < target) {
+            tick++;
+            for (WheelTimeout t; (t = incoming.poll()) != null; ) {
+                if (t.isCancelled()) { pending.decrementAndGet(); continue; }
+                buckets.get((int) (Math.max(t.dueTick, tick) & mask)).add(t);
+            }
+            expireBucket(buckets.get((int) (tick & mask)));
+        }
+    }
+
+    // Compacts the bucket in place, keeping only timeouts due on a later revolution.
+    private void expireBucket(List<WheelTimeout> bucket) {
+        int kept = 0;
+        for (int i = 0; i < bucket.size(); i++) {
+            WheelTimeout t = bucket.get(i);
+            if (!t.isCancelled() && t.dueTick > tick) { bucket.set(kept++, t); continue; }
+            pending.decrementAndGet();
+            if (!t.isCancelled()) {
+                try {
+                    t.task.run();
+                } catch (RuntimeException e) {
+                    // Reported like any uncaught error, but the ticker keeps going
+                    Thread me = Thread.currentThread();
+                    me.getUncaughtExceptionHandler().uncaughtException(me, e);
+                }
+            }
+        }
+        bucket.subList(kept, bucket.size()).clear();
+    }
+}
+
+class WheelTimeout {
+    final Runnable task;
+    final long dueTick;
+    private volatile boolean cancelled;
+
+    WheelTimeout(Runnable task, long dueTick) { this.task = task; this.dueTick = dueTick; }
+
+    public void cancel() { cancelled = true; }
+    public boolean isCancelled() { return cancelled; }
+}
@@ -0,0 +1,152 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// ==========================================
+// SEAT MAP (one painted component per hall)
+// ==========================================
+// Replaces the grid of JToggleButtons. Seats are drawn straight from the
+// screening's SeatReservationEngine, only for the rows/columns inside the
+// clip, and a click is mapped to a seat by dividing by the cell size. While
+// the view is showing it listens to the engine: each change marks its seats
+// dirty and one invokeLater repaints just those, however many changes
+// arrived in between.
+class SeatMapView extends JComponent implements Scrollable {
+    private static final int CELL_W = 56, CELL_H = 38, GAP = 8;
+    private static final Color COL_FREE = new Color(40, 40, 40);
+    private static final Color COL_SOLD = new Color(60, 0, 0);
+    private static final Color COL_HELD = new Color(90, 60, 0);
+    private static final Color COL_SELECTED = Color.GREEN;
+    private static final Font FONT_SEAT = new Font("Segoe UI", Font.PLAIN, 12);
+
+    private final SeatReservationEngine engine;
+    private final int cols, rows;
+    private final BitSet selected = new BitSet();
+    // Seats changed since the last repaint, one bit per seat; set on any thread
+    private final AtomicLongArray dirty;
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+    private final SeatListener listener = this::markDirty;
+
+    public SeatMapView(SeatReservationEngine engine, int seatsPerRow) {
+        this.engine = engine;
+        this.cols = seatsPerRow;
+        this.rows = (engine.getCapacity() + seatsPerRow - 1) / seatsPerRow;
+        this.dirty = new AtomicLongArray(engine.wordCount());
+        setOpaque(true);
+        setBackground(new Color(18, 18, 18));
+        addMouseListener(new MouseAdapter() {
+            @Override public void mousePressed(MouseEvent e) { toggle(seatAt(e.getX(), e.getY())); }
+        });
+    }
+
+    // --- Selection ---
+    public List<String> getSelectedSeats() {
+        List<String> out = new ArrayList<>(selected.cardinality());
+        for (int i = selected.nextSetBit(0); i >= 0; i = selected.nextSetBit(i + 1)) out.add(SeatReservationEngine.seatName(i));
+        return out;
+    }
+
+    public void setSelectedSeats(List<String> seats) {
+        for (int i = selected.nextSetBit(0); i >= 0; i = selected.nextSetBit(i + 1)) repaintSeat(i);
+        selected.clear();
+        for (String s : seats) {
+            int i = SeatReservationEngine.seatIndex(s);
+            if (!engine.isTaken(i)) { selected.set(i); repaintSeat(i); }
+        }
+    }
+
+    private void toggle(int seat) {
+        if (seat < 0 || engine.isTaken(seat)) return;
+        selected.flip(seat);
+        repaintSeat(seat);
+    }
+
+    // Arithmetic hit test: -1 for the gaps between seats and outside the hall.
+    int seatAt(int x, int y) {
+        int c = x / (CELL_W + GAP), r = y / (CELL_H + GAP);
+        if (c >= cols || r >= rows || x % (CELL_W + GAP) >= CELL_W || y % (CELL_H + GAP) >= CELL_H) return -1;
+        int seat = r * cols + c;
+        return seat < engine.getCapacity() ? seat : -1;
+    }
+
+    private Rectangle seatBounds(int seat) {
+        return new Rectangle((seat % cols) * (CELL_W + GAP), (seat / cols) * (CELL_H + GAP), CELL_W, CELL_H);
+    }
+
+    private void repaintSeat(int seat) { repaint(seatBounds(seat)); }
+
+    // --- Change notification ---
+    // Changes made while the view was not showing are caught by the full paint
+    // that follows addNotify; only the selection needs checking
+    @Override public void addNotify() {
+        super.addNotify();
+        engine.addListener(listener);
+        for (int i = selected.nextSetBit(0); i >= 0; i = selected.nextSetBit(i + 1)) if (engine.isTaken(i)) selected.clear(i);
+    }
+    @Override public void removeNotify() { engine.removeListener(listener); super.removeNotify(); }
+
+    private void markDirty(int[] seats) {
+        for (int seat : seats) dirty.getAndAccumulate(seat >>> 6, 1L << seat, (a, b) -> a | b);
+        if (flushQueued.compareAndSet(false, true)) SwingUtilities.invokeLater(this::repaintDirty);
+    }
+
+    private void repaintDirty() {
+        flushQueued.set(false);
+        for (int w = 0; w < dirty.length(); w++) {
+            if (dirty.get(w) == 0) continue;
+            for (long bits = dirty.getAndSet(w, 0); bits != 0; bits &= bits - 1) {
+                int seat = (w << 6) + Long.numberOfTrailingZeros(bits);
+                if (engine.isTaken(seat)) selected.clear(seat); // someone else got it first
+                repaintSeat(seat);
+            }
+        }
+    }
+
+    // --- Painting ---
+    @Override protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) clip = new Rectangle(getSize());
+        g.setColor(getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        Graphics2D g2 = (Graphics2D) g;
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2.setFont(FONT_SEAT);
+        FontMetrics fm = g2.getFontMetrics();
+        int r0 = Math.max(0, clip.y / (CELL_H + GAP)), r1 = Math.min(rows - 1, (clip.y + clip.height) / (CELL_H + GAP));
+        int c0 = Math.max(0, clip.x / (CELL_W + GAP)), c1 = Math.min(cols - 1, (clip.x + clip.width) / (CELL_W + GAP));
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int seat = r * cols + c;
+                if (seat >= engine.getCapacity()) break;
+                int x = c * (CELL_W + GAP), y = r * (CELL_H + GAP);
+                boolean taken = engine.isTaken(seat);
+                g2.setColor(selected.get(seat) ? COL_SELECTED : !taken ? COL_FREE : engine.isBooked(seat) ? COL_SOLD : COL_HELD);
+                g2.fillRoundRect(x, y, CELL_W, CELL_H, 8, 8);
+                String label = SeatReservationEngine.seatName(seat);
+                g2.setColor(selected.get(seat) ? Color.BLACK : taken ? Color.GRAY : Color.WHITE);
+                g2.drawString(label, x + (CELL_W - fm.stringWidth(label)) / 2, y + (CELL_H + fm.getAscent() - fm.getDescent()) / 2);
+            }
+        }
+    }
+
+    // --- Scrollable ---
+    @Override public Dimension getPreferredSize() {
+        return new Dimension(cols * (CELL_W + GAP) - GAP, rows * (CELL_H + GAP) - GAP);
+    }
+    @Override public Dimension getPreferredScrollableViewportSize() { return getPreferredSize(); }
+    @Override public int getScrollableUnitIncrement(Rectangle visible, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? CELL_H + GAP : CELL_W + GAP;
+    }
+    @Override public int getScrollableBlockIncrement(Rectangle visible, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? visible.height : visible.width;
+    }
+    @Override public boolean getScrollableTracksViewportWidth() { return false; }
+    @Override public boolean getScrollableTracksViewportHeight() { return false; }
+}
@@ -0,0 +1,274 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// ==========================================
+// SEAT RESERVATION ENGINE (one per Screening)
+// ==========================================
+// Seats "S1".."Sn" map to bits 0..n-1 of an AtomicLongArray. A claim sets
+// every requested bit or none of them: each word is CAS'd in ascending
+// order and, if one of them already has a requested bit set, the words
+// claimed so far are rolled back and the caller gets the taken seats.
+// Claimed seats are either held (see SeatHoldManager) or, once committed,
+// sold; the second bitset only records which claimed seats are sold.
+// Listeners hear of every claim, release and commit, so views repaint on
+// change instead of polling.
+class SeatReservationEngine {
+    private static final SeatListener[] NO_LISTENERS = {};
+
+    private final int capacity;
+    private final AtomicLongArray words;
+    private final AtomicLongArray sold;
+    private volatile SeatListener[] listeners = NO_LISTENERS; // copy-on-write: the hot path reads one field
+
+    public SeatReservationEngine(int capacity) {
+        if (capacity < 0) throw new IllegalArgumentException("Negative capacity");
+        this.capacity = capacity;
+        this.words = new AtomicLongArray((capacity + 63) >>> 6);
+        this.sold = new AtomicLongArray(words.length());
+    }
+
+    public int getCapacity() { return capacity; }
+
+    public synchronized void addListener(SeatListener l) {
+        SeatListener[] now = Arrays.copyOf(listeners, listeners.length + 1);
+        now[now.length - 1] = l;
+        listeners = now;
+    }
+
+    public synchronized void removeListener(SeatListener l) {
+        List<SeatListener> now = new ArrayList<>(Arrays.asList(listeners));
+        if (now.remove(l)) listeners = now.isEmpty() ? NO_LISTENERS : now.toArray(NO_LISTENERS);
+    }
+
+    // --- Seat naming ("S" + number, 1-based) ---
+    public static String seatName(int index) { return "S" + (index + 1); }
+
+    public static int seatIndex(String name) {
+        if (name == null || name.length() < 2 || name.charAt(0) != 'S')
+            throw new IllegalArgumentException("Invalid seat: " + name);
+        return Integer.parseInt(name.substring(1)) - 1;
+    }
+
+    public ReservationResult claim(Collection<String> seatNames) {
+        int[] seats = new int[seatNames.size()];
+        int i = 0;
+        for (String s : seatNames) seats[i++] = seatIndex(s);
+        return claim(seats);
+    }
+
+    public ReservationResult claim(int... seats) {
+        long[][] plan = plan(seats);
+        long[] wordIdx = plan[0], masks = plan[1];
+        for (int k = 0; k < wordIdx.length; k++) {
+            int w = (int) wordIdx[k];
+            long mask = masks[k];
+            while (true) {
+                long cur = words.get(w);
+                if ((cur & mask) != 0) {
+                    for (int j = 0; j < k; j++) clearBits(words, (int) wordIdx[j], masks[j]);
+                    return ReservationResult.conflict(takenSeats(cur & mask, wordIdx, masks, k));
+                }
+                if (words.compareAndSet(w, cur, cur | mask)) break;
+            }
+        }
+        changed(seats);
+        return ReservationResult.success(namesOf(seats));
+    }
+
+    public void release(Collection<String> seatNames) {
+        int[] seats = new int[seatNames.size()];
+        int i = 0;
+        for (String s : seatNames) seats[i++] = seatIndex(s);
+        release(seats);
+    }
+
+    // Frees the seats whether they were held or sold.
+    public void release(int... seats) {
+        long[][] plan = plan(seats);
+        for (int k = 0; k < plan[0].length; k++) {
+            clearBits(sold, (int) plan[0][k], plan[1][k]);
+            clearBits(words, (int) plan[0][k], plan[1][k]);
+        }
+        changed(seats);
+    }
+
+    // Marks already-claimed seats as sold: O(seats), no further conflict is possible.
+    public void commit(int... seats) {
+        long[][] plan = plan(seats);
+        for (int k = 0; k < plan[0].length; k++) sold.getAndAccumulate((int) plan[0][k], plan[1][k], (a, b) -> a | b);
+        changed(seats);
+    }
+
+    // Taken = held by someone or sold; either way not available.
+    public boolean isTaken(int seat) {
+        checkSeat(seat);
+        return (words.get(seat >>> 6) & (1L << seat)) != 0;
+    }
+
+    public boolean isBooked(int seat) {
+        checkSeat(seat);
+        return (sold.get(seat >>> 6) & (1L << seat)) != 0;
+    }
+
+    public boolean isBooked(String seatName) { return isBooked(seatIndex(seatName)); }
+
+    public boolean isHeld(int seat) { return isTaken(seat) && !isBooked(seat); }
+
+    public int bookedCount() {
+        int n = 0;
+        for (int w = 0; w < sold.length(); w++) n += Long.bitCount(sold.get(w));
+        return n;
+    }
+
+    public List<String> bookedSeats() {
+        List<String> out = new ArrayList<>();
+        for (int w = 0; w < sold.length(); w++) {
+            for (long bits = sold.get(w); bits != 0; bits &= bits - 1)
+                out.add(seatName((w << 6) + Long.numberOfTrailingZeros(bits)));
+        }
+        return Collections.unmodifiableList(out);
+    }
+
+    // Raw 64-seat words, for views that diff seat state without touching every seat
+    public int wordCount() { return words.length(); }
+    public long takenWord(int w) { return words.get(w); }
+    public long soldWord(int w) { return sold.get(w); }
+
+    // --- Best-available block ---
+    // Seats are laid out row by row, seatsPerRow wide. For each row the taken bits
+    // are pulled out as one long, inverted to a free mask and AND-shifted so that
+    // bit i survives only if seats i..i+n-1 are all free. The start closest to
+    // the row centre is then found with two bit scans, so the cost is O(rows)
+    // regardless of hall size. Rows nearer the middle of the hall score better.
+    public List<String> findBestBlock(int partySize, int seatsPerRow) {
+        if (partySize < 1 || partySize > seatsPerRow) return Collections.emptyList();
+        int rows = (capacity + seatsPerRow - 1) / seatsPerRow;
+        double midRow = (rows - 1) / 2.0;
+        double bestScore = Double.MAX_VALUE;
+        int bestStart = -1;
+        for (int r = 0; r < rows; r++) {
+            int rowStart = r * seatsPerRow;
+            int width = Math.min(seatsPerRow, capacity - rowStart);
+            if (width < partySize) continue;
+            long starts = runStarts(~rowBits(rowStart, width) & lowMask(width), partySize);
+            if (starts == 0) continue;
+            int target = (width - partySize) / 2;
+            int s = nearestSetBit(starts, target);
+            double score = Math.abs(s - (width - partySize) / 2.0) + 2 * Math.abs(r - midRow);
+            if (score < bestScore) { bestScore = score; bestStart = rowStart + s; }
+        }
+        if (bestStart < 0) return Collections.emptyList();
+        List<String> out = new ArrayList<>(partySize);
+        for (int i = 0; i < partySize; i++) out.add(seatName(bestStart + i));
+        return out;
+    }
+
+    // Taken bits for seats [start, start + width), width <= 64; may straddle two words.
+    long rowBits(int start, int width) {
+        int w = start >>> 6, off = start & 63;
+        long bits = words.get(w) >>> off;
+        if (off != 0 && off + width > 64) bits |= words.get(w + 1) << (64 - off);
+        return bits & lowMask(width);
+    }
+
+    private static long lowMask(int width) { return width == 64 ? -1L : (1L << width) - 1; }
+
+    // Bit i set iff bits i..i+n-1 of free are all set; doubles the run length each step.
+    private static long runStarts(long free, int n) {
+        long x = free;
+        int have = 1;
+        while (have < n) {
+            int step = Math.min(have, n - have);
+            x &= x >>> step;
+            have += step;
+        }
+        return x;
+    }
+
+    private static int nearestSetBit(long bits, int target) {
+        long above = bits >>> target;
+        int up = above == 0 ? Integer.MAX_VALUE : Long.numberOfTrailingZeros(above);
+        long below = target == 63 ? bits : bits & ((1L << (target + 1)) - 1);
+        int down = below == 0 ? Integer.MAX_VALUE : target - (63 - Long.numberOfLeadingZeros(below));
+        return up <= down ? target + up : target - down;
+    }
+
+    // Groups the requested seats into (word index, bit mask) pairs in ascending word order,
+    // so concurrent claims always touch shared words in the same order.
+    private long[][] plan(int[] seats) {
+        int[] sorted = seats.clone();
+        Arrays.sort(sorted);
+        long[] wordIdx = new long[sorted.length];
+        long[] masks = new long[sorted.length];
+        int n = 0;
+        for (int seat : sorted) {
+            checkSeat(seat);
+            int w = seat >>> 6;
+            if (n == 0 || wordIdx[n - 1] != w) { wordIdx[n] = w; n++; }
+            masks[n - 1] |= 1L << seat;
+        }
+        return new long[][]{Arrays.copyOf(wordIdx, n), Arrays.copyOf(masks, n)};
+    }
+
+    private static void clearBits(AtomicLongArray bits, int w, long mask) {
+        bits.getAndAccumulate(w, mask, (a, b) -> a & ~b);
+    }
+
+    // Reports the conflicting word plus any other requested seats that are already taken.
+    private List<String> takenSeats(long conflictBits, long[] wordIdx, long[] masks, int from) {
+        List<String> taken = new ArrayList<>();
+        for (int k = from; k < wordIdx.length; k++) {
+            int w = (int) wordIdx[k];
+            long bits = k == from ? conflictBits : words.get(w) & masks[k];
+            for (; bits != 0; bits &= bits - 1)
+                taken.add(seatName((w << 6) + Long.numberOfTrailingZeros(bits)));
+        }
+        return taken;
+    }
+
+    private void changed(int[] seats) {
+        for (SeatListener l : listeners) l.seatsChanged(seats);
+    }
+
+    private void checkSeat(int seat) {
+        if (seat < 0 || seat >= capacity) throw new IllegalArgumentException("No such seat: " + seatName(seat));
+    }
+
+    private static List<String> namesOf(int[] seats) {
+        List<String> out = new ArrayList<>(seats.length);
+        for (int s : seats) out.add(seatName(s));
+        return out;
+    }
+}
+
+// Called on the thread that claimed, released or committed the seats, after
+// the change; must be quick and must not keep the array
+interface SeatListener {
+    void seatsChanged(int[] seats);
+}
+
+// Typed outcome of a claim: either every seat was taken for the caller, or none were.
+class ReservationResult {
+    private final boolean success;
+    private final List<String> seats;
+    private final SeatHold hold;
+
+    private ReservationResult(boolean success, List<String> seats, SeatHold hold) {
+        this.success = success;
+        this.seats = Collections.unmodifiableList(seats);
+        this.hold = hold;
+    }
+
+    static ReservationResult success(List<String> claimed) { return new ReservationResult(true, claimed, null); }
+    static ReservationResult held(SeatHold hold) { return new ReservationResult(true, hold.getSeats(), hold); }
+    static ReservationResult conflict(List<String> taken) { return new ReservationResult(false, taken, null); }
+
+    public boolean isSuccess() { return success; }
+    public SeatHold getHold() { return hold; } // only set by SeatHoldManager.hold
+    public List<String> getClaimedSeats() { return success ? seats : Collections.emptyList(); }
+    public List<String> getTakenSeats() { return success ? Collections.emptyList() : seats; }
+}
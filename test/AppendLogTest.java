@@ -0,0 +1,58 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AppendLogTest {
+    private static AppendLog<Integer> logOf(int n) {
+        AppendLog<Integer> log = new AppendLog<>();
+        for (int i = 0; i < n; i++) assertEquals(i, log.append(i));
+        return log;
+    }
+
+    @Test
+    void growsAcrossChunksWithoutLosingItems() {
+        int n = AppendLog.CHUNK * 9 + 17;
+        AppendLog<Integer> log = logOf(n);
+        assertEquals(n, log.size());
+        for (int i = 0; i < n; i++) assertEquals(i, log.get(i));
+        assertThrows(IndexOutOfBoundsException.class, () -> log.get(n));
+    }
+
+    @Test
+    void pagesAreNewestFirst() {
+        AppendLog<Integer> log = logOf(600);
+        assertEquals(List.of(599, 598, 597), log.newestFirst(0, 3));
+        assertEquals(List.of(299, 298), log.newestFirst(300, 2));
+        assertEquals(List.of(1, 0), log.newestFirst(598, 10));
+        assertTrue(log.newestFirst(600, 10).isEmpty());
+        assertEquals(List.of(255, 256, 257), log.range(255, 258));
+    }
+
+    @Test
+    void forEachStopsAtTheSizeWhenItStarted() {
+        AppendLog<Integer> log = logOf(3);
+        List<Integer> seen = new ArrayList<>();
+        log.forEach(i -> { seen.add(i); log.append(99); });
+        assertEquals(List.of(0, 1, 2), seen);
+        assertEquals(6, log.size());
+    }
+
+    @Test
+    void readersNeverSeeAnUnfilledSlot() throws InterruptedException {
+        AppendLog<Integer> log = new AppendLog<>();
+        int n = AppendLog.CHUNK * 40;
+        Thread writer = new Thread(() -> { for (int i = 0; i < n; i++) log.append(i); });
+        writer.start();
+        while (writer.isAlive()) {
+            int size = log.size();
+            if (size > 0) assertEquals(size - 1, log.get(size - 1));
+        }
+        writer.join();
+        assertEquals(IntStream.range(0, n).boxed().collect(Collectors.toList()), log.range(0, n));
+    }
+}
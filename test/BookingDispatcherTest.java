@@ -0,0 +1,94 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingDispatcherTest {
+    // Records every event it gets and each batch size; optionally waits for a gate first
+    private static final class Recorder implements BookingObserver {
+        final List<String> seen = Collections.synchronizedList(new ArrayList<>());
+        final List<Integer> batches = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch gate;
+        Recorder(CountDownLatch gate) { this.gate = gate; }
+        @Override public void onBookingSuccess(String username, String movieTitle) { seen.add(username); }
+        @Override public void onBookingBatch(List<BookingEvent> events) {
+            try { if (gate != null) gate.await(); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+            batches.add(events.size());
+            BookingObserver.super.onBookingBatch(events);
+        }
+    }
+
+    private static List<String> names(int n) {
+        List<String> out = new ArrayList<>();
+        for (int i = 0; i < n; i++) out.add("u" + i);
+        return out;
+    }
+
+    private static BookingDispatcher.Metrics metricsOf(BookingDispatcher d, int i) { return d.metrics().get(i); }
+
+    @Test
+    void deliversEveryEventInOrderInBatches() throws InterruptedException {
+        BookingDispatcher d = new BookingDispatcher();
+        CountDownLatch gate = new CountDownLatch(1);
+        Recorder r = new Recorder(gate);
+        d.register(r, BookingDispatcher.BackPressure.BLOCK, 1024, 16);
+        for (String u : names(100)) d.publish(new BookingEvent(u, "Film"));
+        gate.countDown();
+        assertTrue(d.awaitDrained(5_000));
+        assertEquals(names(100), r.seen);
+        for (int size : r.batches) assertTrue(size <= 16);
+        assertTrue(r.batches.size() < 100, "events queued behind a busy observer arrive together");
+    }
+
+    @Test
+    void aSlowObserverDelaysOnlyItself() throws InterruptedException {
+        BookingDispatcher d = new BookingDispatcher();
+        CountDownLatch gate = new CountDownLatch(1);
+        Recorder slow = new Recorder(gate), fast = new Recorder(null);
+        d.register(slow, BookingDispatcher.BackPressure.SPILL, 4, 4);
+        d.register(fast);
+        for (String u : names(50)) d.publish(new BookingEvent(u, "Film"));
+        for (long until = System.currentTimeMillis() + 5_000; fast.seen.size() < 50 && System.currentTimeMillis() < until; ) Thread.sleep(1);
+        assertEquals(names(50), fast.seen);
+        assertTrue(slow.seen.isEmpty());
+        gate.countDown();
+        assertTrue(d.awaitDrained(5_000));
+        // Spilled events come after the queued ones, in publish order
+        assertEquals(names(50), slow.seen);
+        assertTrue(metricsOf(d, 0).spilled > 0);
+    }
+
+    @Test
+    void dropCountsWhatAFullQueueTurnsAway() throws InterruptedException {
+        BookingDispatcher d = new BookingDispatcher();
+        CountDownLatch gate = new CountDownLatch(1);
+        Recorder r = new Recorder(gate);
+        d.register(r, BookingDispatcher.BackPressure.DROP, 2, 1);
+        for (String u : names(20)) d.publish(new BookingEvent(u, "Film"));
+        gate.countDown();
+        assertTrue(d.awaitDrained(5_000));
+        BookingDispatcher.Metrics m = metricsOf(d, 0);
+        assertTrue(m.dropped > 0);
+        assertEquals(20, m.delivered + m.dropped);
+        assertEquals(m.delivered, r.seen.size());
+    }
+
+    @Test
+    void aThrowingObserverKeepsItsWorker() throws InterruptedException {
+        BookingDispatcher d = new BookingDispatcher();
+        CountDownLatch second = new CountDownLatch(1);
+        d.register((u, t) -> {
+            if (u.equals("boom")) throw new IllegalStateException("observer failure (expected by the test)");
+            second.countDown();
+        });
+        d.publish(new BookingEvent("boom", "Film"));
+        assertTrue(d.awaitDrained(5_000));
+        d.publish(new BookingEvent("ok", "Film"));
+        assertTrue(second.await(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,158 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class BookingServiceTest {
+    @TempDir Path dir;
+    private int iterations;
+
+    @BeforeEach
+    void cheapHashes() {
+        iterations = PasswordHasher.getIterations();
+        PasswordHasher.setIterations(1);
+    }
+
+    @AfterEach
+    void restoreCost() { PasswordHasher.setIterations(iterations); }
+
+    // A seeded cinema persisting to dir: "user" is a customer, and Inception and
+    // Parasite have a week of screenings
+    private CinemaData open() { return new CinemaData(null, new CinemaStore(dir, 1_000_000)); }
+
+    private static Screening firstScreening(CinemaData db) { return db.getSchedule().all().get(0); }
+
+    private static CreditCardStrategy card(PaymentGateway gateway) {
+        return new CreditCardStrategy("4242", gateway, new PaymentLimiter(4), 5_000);
+    }
+
+    private static boolean anyTaken(Screening sc, List<String> seats) {
+        for (String s : seats) if (sc.getSeats().isTaken(SeatReservationEngine.seatIndex(s))) return true;
+        return false;
+    }
+
+    @Test
+    void aBookingIsRecordedSoldAndCaptured() {
+        CinemaData db = open();
+        BookingService service = new BookingService(db);
+        User customer = db.findUser("user");
+        Screening sc = firstScreening(db);
+        StubPaymentGateway gateway = new StubPaymentGateway(0, 0, 0, 0);
+
+        SeatHold hold = service.hold(sc, List.of("S1", "S2")).getHold();
+        BookingResult r = service.book(customer, hold, List.of(PriceTable.POPCORN), card(gateway));
+        assertEquals(BookingResult.Status.BOOKED, r.getStatus());
+        assertTrue(sc.getSeats().isBooked("S1"));
+        assertEquals(1, ((Customer) customer).bookings.size());
+        assertEquals(List.of(PriceTable.POPCORN), r.getBooking().getAddOns());
+        assertEquals(1, gateway.getCaptured());
+        assertEquals(0, gateway.getOutstanding());
+    }
+
+    @Test
+    void aDeclinedPaymentFreesTheSeats() {
+        CinemaData db = open();
+        BookingService service = new BookingService(db);
+        Screening sc = firstScreening(db);
+        SeatHold hold = service.hold(sc, List.of("S3")).getHold();
+        BookingResult r = service.book(db.findUser("user"), hold, List.of(), card(new StubPaymentGateway(0, 0, 1, 0)));
+        assertEquals(BookingResult.Status.PAYMENT_DECLINED, r.getStatus());
+        assertFalse(anyTaken(sc, List.of("S3")));
+        assertEquals(0, db.getBookings().size());
+    }
+
+    @Test
+    void anExpiredHoldWhoseSeatsWereSoldVoidsTheAuthorization() throws InterruptedException {
+        CinemaData db = open();
+        BookingService service = new BookingService(db);
+        Screening sc = firstScreening(db);
+        SeatHold hold = db.getHolds().hold(sc, List.of("S4"), 1).getHold();
+        for (long until = System.currentTimeMillis() + 5_000; hold.getState() != SeatHold.State.EXPIRED && System.currentTimeMillis() < until; ) Thread.sleep(5);
+        assertTrue(service.hold(sc, List.of("S4")).getHold().confirm());
+
+        StubPaymentGateway gateway = new StubPaymentGateway(0, 0, 0, 0);
+        BookingResult r = service.book(db.findUser("user"), hold, List.of(), card(gateway));
+        assertEquals(BookingResult.Status.HOLD_EXPIRED, r.getStatus());
+        assertEquals(0, db.getBookings().size());
+        for (long until = System.currentTimeMillis() + 5_000; gateway.getVoided() == 0 && System.currentTimeMillis() < until; ) Thread.sleep(5);
+        assertEquals(1, gateway.getVoided());
+    }
+
+    @Test
+    void aSecondCheckoutOfTheSameHoldRecordsNothing() {
+        CinemaData db = open();
+        BookingService service = new BookingService(db);
+        User customer = db.findUser("user");
+        Screening sc = firstScreening(db);
+        StubPaymentGateway gateway = new StubPaymentGateway(0, 0, 0, 0);
+        SeatHold hold = service.hold(sc, List.of("S5")).getHold();
+
+        assertEquals(BookingResult.Status.BOOKED, service.book(customer, hold, List.of(), card(gateway)).getStatus());
+        assertEquals(BookingResult.Status.DUPLICATE, service.book(customer, hold, List.of(), card(gateway)).getStatus());
+        assertEquals(1, db.getBookings().size());
+        assertEquals(1, gateway.getCaptured());
+        assertEquals(0, gateway.getVoided());
+    }
+
+    @Test
+    void aFailedCaptureIsKeptAndRetried() throws InterruptedException {
+        CinemaData db = open();
+        BookingService service = new BookingService(db);
+        Screening sc = firstScreening(db);
+        StubPaymentGateway stub = new StubPaymentGateway(0, 0, 0, 0);
+        AtomicInteger captureCalls = new AtomicInteger();
+        PaymentGateway flaky = new PaymentGateway() {
+            @Override public CompletableFuture<PaymentAuthorization> authorize(String key, String account, long cents) { return stub.authorize(key, account, cents); }
+            @Override public CompletableFuture<Void> capture(PaymentAuthorization auth) {
+                if (captureCalls.incrementAndGet() == 1) return CompletableFuture.failedFuture(new PaymentException("Gateway error"));
+                return stub.capture(auth);
+            }
+            @Override public CompletableFuture<Void> voidAuthorization(PaymentAuthorization auth) { return stub.voidAuthorization(auth); }
+        };
+
+        SeatHold hold = service.hold(sc, List.of("S6")).getHold();
+        BookingResult r = service.book(db.findUser("user"), hold, List.of(), card(flaky));
+        assertEquals(BookingResult.Status.BOOKED, r.getStatus());
+        assertEquals(1, db.getPendingCaptures().size());
+        for (long until = System.currentTimeMillis() + 10_000; !db.getPendingCaptures().isEmpty() && System.currentTimeMillis() < until; ) Thread.sleep(20);
+        assertTrue(db.getPendingCaptures().isEmpty());
+        assertEquals(1, stub.getCaptured());
+    }
+
+    // The journal's segment is /dev/full, so the batch holding the booking
+    // record fails when it is written, after the record was queued
+    @Test
+    void aBookingWhoseJournalWriteFailsLeavesNothingBehind() throws Exception {
+        Path full = Paths.get("/dev/full");
+        assumeTrue(Files.exists(full), "needs /dev/full");
+        Files.createSymbolicLink(dir.resolve(String.format("journal-%020d.log", 1)), full);
+        CinemaData db = open();
+        BookingService service = new BookingService(db);
+        Customer customer = (Customer) db.findUser("user");
+        Screening sc = firstScreening(db);
+        StubPaymentGateway gateway = new StubPaymentGateway(0, 0, 0, 0);
+
+        SeatHold hold = service.hold(sc, List.of("S7", "S8")).getHold();
+        BookingResult r = service.book(customer, hold, List.of(), card(gateway));
+        assertEquals(BookingResult.Status.NOT_SAVED, r.getStatus());
+        assertFalse(anyTaken(sc, List.of("S7", "S8")));
+        assertEquals(0, customer.bookings.size());
+        assertEquals(0, db.getBookings().size());
+        assertEquals(0, db.getBookings().forScreening(sc.getId()).size());
+        for (long until = System.currentTimeMillis() + 5_000; gateway.getVoided() == 0 && System.currentTimeMillis() < until; ) Thread.sleep(5);
+        assertEquals(1, gateway.getVoided());
+        assertEquals(0, gateway.getCaptured());
+        for (long until = System.currentTimeMillis() + 5_000; db.getStorageFailure() == null && System.currentTimeMillis() < until; ) Thread.sleep(5);
+        assertNotNull(db.getStorageFailure());
+    }
+}
@@ -0,0 +1,83 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CinemaJournalTest {
+    @TempDir Path dir;
+
+    private CinemaJournal open(long lastSeq) throws IOException {
+        return new CinemaJournal(dir, lastSeq, Long.MAX_VALUE, () -> {}, e -> {});
+    }
+
+    private static void append(CinemaJournal j, String... texts) {
+        for (String t : texts) j.append((byte) 1, out -> out.writeUTF(t)).join();
+    }
+
+    // "seq:text" for every record after afterSeq
+    private List<String> replay(long afterSeq) throws IOException {
+        List<String> out = new ArrayList<>();
+        CinemaJournal.replay(dir, afterSeq, (seq, type, in) -> out.add(seq + ":" + in.readUTF()));
+        return out;
+    }
+
+    private Path segment(long firstSeq) { return dir.resolve(String.format("journal-%020d.log", firstSeq)); }
+
+    @Test
+    void recordsReplayInOrderAfterTheGivenSeq() throws IOException {
+        CinemaJournal j = open(0);
+        append(j, "a", "b", "c");
+        j.close();
+        assertEquals(List.of("1:a", "2:b", "3:c"), replay(0));
+        assertEquals(List.of("3:c"), replay(2));
+        assertEquals(3, CinemaJournal.replay(dir, 0, (seq, type, in) -> {}));
+    }
+
+    @Test
+    void aTornTailIsCutOffAndAppendingGoesOn() throws IOException {
+        CinemaJournal j = open(0);
+        append(j, "a", "b");
+        j.close();
+        long intact = Files.size(segment(1));
+        // A frame header promising more bytes than made it to disk
+        Files.write(segment(1), new byte[] {0, 0, 0, 40, 1, 2, 3, 4, 5}, StandardOpenOption.APPEND);
+
+        assertEquals(List.of("1:a", "2:b"), replay(0));
+        assertEquals(intact, Files.size(segment(1)));
+        j = open(2);
+        append(j, "c");
+        j.close();
+        assertEquals(List.of("1:a", "2:b", "3:c"), replay(0));
+    }
+
+    @Test
+    void aCorruptRecordEndsTheReplay() throws IOException {
+        CinemaJournal j = open(0);
+        append(j, "a", "b");
+        j.close();
+        byte[] bytes = Files.readAllBytes(segment(1));
+        bytes[bytes.length - 1] ^= 1; // last byte of "b"
+        Files.write(segment(1), bytes);
+        assertEquals(List.of("1:a"), replay(0));
+    }
+
+    @Test
+    void rotatedSegmentsAreRetiredOnceASnapshotCoversThem() throws IOException {
+        CinemaJournal j = open(0);
+        append(j, "a", "b");
+        j.rotate(j.lastSeq()).join();
+        append(j, "c");
+        j.close();
+        assertTrue(Files.exists(segment(3)));
+        j.retireThrough(2);
+        assertFalse(Files.exists(segment(1)));
+        assertEquals(List.of("3:c"), replay(2));
+    }
+}
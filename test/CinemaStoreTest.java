@@ -0,0 +1,112 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CinemaStoreTest {
+    @TempDir Path dir;
+    private CinemaStore store;
+    private int iterations;
+
+    @BeforeEach
+    void cheapHashes() {
+        iterations = PasswordHasher.getIterations();
+        PasswordHasher.setIterations(1);
+    }
+
+    @AfterEach
+    void restoreCost() { PasswordHasher.setIterations(iterations); }
+
+    // A cinema persisting to dir; seeded on the first call, recovered after
+    private CinemaData open() {
+        store = new CinemaStore(dir, 1_000_000);
+        return new CinemaData(null, store);
+    }
+
+    private static BookingResult book(CinemaData db, Screening sc, String seat) {
+        BookingService service = new BookingService(db);
+        CreditCardStrategy card = new CreditCardStrategy("4242", new StubPaymentGateway(0, 0, 0, 0), new PaymentLimiter(4), 5_000);
+        return service.book(db.findUser("user"), service.hold(sc, List.of(seat)).getHold(), List.of(), card);
+    }
+
+    @Test
+    void aSnapshotAndTheJournalAfterItRestoreTheState() {
+        CinemaData db = open();
+        Screening sc = db.getSchedule().all().get(0);
+        assertEquals(BookingResult.Status.BOOKED, book(db, sc, "S1").getStatus());
+        store.snapshot();
+        assertEquals(BookingResult.Status.BOOKED, book(db, sc, "S2").getStatus());
+        assertNull(db.getStorageFailure());
+
+        CinemaData restored = open();
+        Screening again = restored.getSchedule().get(sc.getId());
+        assertTrue(again.getSeats().isBooked("S1"));
+        assertTrue(again.getSeats().isBooked("S2"));
+        assertFalse(again.getSeats().isTaken(SeatReservationEngine.seatIndex("S3")));
+        assertEquals(2, restored.getBookings().forScreening(sc.getId()).size());
+        assertEquals(2, ((Customer) restored.findUser("user")).bookings.size());
+    }
+
+    // Confirming a hold sells its seats before the booking record is written;
+    // a snapshot cut meanwhile must not save them as sold without the booking
+    @Test
+    void seatsSoldWithoutABookingOnDiskAreNotSnapshotted() {
+        CinemaData db = open();
+        Screening sc = db.getSchedule().all().get(0);
+        assertTrue(db.getHolds().hold(sc, List.of("S3"), 60_000).getHold().confirm());
+        assertTrue(sc.getSeats().isBooked("S3"));
+        store.snapshot();
+        assertNull(db.getStorageFailure());
+
+        Screening again = open().getSchedule().get(sc.getId());
+        assertFalse(again.getSeats().isTaken(SeatReservationEngine.seatIndex("S3")));
+    }
+
+    // A BOOKING record (before typed bookings) sells its seats but replays as a
+    // booking without any; later snapshots must keep those seats sold
+    @Test
+    void seatsRecoveredWithoutABookingStaySoldAcrossSnapshots() throws Exception {
+        Screening sc = open().getSchedule().all().get(0);
+        CinemaJournal old = new CinemaJournal(dir, 0, Long.MAX_VALUE, () -> {}, e -> {});
+        old.append(CinemaStore.BOOKING, out -> {
+            out.writeUTF(sc.getId()); out.writeUTF("user");
+            out.writeBoolean(true); out.writeUTF("Ticket: " + sc.getMovie().getTitle());
+            out.writeInt(1); out.writeInt(SeatReservationEngine.seatIndex("S9"));
+        }).join();
+        old.close();
+
+        CinemaData db = open();
+        assertTrue(db.getSchedule().get(sc.getId()).getSeats().isBooked("S9"));
+        store.snapshot();
+        assertNull(db.getStorageFailure());
+
+        CinemaData restored = open();
+        assertTrue(restored.getSchedule().get(sc.getId()).getSeats().isBooked("S9"));
+        assertEquals(1, restored.getBookings().size());
+    }
+    @Test
+    void addOnsAreReadBackFromAnOldItemText() {
+        assertEquals(List.of("Popcorn", "Soda"), CinemaStore.addOnsFromItem("Ticket: Inception, Popcorn, Soda", "Inception"));
+        assertEquals(List.of(), CinemaStore.addOnsFromItem("Ticket: Inception", "Inception"));
+        assertEquals(List.of(), CinemaStore.addOnsFromItem("2x something else", "Inception"));
+        // Not in the table: taken up to the next separator
+        assertEquals(List.of("Nachos", "Soda"), CinemaStore.addOnsFromItem("Ticket: Up, Nachos, Soda", "Up"));
+    }
+
+    @Test
+    void anAddOnNameMayContainTheSeparator() {
+        PriceTable before = PriceTable.current();
+        PriceTable.install(before.withAddOn("Popcorn, large", 1000));
+        try {
+            assertEquals(List.of("Popcorn, large", "Soda"), CinemaStore.addOnsFromItem("Ticket: Up, Popcorn, large, Soda", "Up"));
+            assertEquals(List.of("Popcorn", "Soda"), CinemaStore.addOnsFromItem("Ticket: Up, Popcorn, Soda", "Up"));
+        } finally {
+            PriceTable.install(before);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+import org.junit.jupiter.api.Test;
+
+import javax.swing.SwingUtilities;
+import javax.swing.event.TableModelEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityTableModelTest {
+    private static EntityTableModel<String> model() {
+        return new EntityTableModel<>(List.of(EntityTableModel.column("Name", String.class, s -> s)), s -> s, s -> !s.startsWith("-"));
+    }
+
+    private static List<String> rows(EntityTableModel<String> m) {
+        List<String> out = new ArrayList<>();
+        for (int r = 0; r < m.getRowCount(); r++) out.add(m.getRowId(r));
+        return out;
+    }
+
+    @Test
+    void removingARowKeepsTheOrderOfTheRest() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            EntityTableModel<String> m = model();
+            m.setRows(List.of("best", "good", "fair", "poor"), s -> true);
+            List<TableModelEvent> events = new ArrayList<>();
+            m.addTableModelListener(events::add);
+
+            m.removed("good");
+            assertEquals(List.of("best", "fair", "poor"), rows(m));
+            assertEquals(1, events.size());
+            assertEquals(TableModelEvent.DELETE, events.get(0).getType());
+            assertEquals(1, events.get(0).getFirstRow());
+            assertEquals(1, events.get(0).getLastRow());
+
+            // The shifted rows are still found by id
+            m.removed("poor");
+            m.removed("best");
+            assertEquals(List.of("fair"), rows(m));
+            m.removed("gone");
+            assertEquals(List.of("fair"), rows(m));
+        });
+    }
+
+    @Test
+    void setRowsKeepsTheGivenOrderAndFilter() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            EntityTableModel<String> m = model();
+            m.setRows(List.of("c", "-hidden", "a", "c", "b"), s -> !s.startsWith("-"));
+            assertEquals(List.of("c", "a", "b"), rows(m));
+            m.added("d");
+            m.added("a");
+            assertEquals(List.of("c", "a", "b", "d"), rows(m));
+        });
+    }
+
+    @Test
+    void aPagedSourceLoadsOnlyTheRowsRead() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            AtomicInteger loads = new AtomicInteger();
+            CatalogueList<String> catalogue = new CatalogueList<>(10_000, i -> { loads.incrementAndGet(); return "m" + i; });
+            EntityTableModel<String> m = model();
+            m.setSource(catalogue::snapshot);
+            List<TableModelEvent> events = new ArrayList<>();
+            m.addTableModelListener(events::add);
+            assertEquals(10_000, m.getRowCount());
+            assertEquals(0, loads.get());
+            assertEquals("m42", m.getValueAt(42, 0));
+            assertEquals(1, loads.get());
+
+            catalogue.add("extra");
+            m.added("extra");
+            assertEquals(10_001, m.getRowCount());
+            assertEquals(TableModelEvent.INSERT, events.get(0).getType());
+            assertEquals(10_000, events.get(0).getFirstRow());
+
+            String gone = catalogue.get(7);
+            catalogue.remove(gone);
+            m.removed(gone);
+            assertEquals(TableModelEvent.DELETE, events.get(1).getType());
+            assertEquals(7, events.get(1).getFirstRow());
+            assertEquals("m8", m.getRowId(7));
+            m.changed("m42");
+            assertEquals(TableModelEvent.UPDATE, events.get(2).getType());
+            assertEquals(41, events.get(2).getFirstRow());
+            assertEquals(3, loads.get()); // m42, m7 and m8: only the rows read
+        });
+    }
+}
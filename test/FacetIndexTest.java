@@ -0,0 +1,39 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FacetIndexTest {
+    private static Movie movie(String title, String genre) {
+        return new Movie.MovieBuilder(title).setGenre(genre).setLanguage("English").setPrice(10).build();
+    }
+
+    @Test
+    void countsIgnoreTheFacetsOwnTicks() {
+        FacetIndex index = new FacetIndex();
+        index.add(movie("A", "Drama"));
+        index.add(movie("B", "Drama"));
+        index.add(movie("C", "Comedy"));
+        FacetResult r = index.query(FacetSelection.NONE.with(Facet.GENRE, "Drama", true));
+        assertEquals(2, r.size());
+        assertEquals(Integer.valueOf(1), r.counts(Facet.GENRE).get("Comedy"));
+        assertEquals(Integer.valueOf(2), r.counts(Facet.LANGUAGE).get("English"));
+    }
+
+    @Test
+    void aResultKeepsItsMoviesWhenOrdinalsAreReused() {
+        FacetIndex index = new FacetIndex();
+        Movie a = movie("A", "Drama"), b = movie("B", "Drama");
+        index.add(a);
+        index.add(b);
+        FacetResult r = index.query(FacetSelection.NONE.with(Facet.GENRE, "Drama", true));
+
+        // C takes A's ordinal
+        index.remove(a);
+        Movie c = movie("C", "Comedy");
+        index.add(c);
+        assertEquals(List.of(a, b), r.movies());
+        assertEquals(List.of(c), index.query(FacetSelection.NONE.with(Facet.GENRE, "Comedy", true)).movies());
+    }
+}
@@ -0,0 +1,78 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntervalTreeTest {
+    private static IntervalTree<String> tree() { return new IntervalTree<>(Comparator.naturalOrder()); }
+
+    @Test
+    void rangesAreHalfOpen() {
+        IntervalTree<String> t = tree();
+        t.add(10, 20, "a");
+        assertNull(t.anyOverlap(20, 30));
+        assertNull(t.anyOverlap(0, 10));
+        assertEquals("a", t.anyOverlap(19, 21));
+        assertThrows(IllegalArgumentException.class, () -> t.add(5, 5, "empty"));
+    }
+
+    @Test
+    void overlapsAreListedInStartOrder() {
+        IntervalTree<String> t = tree();
+        t.add(30, 40, "c");
+        t.add(0, 100, "a");
+        t.add(10, 20, "b");
+        t.add(10, 15, "b2");
+        t.add(200, 300, "d");
+        assertEquals(List.of("a", "b", "b2", "c"), t.overlaps(12, 35));
+        assertEquals(List.of("d"), t.overlaps(150, 250));
+    }
+
+    @Test
+    void removeNeedsTheStartAndTheValue() {
+        IntervalTree<String> t = tree();
+        t.add(0, 10, "x");
+        t.add(0, 10, "y");
+        assertFalse(t.remove(1, "x"));
+        assertTrue(t.remove(0, "x"));
+        assertEquals(1, t.size());
+        assertEquals(List.of("y"), t.overlaps(0, 10));
+    }
+
+    @Test
+    void firstGapJumpsPastBlockingIntervals() {
+        IntervalTree<String> t = tree();
+        t.add(0, 50, "a");
+        t.add(40, 90, "b");
+        t.add(100, 120, "c");
+        assertEquals(90, t.firstGap(0, 10, 1000));
+        assertEquals(120, t.firstGap(0, 20, 1000));
+        assertEquals(Long.MIN_VALUE, t.firstGap(0, 20, 130));
+    }
+
+    @Test
+    void matchesABruteForceScanAfterRandomEdits() {
+        Random rnd = new Random(42);
+        IntervalTree<String> t = tree();
+        List<long[]> live = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            if (!live.isEmpty() && rnd.nextInt(3) == 0) {
+                long[] iv = live.remove(rnd.nextInt(live.size()));
+                assertTrue(t.remove(iv[0], "v" + iv[2]));
+            } else {
+                long lo = rnd.nextInt(10_000), hi = lo + 1 + rnd.nextInt(200);
+                t.add(lo, hi, "v" + i);
+                live.add(new long[]{lo, hi, i});
+            }
+            long qlo = rnd.nextInt(10_000), qhi = qlo + 1 + rnd.nextInt(300);
+            long expected = live.stream().filter(iv -> iv[0] < qhi && qlo < iv[1]).count();
+            assertEquals(expected, t.overlaps(qlo, qhi).size());
+            assertEquals(expected == 0, t.anyOverlap(qlo, qhi) == null);
+        }
+        assertEquals(live.size(), t.size());
+    }
+}
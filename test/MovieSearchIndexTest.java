@@ -0,0 +1,71 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieSearchIndexTest {
+    private static Movie movie(String title, String genre, String language) {
+        return new Movie.MovieBuilder(title).setGenre(genre).setLanguage(language).setPrice(10).build();
+    }
+
+    private static List<String> titles(List<Movie> movies) {
+        List<String> out = new ArrayList<>();
+        for (Movie m : movies) out.add(m.getTitle());
+        return out;
+    }
+
+    @Test
+    void titlePrefixesRankFirstThenInfixesThenGenreAndLanguage() {
+        MovieSearchIndex index = new MovieSearchIndex();
+        index.add(movie("Dramatic Exit", "Comedy", "English"));
+        index.add(movie("The Drama Club", "Comedy", "English"));
+        index.add(movie("Quiet", "Drama", "English"));
+        index.add(movie("Unrelated", "Horror", "French"));
+        assertEquals(List.of("Dramatic Exit", "The Drama Club", "Quiet"), titles(index.searchMovies("drama")));
+        assertEquals(List.of("Dramatic Exit", "The Drama Club", "Quiet"), titles(index.searchMovies(" DRA ")));
+        assertEquals(List.of("Unrelated"), titles(index.searchMovies("french")));
+        assertTrue(index.searchMovies("dramaz").isEmpty());
+        assertEquals(4, index.searchMovies("").size());
+    }
+
+    @Test
+    void updatesAndRemovalsDropOldGrams() {
+        MovieSearchIndex index = new MovieSearchIndex();
+        Movie m = movie("Alpha", "Drama", "English");
+        index.add(m);
+        m.applyTitle("Omega");
+        index.update(m);
+        assertTrue(index.search("alpha").isEmpty());
+        assertEquals(List.of(m.getId()), index.search("omeg"));
+        index.remove(m);
+        assertTrue(index.search("omeg").isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void matchesAPlainContainsScan() {
+        Random rnd = new Random(7);
+        String[] words = {"star", "wars", "stark", "art", "tar", "dust", "rust", "trust", "ars"};
+        MovieSearchIndex index = new MovieSearchIndex();
+        List<Movie> all = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Movie m = movie(words[rnd.nextInt(words.length)] + " " + words[rnd.nextInt(words.length)] + " " + i, "Drama", "English");
+            all.add(m);
+            index.add(m);
+        }
+        for (String q : new String[] {"s", "st", "sta", "star", "tars", "rust 1", "t t", "ust tr", "dra", "lish", "zzz"}) {
+            List<String> expected = new ArrayList<>();
+            for (Movie m : all) {
+                String fields = (m.getTitle() + "|" + m.getGenre() + "|" + m.getLanguage()).toLowerCase(Locale.ROOT);
+                if (fields.contains(q.trim())) expected.add(m.getId());
+            }
+            List<String> found = index.search(q);
+            assertEquals(expected.size(), found.size(), q);
+            assertTrue(found.containsAll(expected), q);
+        }
+    }
+}
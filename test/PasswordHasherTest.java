@@ -0,0 +1,62 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHasherTest {
+    private int iterations;
+
+    @BeforeEach
+    void cheapHashes() {
+        iterations = PasswordHasher.getIterations();
+        PasswordHasher.setIterations(1_000);
+    }
+
+    @AfterEach
+    void restoreCost() { PasswordHasher.setIterations(iterations); }
+
+    @Test
+    void verifiesOnlyTheRightPassword() {
+        String stored = PasswordHasher.hash("s3cret");
+        assertTrue(stored.startsWith("pbkdf2$1000$"));
+        assertFalse(stored.contains("s3cret"));
+        assertTrue(PasswordHasher.verify("s3cret", stored));
+        assertFalse(PasswordHasher.verify("s3cret ", stored));
+        assertFalse(PasswordHasher.verify(null, stored));
+    }
+
+    @Test
+    void everyHashHasItsOwnSalt() {
+        String a = PasswordHasher.hash("same"), b = PasswordHasher.hash("same");
+        assertNotEquals(a, b);
+        assertTrue(PasswordHasher.verify("same", a));
+        assertTrue(PasswordHasher.verify("same", b));
+    }
+
+    @Test
+    void raisingTheCostKeepsOldHashesValid() {
+        String old = PasswordHasher.hash("pw");
+        PasswordHasher.setIterations(2_000);
+        assertTrue(PasswordHasher.hash("pw").startsWith("pbkdf2$2000$"));
+        assertTrue(PasswordHasher.verify("pw", old));
+    }
+
+    @Test
+    void rejectsMalformedHashesAndCosts() {
+        assertFalse(PasswordHasher.verify("pw", null));
+        assertFalse(PasswordHasher.verify("pw", "pw"));
+        assertFalse(PasswordHasher.verify("pw", "md5$1$abc$def"));
+        assertThrows(IllegalArgumentException.class, () -> PasswordHasher.setIterations(0));
+    }
+
+    @Test
+    void usersKeepOnlyTheHash() {
+        Customer c = new Customer("ana", "pw");
+        assertTrue(c.passwordHash.startsWith("pbkdf2$"));
+        assertTrue(c.verify("pw"));
+        assertFalse(c.verify("PW"));
+        User restored = UserFactory.restore("CUSTOMER", "ana", c.passwordHash);
+        assertTrue(restored.verify("pw"));
+    }
+}
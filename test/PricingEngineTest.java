@@ -0,0 +1,40 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PricingEngineTest {
+    private final Hall hall = new Hall("Test", 40, 10);
+    private final Movie movie = new Movie.MovieBuilder("Test").setHall(hall).setPrice(10).build();
+
+    private static List<String> seats(int from, int n) {
+        List<String> out = new ArrayList<>();
+        for (int i = from; i < from + n; i++) out.add(SeatReservationEngine.seatName(i));
+        return out;
+    }
+
+    @Test
+    void defaultTableKeepsEverySeatAtTheListPrice() {
+        PricePlan plan = new PricingEngine().plan(movie, List.of(PriceTable.POPCORN));
+        // Twelve seats, the last rows included: no surcharge and no group discount
+        PriceQuote q = plan.quote(hall, seats(28, 12));
+        assertEquals(12 * 1800, q.getTotalCents());
+        assertEquals(0, q.getDiscountCents());
+        assertFalse(q.toString().contains("premium"));
+    }
+
+    @Test
+    void installedSurchargesAndTiersApply() {
+        PriceTable table = PriceTable.defaults()
+                .withSurcharge(SeatClass.PREMIUM, 300)
+                .withBulkDiscount(4, 10);
+        PricePlan plan = new PricePlan(movie, 1000, List.of(), table);
+        // Rows 0-2 standard, row 3 premium
+        PriceQuote q = plan.quote(hall, seats(28, 4));
+        assertEquals(2, q.getPremiumSeats());
+        assertEquals(2 * 1000 + 2 * 1300, q.getSubtotalCents());
+        assertEquals(460, q.getDiscountCents());
+    }
+}
@@ -0,0 +1,94 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoaringBitmapTest {
+    private static RoaringBitmap range(int from, int to) {
+        RoaringBitmap b = new RoaringBitmap();
+        for (int x = from; x < to; x++) b.add(x);
+        return b;
+    }
+
+    private static BitSet toBitSet(RoaringBitmap b) {
+        BitSet s = new BitSet();
+        b.forEach(s::set);
+        return s;
+    }
+
+    @Test
+    void andOfALargeArrayWithASmallOrResult() {
+        // or() leaves a bitset container of 2101 values; 0..2999 is a 3000-value array
+        RoaringBitmap small = range(0, 2100).or(range(1, 2101));
+        RoaringBitmap big = range(0, 3000);
+        RoaringBitmap both = big.and(small);
+        assertEquals(2101, both.cardinality());
+        assertEquals(2101, big.andCardinality(small));
+        assertEquals(toBitSet(small), toBitSet(both));
+    }
+
+    @Test
+    void andWithADenseCopy() {
+        RoaringBitmap a = range(0, 50);
+        RoaringBitmap b = range(40, 5000);
+        assertEquals(10, b.and(a.dense()).cardinality());
+        assertEquals(10, a.and(b.dense()).cardinality());
+        assertEquals(10, b.andCardinality(a.dense()));
+    }
+
+    @Test
+    void containersSwitchKindBothWays() {
+        RoaringBitmap b = range(0, 5000);
+        assertEquals(5000, b.cardinality());
+        for (int x = 0; x < 4990; x++) b.remove(x);
+        assertEquals(10, b.cardinality());
+        assertTrue(b.contains(4995));
+        assertFalse(b.contains(10));
+        for (int x = 4990; x < 5000; x++) b.remove(x);
+        assertTrue(b.isEmpty());
+    }
+
+    @Test
+    void countByGroupsEveryValue() {
+        RoaringBitmap b = new RoaringBitmap();
+        int[] keyOf = new int[200_000];
+        for (int x = 0; x < keyOf.length; x += 3) { b.add(x); keyOf[x] = x % 2; }
+        int[] counts = new int[2];
+        b.countBy(keyOf, counts);
+        assertEquals(b.cardinality(), counts[0] + counts[1]);
+    }
+
+    @Test
+    void matchesBitSetOnRandomSets() {
+        Random rnd = new Random(7);
+        for (int round = 0; round < 40; round++) {
+            List<RoaringBitmap> maps = new ArrayList<>();
+            List<BitSet> sets = new ArrayList<>();
+            for (int k = 0; k < 2; k++) {
+                RoaringBitmap m = new RoaringBitmap();
+                BitSet s = new BitSet();
+                // Densities from a few values to far past ARRAY_MAX, over several containers
+                int n = rnd.nextInt(3) == 0 ? rnd.nextInt(30) : rnd.nextInt(20_000);
+                int span = 1 + rnd.nextInt(200_000);
+                for (int i = 0; i < n; i++) { int x = rnd.nextInt(span); m.add(x); s.set(x); }
+                for (int i = 0; i < n / 4; i++) { int x = rnd.nextInt(span); m.remove(x); s.clear(x); }
+                maps.add(rnd.nextBoolean() ? m : m.or(new RoaringBitmap()));
+                sets.add(s);
+            }
+            RoaringBitmap a = maps.get(0), b = maps.get(1);
+            BitSet and = (BitSet) sets.get(0).clone(); and.and(sets.get(1));
+            BitSet or = (BitSet) sets.get(0).clone(); or.or(sets.get(1));
+            assertEquals(sets.get(0), toBitSet(a));
+            assertEquals(and, toBitSet(a.and(b)));
+            assertEquals(and, toBitSet(a.and(b.dense())));
+            assertEquals(and, toBitSet(a.dense().and(b)));
+            assertEquals(and.cardinality(), a.andCardinality(b));
+            assertEquals(or, toBitSet(a.or(b)));
+            assertEquals(or, toBitSet(a.or(b).copy()));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeatHoldManagerTest {
+    private final HashedTimingWheel wheel = new HashedTimingWheel(5, 64, "test-wheel");
+    private final SeatHoldManager holds = new SeatHoldManager(wheel);
+
+    @AfterEach
+    void stopWheel() { wheel.shutdown(); }
+
+    private static Screening screening(int seats) {
+        Hall hall = new Hall("Hall", seats, 10);
+        Movie m = new Movie.MovieBuilder("Film").setGenre("Drama").setLanguage("English").setPrice(10).setHall(hall).build();
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 18, 0);
+        return new Screening(m, hall, start, start.plus(Screening.DEFAULT_LENGTH));
+    }
+
+    private static void waitFor(SeatHold h, SeatHold.State state) throws InterruptedException {
+        for (long until = System.currentTimeMillis() + 5_000; h.getState() != state && System.currentTimeMillis() < until; ) Thread.sleep(2);
+        assertEquals(state, h.getState());
+    }
+
+    @Test
+    void aHoldClaimsItsSeatsUntilReleased() {
+        Screening sc = screening(20);
+        SeatHold h = holds.hold(sc, List.of("S1", "S2"), 60_000).getHold();
+        assertTrue(sc.getSeats().isHeld(0));
+        assertEquals(List.of("S2"), holds.hold(sc, List.of("S2", "S3")).getTakenSeats());
+        assertEquals(1, holds.getOpenHolds());
+
+        h.release();
+        assertEquals(SeatHold.State.RELEASED, h.getState());
+        assertFalse(sc.getSeats().isTaken(0));
+        assertEquals(0, holds.getOpenHolds());
+        assertFalse(h.confirm());
+    }
+
+    @Test
+    void confirmSellsTheSeatsOnce() {
+        Screening sc = screening(20);
+        SeatHold h = holds.hold(sc, List.of("S4"), 60_000).getHold();
+        assertTrue(h.confirm());
+        assertTrue(sc.getSeats().isBooked(3));
+        assertEquals(0, holds.getOpenHolds());
+        // A second checkout of the same hold must not record a second booking
+        assertFalse(h.confirm());
+        assertTrue(h.isConfirmed());
+    }
+
+    @Test
+    void anExpiredHoldFreesItsSeats() throws InterruptedException {
+        Screening sc = screening(20);
+        SeatHold h = holds.hold(sc, List.of("S5", "S6"), 20).getHold();
+        waitFor(h, SeatHold.State.EXPIRED);
+        assertFalse(sc.getSeats().isTaken(4));
+        assertEquals(0, holds.getOpenHolds());
+    }
+
+    @Test
+    void anExpiredHoldIsConfirmedOnlyIfItsSeatsAreStillFree() throws InterruptedException {
+        Screening sc = screening(20);
+        SeatHold free = holds.hold(sc, List.of("S1"), 20).getHold();
+        SeatHold lost = holds.hold(sc, List.of("S2"), 20).getHold();
+        waitFor(free, SeatHold.State.EXPIRED);
+        waitFor(lost, SeatHold.State.EXPIRED);
+        assertTrue(holds.hold(sc, List.of("S2"), 60_000).getHold().confirm());
+
+        assertTrue(free.confirm());
+        assertTrue(sc.getSeats().isBooked(0));
+        assertFalse(lost.confirm());
+        assertEquals(SeatHold.State.EXPIRED, lost.getState());
+        assertFalse(lost.isConfirmed());
+    }
+
+    @Test
+    void concurrentConfirmsOfAnExpiredHoldHaveOneWinner() throws InterruptedException {
+        for (int round = 0; round < 50; round++) {
+            Screening sc = screening(20);
+            SeatHold h = holds.hold(sc, List.of("S7", "S8"), 1).getHold();
+            waitFor(h, SeatHold.State.EXPIRED);
+            AtomicInteger wins = new AtomicInteger();
+            CountDownLatch go = new CountDownLatch(1);
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                Thread th = new Thread(() -> {
+                    try { go.await(); } catch (InterruptedException e) { return; }
+                    if (h.confirm()) wins.incrementAndGet();
+                });
+                th.start();
+                threads.add(th);
+            }
+            go.countDown();
+            for (Thread th : threads) th.join();
+            assertEquals(1, wins.get());
+            assertEquals(SeatHold.State.CONFIRMED, h.getState());
+        }
+    }
+
+    @Test
+    void theWheelRunsDueTasksAndSkipsCancelledOnes() throws InterruptedException {
+        CountDownLatch ran = new CountDownLatch(1);
+        AtomicInteger cancelledRuns = new AtomicInteger();
+        WheelTimeout cancelled = wheel.schedule(cancelledRuns::incrementAndGet, 10);
+        cancelled.cancel();
+        long t0 = System.nanoTime();
+        wheel.schedule(ran::countDown, 30);
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0) >= 25);
+        // Due on a later revolution of the 64-slot wheel: must not fire on the first pass
+        CountDownLatch late = new CountDownLatch(1);
+        t0 = System.nanoTime();
+        wheel.schedule(late::countDown, 64 * 5 + 50);
+        assertTrue(late.await(5, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0) >= 64 * 5 + 45);
+        assertEquals(0, cancelledRuns.get());
+        for (long until = System.currentTimeMillis() + 5_000; wheel.pending() > 0 && System.currentTimeMillis() < until; ) Thread.sleep(2);
+        assertEquals(0, wheel.pending());
+    }
+}
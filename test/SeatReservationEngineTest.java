@@ -0,0 +1,115 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeatReservationEngineTest {
+    @Test
+    void claimTakesEverySeatOrNone() {
+        SeatReservationEngine e = new SeatReservationEngine(200);
+        assertTrue(e.claim(3, 70, 150).isSuccess());
+
+        // 70 is taken, so 10 and 199 must be rolled back
+        ReservationResult r = e.claim(10, 70, 199);
+        assertFalse(r.isSuccess());
+        assertEquals(List.of("S71"), r.getTakenSeats());
+        assertFalse(e.isTaken(10));
+        assertFalse(e.isTaken(199));
+        assertTrue(e.claim(10, 199).isSuccess());
+    }
+
+    @Test
+    void commitMarksHeldSeatsSoldAndReleaseFreesThem() {
+        SeatReservationEngine e = new SeatReservationEngine(100);
+        e.claim(5, 64);
+        assertTrue(e.isHeld(5));
+        e.commit(5, 64);
+        assertTrue(e.isBooked(5));
+        assertFalse(e.isHeld(64));
+        assertEquals(2, e.bookedCount());
+        assertEquals(List.of("S6", "S65"), e.bookedSeats());
+
+        e.release(5);
+        assertFalse(e.isTaken(5));
+        assertFalse(e.isBooked(5));
+        assertEquals(1, e.bookedCount());
+    }
+
+    @Test
+    void seatNamesAreOneBased() {
+        assertEquals("S1", SeatReservationEngine.seatName(0));
+        assertEquals(41, SeatReservationEngine.seatIndex("S42"));
+        assertThrows(IllegalArgumentException.class, () -> SeatReservationEngine.seatIndex("A1"));
+        assertThrows(IllegalArgumentException.class, () -> new SeatReservationEngine(10).claim(10));
+    }
+
+    @Test
+    void bestBlockPrefersTheMiddleAndSkipsTakenSeats() {
+        // 5 rows of 10: row 2 is the middle one, seats 3..6 its centre
+        SeatReservationEngine e = new SeatReservationEngine(50);
+        assertEquals(List.of("S24", "S25", "S26", "S27"), e.findBestBlock(4, 10));
+
+        e.claim(24);
+        List<String> block = e.findBestBlock(4, 10);
+        assertEquals(4, block.size());
+        for (String s : block) assertFalse(e.isTaken(SeatReservationEngine.seatIndex(s)));
+        assertTrue(e.findBestBlock(11, 10).isEmpty());
+    }
+
+    @Test
+    void bestBlockReadsRowsThatStraddleWords() {
+        // Rows of 48 seats: row 1 covers bits 48..95, across words 0 and 1
+        SeatReservationEngine e = new SeatReservationEngine(144);
+        List<Integer> rest = new ArrayList<>();
+        for (int s = 0; s < 144; s++) if (s < 60 || s > 61) rest.add(s);
+        e.claim(rest.stream().mapToInt(Integer::intValue).toArray());
+        assertEquals(List.of("S61", "S62"), e.findBestBlock(2, 48));
+        assertTrue(e.findBestBlock(3, 48).isEmpty());
+    }
+
+    @Test
+    void concurrentClaimsNeverSellASeatTwice() throws InterruptedException {
+        SeatReservationEngine e = new SeatReservationEngine(128);
+        AtomicInteger won = new AtomicInteger();
+        CountDownLatch go = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int first = t;
+            Thread th = new Thread(() -> {
+                try { go.await(); } catch (InterruptedException ex) { return; }
+                // Overlapping pairs across the word boundary
+                for (int s = first; s < 127; s += 2)
+                    if (e.claim(s, s + 1).isSuccess()) won.addAndGet(2);
+            });
+            threads.add(th);
+            th.start();
+        }
+        go.countDown();
+        for (Thread th : threads) th.join();
+
+        int taken = 0;
+        for (int s = 0; s < 128; s++) if (e.isTaken(s)) taken++;
+        assertEquals(taken, won.get());
+    }
+
+    @Test
+    void listenersHearOfChangesButNotOfFailedClaims() {
+        SeatReservationEngine e = new SeatReservationEngine(100);
+        List<String> heard = new ArrayList<>();
+        SeatListener l = seats -> { for (int s : seats) heard.add(SeatReservationEngine.seatName(s)); };
+        e.addListener(l);
+        e.claim(1, 70);
+        e.commit(1, 70);
+        assertFalse(e.claim(2, 70).isSuccess());
+        e.release(70);
+        assertEquals(List.of("S2", "S71", "S2", "S71", "S71"), heard);
+
+        e.removeListener(l);
+        e.claim(5);
+        assertEquals(5, heard.size());
+    }
+}